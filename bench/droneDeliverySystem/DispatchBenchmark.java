@@ -0,0 +1,55 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// placeOrder to delivered for 10,000 orders on an ACCELERATED clock, so flight time costs no
+// wall time; the score is orders per second under each dispatch mode
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DispatchBenchmark {
+    private static final long SEED = 42;
+    private static final int ORDERS = 10_000;
+    private static final String[] DESTINATIONS = {"Downtown", "Uptown", "Airport", "Warehouse"};
+
+    @Param({"10", "100", "1000"})
+    public int fleetSize;
+
+    @Param({"greedy", "batch", "consolidated"})
+    public String mode;
+
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        random = new Random(SEED);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public long deliverAll() throws InterruptedException {
+        List<Drone> fleet = new ArrayList<>();
+        for (int i = 0; i < fleetSize; i++) {
+            fleet.add(new Drone("DR-" + i, 3 + i % 5, "Warehouse"));
+        }
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.ACCELERATED);
+        DeliverySystem system = new DeliverySystem(fleet, clock);
+        if (mode.equals("batch")) {
+            system.useBatchDispatch(2_000, 32);
+        } else if (mode.equals("consolidated")) {
+            system.useConsolidation(3, 3);
+        }
+        for (int i = 0; i < ORDERS; i++) {
+            Package pkg = new Package("PKG-" + i, 1 + random.nextInt(6), DESTINATIONS[random.nextInt(DESTINATIONS.length)]);
+            clock.scheduleAt(i * 100L, () -> system.placeOrder(pkg));
+        }
+        clock.awaitIdle(10, TimeUnit.MINUTES);
+        system.shutdown();
+        return clock.now();
+    }
+}
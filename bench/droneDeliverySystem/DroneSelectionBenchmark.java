@@ -0,0 +1,62 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Nearest capable drone for a random drop-off and weight: DroneIndex against the linear scan
+// over the whole fleet it replaced, for fleets of 10 to 10k on a 1,000-location grid
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DroneSelectionBenchmark {
+    private static final long SEED = 42;
+    private static final int NODES = 1_000;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int fleetSize;
+
+    private RouteTable routeTable;
+    private List<Drone> fleet;
+    private DroneIndex index;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        routeTable = new RouteTable(SyntheticGraphs.grid(NODES, SEED));
+        random = new Random(SEED);
+        fleet = new ArrayList<>();
+        index = new DroneIndex(routeTable);
+        for (int i = 0; i < fleetSize; i++) {
+            Drone drone = new Drone("DR-" + i, 2 + random.nextInt(8), SyntheticGraphs.name(random.nextInt(NODES)));
+            fleet.add(drone);
+            index.add(drone);
+        }
+    }
+
+    @Benchmark
+    public Drone linearScan() {
+        String dropOff = SyntheticGraphs.name(random.nextInt(NODES));
+        double weight = 1 + random.nextInt(9);
+        Drone best = null;
+        int shortest = Integer.MAX_VALUE;
+        for (Drone drone : fleet) {
+            if (drone.isAvailable() && drone.getMaxPayloadCapacity() >= weight) {
+                int distance = routeTable.distance(drone.getCurrentLocation(), dropOff);
+                if (distance < shortest) {
+                    shortest = distance;
+                    best = drone;
+                }
+            }
+        }
+        return best;
+    }
+
+    @Benchmark
+    public Drone droneIndex() {
+        return index.nearest(SyntheticGraphs.name(random.nextInt(NODES)), 1 + random.nextInt(9));
+    }
+}
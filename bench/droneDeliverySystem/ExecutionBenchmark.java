@@ -0,0 +1,90 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Wall time for a burst of 2,000 flights on a REAL_TIME clock under each execution backend,
+// with a listener that blocks for 2 ms on every delivery as a slow journal or exporter might,
+// and how long shutdown takes with such a burst still in the air. A backend the running JVM
+// does not support fails its setup and is reported as such.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ExecutionBenchmark {
+    private static final long SEED = 42;
+    private static final int NODES = 400;
+    private static final int FLIGHTS = 2_000;
+
+    @Param({"CLOCK_THREAD", "PLATFORM_THREADS", "VIRTUAL_THREADS"})
+    public String backend;
+
+    private ExecutionBackend execution;
+    private LocationGraph graph;
+    private Random random;
+    private DeliverySystem system;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        execution = ExecutionBackend.valueOf(backend);
+        if (!execution.isSupported()) {
+            throw new UnsupportedOperationException(backend + " is not supported on Java " + System.getProperty("java.version"));
+        }
+        graph = LocationGraph.fromMap(SyntheticGraphs.grid(NODES, SEED));
+        random = new Random(SEED);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        List<Drone> fleet = new ArrayList<>();
+        for (int i = 0; i < FLIGHTS; i++) {
+            fleet.add(new Drone("DR-" + i, 10, SyntheticGraphs.name(random.nextInt(NODES))));
+        }
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.REAL_TIME, 100);
+        clock.useExecution(execution);
+        system = new DeliverySystem(fleet, clock, graph);
+        system.addListener(new DeliveryListener() {
+            @Override
+            public void packageDelivered(Package pkg, Drone drone) {
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        system.shutdown();
+    }
+
+    @Benchmark
+    public long burst() throws InterruptedException {
+        system.placeOrders(burst("PKG-"));
+        while (system.getMetrics().getDelivered() < FLIGHTS) {
+            Thread.sleep(1);
+        }
+        return system.getMetrics().getDelivered();
+    }
+
+    // Queues a second burst and shuts down at once; flights still in the air are cancelled
+    @Benchmark
+    public DeliverySystem shutdownInFlight() {
+        system.placeOrders(burst("LATE-"));
+        system.shutdown();
+        return system;
+    }
+
+    private List<Package> burst(String prefix) {
+        List<Package> burst = new ArrayList<>(FLIGHTS);
+        for (int i = 0; i < FLIGHTS; i++) {
+            burst.add(new Package(prefix + i, 1, SyntheticGraphs.name(random.nextInt(NODES))));
+        }
+        return burst;
+    }
+}
@@ -0,0 +1,54 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Enqueue cost alone: no drones, so nothing leaves the queue. Orders go in one placeOrder
+// call each, or through placeOrders in batches of OrderStream.BATCH_SIZE.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IngestionBenchmark {
+    private static final long SEED = 42;
+    private static final int ORDERS = 10_000;
+    private static final String[] DESTINATIONS = {"Downtown", "Uptown", "Airport", "Warehouse"};
+
+    @Param({"single", "batch"})
+    public String mode;
+
+    private Random random;
+    private PackageIdSequence ids;
+
+    @Setup
+    public void setUp() {
+        random = new Random(SEED);
+        ids = new PackageIdSequence("PKG-");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public int enqueue() {
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.ACCELERATED);
+        DeliverySystem system = new DeliverySystem(new ArrayList<>(), clock);
+        List<Package> batch = new ArrayList<>(OrderStream.BATCH_SIZE);
+        for (int i = 0; i < ORDERS; i++) {
+            Package pkg = new Package(ids.next(), 1 + random.nextInt(6), DESTINATIONS[random.nextInt(DESTINATIONS.length)]);
+            if (mode.equals("single")) {
+                system.placeOrder(pkg);
+                continue;
+            }
+            batch.add(pkg);
+            if (batch.size() == OrderStream.BATCH_SIZE || i == ORDERS - 1) {
+                system.placeOrders(batch);
+                batch.clear();
+            }
+        }
+        int waiting = system.getWaitingCount();
+        system.shutdown();
+        return waiting;
+    }
+}
@@ -0,0 +1,173 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+// Seeded synthetic order stream. Arrivals are Poisson at a base rate, raised by a multiplier
+// during bursts (drawn by thinning, so burst edges need no special casing). Each order goes
+// to a hotspot with that hotspot's share of probability, landing on a location within its
+// radius, and otherwise to any location; weights and priority classes follow their own
+// distributions. The same seed and settings always give the same orders.
+class LoadGenerator {
+    private final long seed;
+    private double ratePerHour = 3_600;
+    private final List<long[]> bursts = new ArrayList<>();
+    private final List<Double> burstMultipliers = new ArrayList<>();
+    private final List<String> hotspots = new ArrayList<>();
+    private final List<Double> hotspotShares = new ArrayList<>();
+    private final List<Integer> hotspotRadii = new ArrayList<>();
+    private boolean logNormal;
+    private double weightA = 1;
+    private double weightB = 5;
+    private double maxWeight = 5;
+    private final EnumMap<PackagePriority, Double> priorityMix = new EnumMap<>(PackagePriority.class);
+
+    public LoadGenerator(long seed) {
+        this.seed = seed;
+        priorityMix.put(PackagePriority.STANDARD, 1.0);
+    }
+
+    public void setRatePerHour(double ratePerHour) {
+        if (!(ratePerHour > 0)) {
+            throw new IllegalArgumentException("Invalid arrival rate " + ratePerHour + "/h");
+        }
+        this.ratePerHour = ratePerHour;
+    }
+
+    // Arrivals run multiplier times faster from startMillis for durationMillis
+    public void addBurst(long startMillis, long durationMillis, double multiplier) {
+        if (startMillis < 0 || durationMillis <= 0 || !(multiplier > 0)) {
+            throw new IllegalArgumentException("Invalid burst " + startMillis + "ms +" + durationMillis + "ms x" + multiplier);
+        }
+        bursts.add(new long[] {startMillis, startMillis + durationMillis});
+        burstMultipliers.add(multiplier);
+    }
+
+    // share of all orders go to locations at most radius from location
+    public void addHotspot(String location, double share, int radius) {
+        double total = share;
+        for (double other : hotspotShares) {
+            total += other;
+        }
+        if (share <= 0 || total > 1 || radius < 0) {
+            throw new IllegalArgumentException("Invalid hotspot " + location + " share " + share + " radius " + radius);
+        }
+        hotspots.add(location);
+        hotspotShares.add(share);
+        hotspotRadii.add(radius);
+    }
+
+    public void useUniformWeights(double minKg, double maxKg) {
+        if (!(minKg > 0) || maxKg < minKg) {
+            throw new IllegalArgumentException("Invalid weight range " + minKg + "-" + maxKg + "kg");
+        }
+        logNormal = false;
+        weightA = minKg;
+        weightB = maxKg;
+        maxWeight = maxKg;
+    }
+
+    // Heavy-tailed weights around a median, cut off at maxKg
+    public void useLogNormalWeights(double medianKg, double sigma, double maxKg) {
+        if (!(medianKg > 0) || sigma < 0 || maxKg < medianKg) {
+            throw new IllegalArgumentException("Invalid log-normal weights " + medianKg + "kg / " + sigma + " / " + maxKg + "kg");
+        }
+        logNormal = true;
+        weightA = medianKg;
+        weightB = sigma;
+        maxWeight = maxKg;
+    }
+
+    // Relative frequency of each priority class; classes left out never occur
+    public void setPriorityMix(Map<PackagePriority, Double> mix) {
+        priorityMix.clear();
+        priorityMix.putAll(mix);
+    }
+
+    public List<OrderLog.Entry> generate(LocationGraph graph, int orders) {
+        Random random = new Random(seed);
+        RouteTable routeTable = new RouteTable(graph);
+        List<int[]> areas = new ArrayList<>();
+        for (int i = 0; i < hotspots.size(); i++) {
+            areas.add(within(routeTable, hotspots.get(i), hotspotRadii.get(i)));
+        }
+        double peak = 1;
+        for (double multiplier : burstMultipliers) {
+            peak = Math.max(peak, multiplier);
+        }
+        double peakPerMilli = ratePerHour * peak / 3_600_000;
+
+        List<OrderLog.Entry> entries = new ArrayList<>(orders);
+        double time = 0;
+        while (entries.size() < orders) {
+            time += -Math.log(1 - random.nextDouble()) / peakPerMilli;
+            if (random.nextDouble() * peak > multiplierAt((long) time)) {
+                continue;
+            }
+            String dropOff = graph.nameOf(destination(random, areas, graph.size()));
+            PackagePriority priority = priority(random);
+            entries.add(new OrderLog.Entry((long) time, "PKG-" + (entries.size() + 1), weight(random), dropOff, priority, -1));
+        }
+        return entries;
+    }
+
+    private double multiplierAt(long time) {
+        double multiplier = 1;
+        for (int i = 0; i < bursts.size(); i++) {
+            if (time >= bursts.get(i)[0] && time < bursts.get(i)[1]) {
+                multiplier = Math.max(multiplier, burstMultipliers.get(i));
+            }
+        }
+        return multiplier;
+    }
+
+    private int destination(Random random, List<int[]> areas, int locations) {
+        double pick = random.nextDouble();
+        for (int i = 0; i < areas.size(); i++) {
+            pick -= hotspotShares.get(i);
+            if (pick < 0) {
+                int[] area = areas.get(i);
+                return area[random.nextInt(area.length)];
+            }
+        }
+        return random.nextInt(locations);
+    }
+
+    // To one decimal place, as a scale would show it
+    private double weight(Random random) {
+        double weight = logNormal
+            ? weightA * Math.exp(weightB * random.nextGaussian())
+            : weightA + (weightB - weightA) * random.nextDouble();
+        return Math.max(0.1, Math.round(Math.min(maxWeight, weight) * 10) / 10.0);
+    }
+
+    private PackagePriority priority(Random random) {
+        double total = 0;
+        for (double share : priorityMix.values()) {
+            total += share;
+        }
+        double pick = random.nextDouble() * total;
+        PackagePriority chosen = PackagePriority.STANDARD;
+        for (Map.Entry<PackagePriority, Double> share : priorityMix.entrySet()) {
+            chosen = share.getKey();
+            pick -= share.getValue();
+            if (pick < 0) {
+                break;
+            }
+        }
+        return chosen;
+    }
+
+    // Locations from which the hotspot is at most radius away, the hotspot itself included
+    private static int[] within(RouteTable routeTable, String location, int radius) {
+        int target = routeTable.idOf(location);
+        if (target < 0) {
+            throw new IllegalArgumentException("Unknown hotspot location " + location);
+        }
+        int[] nearest = routeTable.nodesByDistanceTo(target);
+        int count = 0;
+        while (count < nearest.length && routeTable.distanceTo(nearest[count], target) <= radius) {
+            count++;
+        }
+        return Arrays.copyOf(nearest, count);
+    }
+}
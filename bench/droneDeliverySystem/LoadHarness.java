@@ -0,0 +1,243 @@
+package droneDeliverySystem;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Runs a generated or recorded order stream through the delivery pipeline on an ACCELERATED
+// clock and prints a summary: throughput, per-stage latency percentiles, fleet utilization
+// and requeues. Everything but the wall time is a function of the settings and the orders,
+// so two runs can be diffed to see what a dispatching change did.
+//
+// Usage: LoadHarness [settings.properties] [--replay orders.csv] [--record orders.csv]
+// Settings (defaults in brackets):
+//   graph          grid:N for a synthetic map, or a CSV file for LocationGraph.load [grid:400]
+//   fleet          count x payload [@location], comma separated [10x5]
+//   base           where drones without a location start [the first location]
+//   seed, orders   generator seed and order count [42, 2000]
+//   rate.perHour   base arrival rate [360]
+//   bursts         start+duration*multiplier in seconds, comma separated [none]
+//   weights        uniform:min,max or lognormal:median,sigma,max in kg [uniform:1,5]
+//   hotspots       location:share:radius, comma separated [none]
+//   priorities     CLASS:weight, comma separated [STANDARD:1]
+//   dispatch       greedy or batch:windowMillis,size [greedy]
+//   consolidation  maxStops,maxDetour [off]
+//   repositioning  stay, return or predictive:windowMillis,horizonMillis [stay]
+//   orderLimit     most orders waiting at once; the rest are rejected [unbounded]
+// --replay takes the orders from a log instead of the generator; --record saves the orders run.
+public class LoadHarness {
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    public static void main(String[] args) throws Exception {
+        Properties settings = new Properties();
+        Path replay = null;
+        Path record = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--replay")) {
+                replay = Paths.get(args[++i]);
+            } else if (args[i].equals("--record")) {
+                record = Paths.get(args[++i]);
+            } else {
+                try (Reader in = Files.newBufferedReader(Paths.get(args[i]))) {
+                    settings.load(in);
+                }
+            }
+        }
+
+        LocationGraph graph = graph(settings.getProperty("graph", "grid:400"));
+        List<OrderLog.Entry> orders = replay != null ? OrderLog.read(replay) : generator(settings).generate(graph,
+            Integer.parseInt(settings.getProperty("orders", "2000")));
+        if (record != null) {
+            OrderLog.write(record, orders);
+        }
+
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.ACCELERATED);
+        List<Drone> fleet = fleet(settings.getProperty("fleet", "10x5"), settings.getProperty("base", graph.nameOf(0)));
+        DeliverySystem system = new DeliverySystem(fleet, clock, graph);
+        configure(system, settings);
+        Recorder recorder = new Recorder(clock);
+        system.addListener(recorder);
+
+        long started = System.nanoTime();
+        for (OrderLog.Entry entry : orders) {
+            Package pkg = entry.toPackage();
+            clock.scheduleAt(entry.getTime(), () -> system.offerOrder(pkg));
+        }
+        clock.awaitIdle(1, TimeUnit.HOURS);
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        report(orders, fleet, system.getMetrics(), recorder);
+        System.out.printf("# wall %d ms for %,d orders (not deterministic)%n", wallMillis, orders.size());
+        system.shutdown();
+    }
+
+    private static LocationGraph graph(String spec) throws IOException {
+        if (spec.startsWith("grid:")) {
+            return LocationGraph.fromMap(SyntheticGraphs.grid(Integer.parseInt(spec.substring(5)), 42));
+        }
+        return LocationGraph.load(Paths.get(spec));
+    }
+
+    private static LoadGenerator generator(Properties settings) {
+        LoadGenerator generator = new LoadGenerator(Long.parseLong(settings.getProperty("seed", "42")));
+        generator.setRatePerHour(Double.parseDouble(settings.getProperty("rate.perHour", "360")));
+        for (String burst : list(settings.getProperty("bursts", ""))) {
+            String[] parts = burst.split("[+*]");
+            generator.addBurst(seconds(parts[0]), seconds(parts[1]), Double.parseDouble(parts[2]));
+        }
+        String weights = settings.getProperty("weights", "uniform:1,5");
+        String[] parameters = weights.substring(weights.indexOf(':') + 1).split(",");
+        if (weights.startsWith("lognormal:")) {
+            generator.useLogNormalWeights(Double.parseDouble(parameters[0]), Double.parseDouble(parameters[1]),
+                                          Double.parseDouble(parameters[2]));
+        } else if (weights.startsWith("uniform:")) {
+            generator.useUniformWeights(Double.parseDouble(parameters[0]), Double.parseDouble(parameters[1]));
+        } else {
+            throw new IllegalArgumentException("Unknown weight distribution " + weights);
+        }
+        for (String hotspot : list(settings.getProperty("hotspots", ""))) {
+            String[] parts = hotspot.split(":");
+            generator.addHotspot(parts[0], Double.parseDouble(parts[1]), Integer.parseInt(parts[2]));
+        }
+        Map<PackagePriority, Double> mix = new EnumMap<>(PackagePriority.class);
+        for (String share : list(settings.getProperty("priorities", "STANDARD:1"))) {
+            String[] parts = share.split(":");
+            mix.put(PackagePriority.valueOf(parts[0]), Double.parseDouble(parts[1]));
+        }
+        generator.setPriorityMix(mix);
+        return generator;
+    }
+
+    // "20x5,10x10@N17": twenty 5 kg drones at the base and ten 10 kg drones at N17
+    private static List<Drone> fleet(String spec, String base) {
+        List<Drone> fleet = new ArrayList<>();
+        for (String group : list(spec)) {
+            String location = base;
+            int at = group.indexOf('@');
+            if (at >= 0) {
+                location = group.substring(at + 1);
+                group = group.substring(0, at);
+            }
+            String[] parts = group.split("x");
+            int count = Integer.parseInt(parts[0]);
+            for (int i = 0; i < count; i++) {
+                fleet.add(new Drone("DR-" + (fleet.size() + 1), Double.parseDouble(parts[1]), location));
+            }
+        }
+        return fleet;
+    }
+
+    private static void configure(DeliverySystem system, Properties settings) {
+        String dispatch = settings.getProperty("dispatch", "greedy");
+        if (dispatch.startsWith("batch:")) {
+            String[] parts = dispatch.substring(6).split(",");
+            system.useBatchDispatch(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+        } else if (!dispatch.equals("greedy")) {
+            throw new IllegalArgumentException("Unknown dispatch mode " + dispatch);
+        }
+        String consolidation = settings.getProperty("consolidation");
+        if (consolidation != null) {
+            String[] parts = consolidation.split(",");
+            system.useConsolidation(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        }
+        String repositioning = settings.getProperty("repositioning", "stay");
+        if (repositioning.equals("return")) {
+            system.useReturnToBase();
+        } else if (repositioning.startsWith("predictive:")) {
+            String[] parts = repositioning.substring(11).split(",");
+            system.usePredictiveRepositioning(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        } else if (!repositioning.equals("stay")) {
+            throw new IllegalArgumentException("Unknown repositioning policy " + repositioning);
+        }
+        String limit = settings.getProperty("orderLimit");
+        if (limit != null) {
+            system.useOrderLimit(Integer.parseInt(limit));
+        }
+    }
+
+    private static void report(List<OrderLog.Entry> orders, List<Drone> fleet, DeliveryMetrics metrics, Recorder recorder) {
+        long first = orders.isEmpty() ? 0 : orders.get(0).getTime();
+        long span = Math.max(1, recorder.lastDelivery - first);
+        System.out.printf("orders      %,d placed, %,d delivered, %,d rejected, %,d requeued%n",
+                          orders.size(), metrics.getDelivered(), metrics.getRejected(), metrics.getRequeued());
+        System.out.printf("makespan    %.1f min from first order to last delivery%n", span / 60_000.0);
+        System.out.printf("throughput  %.1f deliveries/h, %,d flights, %,d relocations (%,d units)%n",
+                          metrics.getDelivered() * 3_600_000.0 / span, metrics.getFlights(),
+                          metrics.getRelocations(), metrics.getRelocationDistance());
+        System.out.printf("%-30s %10s %10s %10s %10s %10s%n", "latency (s)", "mean", "p50", "p90", "p99", "max");
+        stage("time_to_assign", metrics.getTimeToAssign());
+        stage("time_in_flight", metrics.getTimeInFlight());
+        stage("time_to_deliver", metrics.getTimeToDeliver());
+
+        double total = 0;
+        double least = 1;
+        double most = 0;
+        for (Drone drone : fleet) {
+            double share = (double) recorder.busy.getOrDefault(drone.getId(), 0L) / span;
+            total += share;
+            least = Math.min(least, share);
+            most = Math.max(most, share);
+        }
+        System.out.printf("utilization %.1f%% of drone time carrying packages (per drone %.1f%% - %.1f%%)%n",
+                          100 * total / fleet.size(), 100 * least, 100 * most);
+        System.out.printf("fingerprint %08x%n", recorder.fingerprint.getValue());
+    }
+
+    // Percentiles are bucket upper bounds, as in the exported metrics
+    private static void stage(String name, LatencyHistogram histogram) {
+        System.out.printf("%-30s %10.1f", name, histogram.getMean() / 1000);
+        for (double percentile : PERCENTILES) {
+            System.out.printf(" %10.1f", histogram.valueAtPercentile(percentile) / 1000.0);
+        }
+        System.out.printf(" %10.1f%n", histogram.getMax() / 1000.0);
+    }
+
+    private static List<String> list(String value) {
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.trim().isEmpty()) {
+                items.add(item.trim());
+            }
+        }
+        return items;
+    }
+
+    private static long seconds(String value) {
+        return (long) (Double.parseDouble(value) * 1000);
+    }
+
+    // Time each drone spends with packages on board, and a checksum of who delivered what
+    // when. Runs on the clock thread, which an ACCELERATED clock never shares.
+    private static class Recorder implements DeliveryListener {
+        private final SimulationClock clock;
+        private final Map<String, Integer> onBoard = new HashMap<>();
+        private final Map<String, Long> since = new HashMap<>();
+        private final Map<String, Long> busy = new HashMap<>();
+        private final CRC32 fingerprint = new CRC32();
+        private long lastDelivery;
+
+        Recorder(SimulationClock clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        public void packageAssigned(Package pkg, Drone drone, int distance) {
+            if (onBoard.merge(drone.getId(), 1, Integer::sum) == 1) {
+                since.put(drone.getId(), clock.now());
+            }
+        }
+
+        @Override
+        public void packageDelivered(Package pkg, Drone drone) {
+            long now = clock.now();
+            if (onBoard.merge(drone.getId(), -1, Integer::sum) == 0) {
+                busy.merge(drone.getId(), now - since.get(drone.getId()), Long::sum);
+            }
+            lastDelivery = now;
+            byte[] record = (pkg.getId() + "|" + drone.getId() + "|" + now + "\n").getBytes();
+            fingerprint.update(record, 0, record.length);
+        }
+    }
+}
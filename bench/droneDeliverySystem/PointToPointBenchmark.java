@@ -0,0 +1,67 @@
+package droneDeliverySystem;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Uncached pair queries under each point-to-point routing mode, on grids with coordinates.
+// Before measuring, every mode is checked against plain Dijkstra on the pairs it will answer.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PointToPointBenchmark {
+    private static final long SEED = 42;
+    private static final int PAIRS = 256;
+
+    @Param({"DIJKSTRA", "A_STAR", "LANDMARKS", "CONTRACTION_HIERARCHY"})
+    public String routing;
+
+    @Param({"1000", "10000", "100000"})
+    public int nodes;
+
+    private RouteTable routeTable;
+    private String[] names;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        random = new Random(SEED);
+        names = new String[2 * PAIRS];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = SyntheticGraphs.name(random.nextInt(nodes));
+        }
+        RouteTable dijkstra = new RouteTable(SyntheticGraphs.gridWithCoordinates(nodes, SEED));
+        dijkstra.setRouting(RouteTable.Routing.DIJKSTRA);
+        routeTable = preprocess(RouteTable.Routing.valueOf(routing), nodes);
+        for (int i = 0; i < PAIRS; i++) {
+            if (routeTable.distance(names[2 * i], names[2 * i + 1]) != dijkstra.distance(names[2 * i], names[2 * i + 1])) {
+                throw new IllegalStateException(routing + " disagrees with Dijkstra from " + names[2 * i] + " to " + names[2 * i + 1]);
+            }
+        }
+    }
+
+    @Benchmark
+    public int query() {
+        int pair = random.nextInt(PAIRS);
+        return routeTable.distance(names[2 * pair], names[2 * pair + 1]);
+    }
+
+    // Landmark distances or the contraction hierarchy, built once per table
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public RouteTable preprocessing() {
+        return preprocess(RouteTable.Routing.valueOf(routing), nodes);
+    }
+
+    private static RouteTable preprocess(RouteTable.Routing routing, int nodes) {
+        RouteTable table = new RouteTable(SyntheticGraphs.gridWithCoordinates(nodes, SEED));
+        table.setRouting(routing);
+        return table;
+    }
+}
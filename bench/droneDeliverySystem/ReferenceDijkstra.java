@@ -0,0 +1,45 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+// The original per-call Dijkstra over the name-keyed maps, kept as the routing baseline
+class ReferenceDijkstra {
+    private final Map<String, Map<String, Integer>> locationGraph;
+
+    public ReferenceDijkstra(Map<String, Map<String, Integer>> locationGraph) {
+        this.locationGraph = locationGraph;
+    }
+
+    public int calculateShortestDistance(String start, String end) {
+        Map<String, Integer> distances = new HashMap<>();
+        PriorityQueue<String> queue = new PriorityQueue<>(Comparator.comparingInt(distances::get));
+        Set<String> visited = new HashSet<>();
+
+        for (String location : locationGraph.keySet()) {
+            distances.put(location, Integer.MAX_VALUE);
+        }
+        distances.put(start, 0);
+        queue.add(start);
+
+        while (!queue.isEmpty()) {
+            String current = queue.poll();
+            if (current.equals(end)) {
+                return distances.get(current);
+            }
+            if (visited.contains(current)) {
+                continue;
+            }
+            visited.add(current);
+
+            for (Map.Entry<String, Integer> neighbor : locationGraph.getOrDefault(current, Collections.emptyMap()).entrySet()) {
+                String next = neighbor.getKey();
+                int newDist = distances.get(current) + neighbor.getValue();
+                if (newDist < distances.get(next)) {
+                    distances.put(next, newDist);
+                    queue.add(next);
+                }
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+}
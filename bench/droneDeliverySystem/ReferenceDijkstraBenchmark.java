@@ -0,0 +1,34 @@
+package droneDeliverySystem;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// The original per-call Dijkstra over name-keyed maps, the baseline for RoutingBenchmark.
+// Stops at 10k nodes; at 100k a single query takes too long to be worth measuring.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReferenceDijkstraBenchmark {
+    private static final long SEED = 42;
+
+    @Param({"4", "100", "1000", "10000"})
+    public int nodes;
+
+    private ReferenceDijkstra reference;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        reference = new ReferenceDijkstra(SyntheticGraphs.grid(nodes, SEED));
+        random = new Random(SEED);
+    }
+
+    @Benchmark
+    public int referenceDijkstra() {
+        return reference.calculateShortestDistance(SyntheticGraphs.name(random.nextInt(nodes)), SyntheticGraphs.name(random.nextInt(nodes)));
+    }
+}
@@ -0,0 +1,62 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Not a throughput benchmark: the same seeded order stream is replayed under each
+// repositioning policy and the mean distance from assigned drone to drop-off is compared.
+// Orders arrive as a Poisson stream, most of them around two of six hotspots; which two
+// changes eight times over the run.
+public class RepositioningComparison {
+    private static final long SEED = 42;
+    private static final int NODES = 400;
+    private static final int SIDE = 20;
+    private static final int ORDERS = 4_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        LocationGraph graph = LocationGraph.fromMap(SyntheticGraphs.grid(NODES, SEED));
+        double baseline = 0;
+        for (DeliverySystem.Repositioning policy : DeliverySystem.Repositioning.values()) {
+            List<Drone> fleet = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                fleet.add(new Drone("DR-" + i, 5, SyntheticGraphs.name(0)));
+            }
+            SimulationClock clock = new SimulationClock(SimulationClock.Mode.ACCELERATED);
+            DeliverySystem system = new DeliverySystem(fleet, clock, graph);
+            if (policy == DeliverySystem.Repositioning.RETURN_TO_BASE) {
+                system.useReturnToBase();
+            } else if (policy == DeliverySystem.Repositioning.PREDICTIVE) {
+                system.usePredictiveRepositioning(600_000, 60_000);
+            }
+
+            Random random = new Random(SEED);
+            int[][] hotspots = {{4, 4}, {15, 6}, {8, 15}, {16, 16}, {3, 12}, {12, 2}};
+            long time = 0;
+            for (int i = 0; i < ORDERS; i++) {
+                time += (long) (-Math.log(1 - random.nextDouble()) * 10_000);
+                int node;
+                if (random.nextInt(10) < 8) {
+                    int phase = i * 8 / ORDERS;
+                    int[] centre = hotspots[(phase + 3 * random.nextInt(2)) % hotspots.length];
+                    int x = Math.max(0, Math.min(SIDE - 1, centre[0] + random.nextInt(5) - 2));
+                    int y = Math.max(0, Math.min(SIDE - 1, centre[1] + random.nextInt(5) - 2));
+                    node = y * SIDE + x;
+                } else {
+                    node = random.nextInt(NODES);
+                }
+                Package pkg = new Package("PKG-" + i, 1 + random.nextInt(4), SyntheticGraphs.name(node));
+                clock.scheduleAt(time, () -> system.placeOrder(pkg));
+            }
+            clock.awaitIdle(10, TimeUnit.MINUTES);
+            DeliveryMetrics metrics = system.getMetrics();
+            double mean = metrics.getAssignmentDistance().getMean();
+            if (policy == DeliverySystem.Repositioning.STAY) {
+                baseline = mean;
+            }
+            System.out.printf("%-14s mean assignment distance %6.2f (%+.1f%% vs STAY), time to deliver %6.1f s, relocated %d units%n",
+                              policy, mean, 100 * (mean - baseline) / baseline,
+                              metrics.getTimeToDeliver().getMean() / 1000, metrics.getRelocationDistance());
+            system.shutdown();
+        }
+    }
+}
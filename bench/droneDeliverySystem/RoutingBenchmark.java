@@ -0,0 +1,47 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Distance lookups on synthetic grids of 4 to 100k nodes: a row computed from scratch after
+// RouteTable.clear(), and lookups from a few sources whose rows stay cached. The original
+// per-call Dijkstra is the baseline in ReferenceDijkstraBenchmark.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RoutingBenchmark {
+    private static final long SEED = 42;
+
+    @Param({"4", "100", "1000", "10000", "100000"})
+    public int nodes;
+
+    private RouteTable routeTable;
+    private String[] sources;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        routeTable = new RouteTable(SyntheticGraphs.grid(nodes, SEED));
+        random = new Random(SEED);
+        sources = new String[16];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = SyntheticGraphs.name(random.nextInt(nodes));
+            routeTable.distance(sources[i], sources[0]);
+        }
+    }
+
+    @Benchmark
+    public int routeTableColdRow() {
+        routeTable.clear();
+        return routeTable.distance(SyntheticGraphs.name(random.nextInt(nodes)), SyntheticGraphs.name(random.nextInt(nodes)));
+    }
+
+    @Benchmark
+    public int routeTableCached() {
+        return routeTable.distance(sources[random.nextInt(sources.length)], SyntheticGraphs.name(random.nextInt(nodes)));
+    }
+}
@@ -0,0 +1,85 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.*;
+
+// Orders spread over a 2,500-location map, dispatched by one region or split across several.
+// On the ACCELERATED clock every region runs on one thread, so that measures the per-order
+// cost of smaller queues and indexes plus the handoff traffic. On REAL_TIME, run fast enough
+// that every event is already due, each region dispatches and flies on threads of its own,
+// which measures parallel throughput.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShardedDispatchBenchmark {
+    private static final long SEED = 42;
+    private static final int NODES = 2_500;
+    private static final int ORDERS = 10_000;
+
+    // Virtual milliseconds per wall-clock millisecond for REAL_TIME
+    private static final double SPEED = 1_000_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int regions;
+
+    @Param({"ACCELERATED", "REAL_TIME"})
+    public String clock;
+
+    private RegionPartition partition;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        LocationGraph graph = LocationGraph.fromMap(SyntheticGraphs.grid(NODES, SEED));
+        partition = RegionPartition.of(graph, regions);
+        random = new Random(SEED);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public long deliverAll() throws InterruptedException {
+        List<Drone> fleet = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            fleet.add(new Drone("DR-" + i, 3 + i % 5, SyntheticGraphs.name(random.nextInt(NODES))));
+        }
+        SimulationClock.Mode mode = SimulationClock.Mode.valueOf(clock);
+        if (mode == SimulationClock.Mode.ACCELERATED) {
+            SimulationClock accelerated = new SimulationClock(mode);
+            ShardedDeliverySystem system = new ShardedDeliverySystem(fleet, accelerated, partition, new LoopbackTransport(accelerated, 0));
+            for (int i = 0; i < ORDERS; i++) {
+                Package pkg = new Package("PKG-" + i, 1 + random.nextInt(6), SyntheticGraphs.name(random.nextInt(NODES)));
+                accelerated.scheduleAt(i * 10L, () -> system.placeOrder(pkg));
+            }
+            accelerated.awaitIdle(10, TimeUnit.MINUTES);
+            system.shutdown();
+            return accelerated.now();
+        }
+
+        SimulationClock realTime = new SimulationClock(mode, SPEED);
+        ShardedDeliverySystem system = new ShardedDeliverySystem(fleet, realTime, partition, new LoopbackTransport(realTime, 0));
+        LongAdder delivered = new LongAdder();
+        system.addListener(new DeliveryListener() {
+            @Override
+            public void packageDelivered(Package pkg, Drone drone) {
+                delivered.increment();
+            }
+        });
+        for (int i = 0; i < ORDERS; i++) {
+            system.placeOrder(new Package("PKG-" + i, 1 + random.nextInt(6), SyntheticGraphs.name(random.nextInt(NODES))));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(10);
+        while (delivered.sum() < ORDERS && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        system.shutdown();
+        if (delivered.sum() < ORDERS) {
+            throw new IllegalStateException("Delivered only " + delivered.sum() + " of " + ORDERS + " orders");
+        }
+        return delivered.sum();
+    }
+}
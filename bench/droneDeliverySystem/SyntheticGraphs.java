@@ -0,0 +1,62 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+// Seeded road-like graphs: a square grid with random edge weights plus a few long shortcuts.
+// Node i sits at (i % side, i / side); no edge is shorter than the straight line between its
+// ends, so the coordinates are a valid A* estimate.
+class SyntheticGraphs {
+    private SyntheticGraphs() {}
+
+    public static Map<String, Map<String, Integer>> grid(int nodes, long seed) {
+        Random random = new Random(seed);
+        int side = (int) Math.ceil(Math.sqrt(nodes));
+        Map<String, Map<String, Integer>> graph = new HashMap<>();
+        for (int i = 0; i < nodes; i++) {
+            graph.put(name(i), new HashMap<>());
+        }
+        for (int i = 0; i < nodes; i++) {
+            int right = i + 1;
+            int down = i + side;
+            if (right % side != 0 && right < nodes) {
+                connect(graph, i, right, 1 + random.nextInt(9));
+            }
+            if (down < nodes) {
+                connect(graph, i, down, 1 + random.nextInt(9));
+            }
+        }
+        for (int i = 0; i < nodes / 50; i++) {
+            int a = random.nextInt(nodes);
+            int b = random.nextInt(nodes);
+            double length = Math.hypot(a % side - b % side, a / side - b / side);
+            connect(graph, a, b, (int) Math.ceil(length) + 10 + random.nextInt(40));
+        }
+        return graph;
+    }
+
+    // The same graph as grid(nodes, seed), with each node's grid position as its coordinates
+    public static LocationGraph gridWithCoordinates(int nodes, long seed) {
+        LocationGraph graph = LocationGraph.fromMap(grid(nodes, seed));
+        int side = (int) Math.ceil(Math.sqrt(nodes));
+        float[] x = new float[nodes];
+        float[] y = new float[nodes];
+        for (int id = 0; id < nodes; id++) {
+            int node = Integer.parseInt(graph.nameOf(id).substring(1));
+            x[id] = node % side;
+            y[id] = node / side;
+        }
+        return graph.withCoordinates(x, y);
+    }
+
+    public static String name(int node) {
+        return "N" + node;
+    }
+
+    private static void connect(Map<String, Map<String, Integer>> graph, int a, int b, int weight) {
+        if (a == b) {
+            return;
+        }
+        graph.get(name(a)).put(name(b), weight);
+        graph.get(name(b)).put(name(a), weight);
+    }
+}
@@ -0,0 +1,208 @@
+package droneDeliverySystem;
+
+// A* over the route table's compressed sparse rows. Without an estimate it is Dijkstra
+// that stops at the target, the reference the goal-directed forms are checked against.
+//
+// The Euclidean form scales straight-line distance by the smallest distance-per-unit of
+// any edge, so it never overestimates a road distance. A location without coordinates
+// could be a shortcut no edge ratio accounts for, so then the scale is 0 and the search is
+// plain Dijkstra. The landmark (ALT) form bounds the
+// remaining distance with the triangle inequality over distances to and from a few
+// far-apart landmarks, computed up front. Both bounds survive roads getting longer or
+// closing; a shorter road lowers the Euclidean scale and invalidates the landmarks.
+class AStarRouter implements PointToPointRouter {
+    private static final int UNREACHABLE = RouteTable.UNREACHABLE;
+
+    private final int[] edgeStart;
+    private final int[] edgeTarget;
+    private final int[] edgeWeight;
+    private final SearchState.Pool searches;
+
+    // Plain early-exit Dijkstra
+    AStarRouter(RouteTable table) {
+        edgeStart = table.edgeStart();
+        edgeTarget = table.edgeTarget();
+        edgeWeight = table.edgeWeight();
+        int nodes = table.size();
+        searches = new SearchState.Pool(nodes, 1);
+    }
+
+    static AStarRouter euclidean(RouteTable table) {
+        return new Euclidean(table);
+    }
+
+    // Landmark distances over source's edges, which must match the table's when installed
+    static AStarRouter landmarks(RouteTable table, RouteTable source, int count) {
+        return new Landmarks(table, source, count);
+    }
+
+    // Lower bound on the distance from node to target
+    int estimate(int node, int target) {
+        return 0;
+    }
+
+    @Override
+    public boolean edgeChanged(int u, int v, int oldWeight, int newWeight) {
+        return true;
+    }
+
+    @Override
+    public int distance(int source, int target) {
+        if (source == target) {
+            return 0;
+        }
+        SearchState search = searches.borrow();
+        int[] distance = search.distance;
+        try {
+            search.relax(source, 0, estimate(source, target));
+            while (!search.heap.isEmpty()) {
+                int current = search.heap.pop();
+                if (current == target) {
+                    return distance[target];
+                }
+                int base = distance[current];
+                for (int e = edgeStart[current]; e < edgeStart[current + 1]; e++) {
+                    int weight = edgeWeight[e];
+                    if (weight == UNREACHABLE) {
+                        continue;
+                    }
+                    int next = edgeTarget[e];
+                    long newDist = (long) base + weight;
+                    // A node may be reopened: estimates are admissible but not always consistent
+                    if (newDist < distance[next]) {
+                        search.relax(next, (int) newDist, (int) Math.min(UNREACHABLE, newDist + estimate(next, target)));
+                    }
+                }
+            }
+            return UNREACHABLE;
+        } finally {
+            searches.giveBack(search);
+        }
+    }
+
+    private static final class Euclidean extends AStarRouter {
+        // Kept just under the true ratio so float rounding cannot make an estimate too long
+        private static final double MARGIN = 1 - 1e-6;
+
+        private final float[] x;
+        private final float[] y;
+        // Written under the table's write lock, read under its read lock
+        private double scale;
+
+        Euclidean(RouteTable table) {
+            super(table);
+            LocationGraph graph = table.getGraph();
+            x = graph.coordinateX();
+            y = graph.coordinateY();
+            int[] edgeStart = table.edgeStart();
+            int[] edgeTarget = table.edgeTarget();
+            int[] edgeWeight = table.edgeWeight();
+            boolean everyCoordinate = true;
+            for (int u = 0; u < table.size(); u++) {
+                everyCoordinate &= !Float.isNaN(x[u]) && !Float.isNaN(y[u]);
+            }
+            double ratio = Double.POSITIVE_INFINITY;
+            for (int u = 0; everyCoordinate && u < table.size(); u++) {
+                for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+                    double length = length(u, edgeTarget[e]);
+                    if (edgeWeight[e] != UNREACHABLE && length > 0) {
+                        ratio = Math.min(ratio, edgeWeight[e] / length);
+                    }
+                }
+            }
+            scale = Double.isInfinite(ratio) ? 0 : ratio * MARGIN;
+        }
+
+        @Override
+        int estimate(int node, int target) {
+            double length = length(node, target);
+            return length > 0 ? (int) (length * scale) : 0;
+        }
+
+        @Override
+        public boolean edgeChanged(int u, int v, int oldWeight, int newWeight) {
+            double length = length(u, v);
+            if (length > 0 && newWeight < length * scale) {
+                scale = newWeight / length * MARGIN;
+            }
+            return true;
+        }
+
+        // NaN, and so never positive, when either end has no coordinates
+        private double length(int a, int b) {
+            double dx = x[a] - x[b];
+            double dy = y[a] - y[b];
+            return Math.sqrt(dx * dx + dy * dy);
+        }
+    }
+
+    private static final class Landmarks extends AStarRouter {
+        // fromLandmark[i][v] is the distance from landmark i to v, toLandmark[i][v] from v to it
+        private final int[][] fromLandmark;
+        private final int[][] toLandmark;
+
+        // Farthest-point selection: each landmark is the node farthest from those already chosen
+        Landmarks(RouteTable table, RouteTable source, int count) {
+            super(table);
+            int nodes = source.size();
+            count = Math.min(count, nodes);
+            fromLandmark = new int[count][];
+            toLandmark = new int[count][];
+            int[] nearest = tree(0, source.edgeStart(), source.edgeTarget(), source.edgeWeight(), nodes);
+            for (int i = 0; i < count; i++) {
+                int landmark = 0;
+                for (int v = 1; v < nodes; v++) {
+                    if (nearest[v] != UNREACHABLE && (nearest[landmark] == UNREACHABLE || nearest[v] > nearest[landmark])) {
+                        landmark = v;
+                    }
+                }
+                fromLandmark[i] = tree(landmark, source.edgeStart(), source.edgeTarget(), source.edgeWeight(), nodes);
+                toLandmark[i] = tree(landmark, source.reverseStart(), source.reverseSource(), source.reverseWeight(), nodes);
+                for (int v = 0; v < nodes; v++) {
+                    if (i == 0 || fromLandmark[i][v] < nearest[v]) {
+                        nearest[v] = fromLandmark[i][v];
+                    }
+                }
+            }
+        }
+
+        @Override
+        int estimate(int node, int target) {
+            int best = 0;
+            for (int i = 0; i < fromLandmark.length; i++) {
+                int[] from = fromLandmark[i];
+                int[] to = toLandmark[i];
+                if (from[target] != UNREACHABLE && from[node] != UNREACHABLE && from[target] - from[node] > best) {
+                    best = from[target] - from[node];
+                }
+                if (to[node] != UNREACHABLE && to[target] != UNREACHABLE && to[node] - to[target] > best) {
+                    best = to[node] - to[target];
+                }
+            }
+            return best;
+        }
+
+        @Override
+        public boolean edgeChanged(int u, int v, int oldWeight, int newWeight) {
+            return newWeight >= oldWeight;
+        }
+
+        private static int[] tree(int root, int[] start, int[] adjacent, int[] weights, int nodes) {
+            SearchState search = new SearchState(nodes);
+            int[] distance = search.distance;
+            search.relax(root, 0, 0);
+            while (!search.heap.isEmpty()) {
+                int current = search.heap.pop();
+                for (int e = start[current]; e < start[current + 1]; e++) {
+                    int weight = weights[e];
+                    int next = adjacent[e];
+                    long newDist = (long) distance[current] + weight;
+                    if (weight != UNREACHABLE && newDist < distance[next]) {
+                        search.relax(next, (int) newDist, (int) newDist);
+                    }
+                }
+            }
+            return distance;
+        }
+    }
+}
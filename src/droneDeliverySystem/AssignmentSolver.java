@@ -0,0 +1,95 @@
+package droneDeliverySystem;
+
+import java.util.Arrays;
+
+// Min-cost bipartite matching (Hungarian algorithm with potentials, O(n^2 m)).
+// Rows are packages and columns are drones. With no more rows than columns every row is
+// matched to a distinct column; with more, every column is matched and the rows left over
+// get none. Callers that want every package costed pad the matrix with "unassigned" columns.
+class AssignmentSolver {
+    private AssignmentSolver() {}
+
+    // Returns the column matched to each row, or -1 for a row left without one
+    public static int[] solve(long[][] cost) {
+        int n = cost.length;
+        int m = n == 0 ? 0 : cost[0].length;
+        if (n > m) {
+            return solveTall(cost, n, m);
+        }
+
+        // 1-based arrays; column 0 is the virtual start column
+        long[] rowPotential = new long[n + 1];
+        long[] columnPotential = new long[m + 1];
+        int[] columnMatch = new int[m + 1];
+        int[] way = new int[m + 1];
+        long[] minSlack = new long[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int row = 1; row <= n; row++) {
+            columnMatch[0] = row;
+            int column = 0;
+            Arrays.fill(minSlack, Long.MAX_VALUE);
+            Arrays.fill(used, false);
+            do {
+                used[column] = true;
+                int currentRow = columnMatch[column];
+                long delta = Long.MAX_VALUE;
+                int nextColumn = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    long slack = cost[currentRow - 1][j - 1] - rowPotential[currentRow] - columnPotential[j];
+                    if (slack < minSlack[j]) {
+                        minSlack[j] = slack;
+                        way[j] = column;
+                    }
+                    if (minSlack[j] < delta) {
+                        delta = minSlack[j];
+                        nextColumn = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        rowPotential[columnMatch[j]] += delta;
+                        columnPotential[j] -= delta;
+                    } else {
+                        minSlack[j] -= delta;
+                    }
+                }
+                column = nextColumn;
+            } while (columnMatch[column] != 0);
+
+            do {
+                int previous = way[column];
+                columnMatch[column] = columnMatch[previous];
+                column = previous;
+            } while (column != 0);
+        }
+
+        int[] rowMatch = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (columnMatch[j] != 0) {
+                rowMatch[columnMatch[j] - 1] = j - 1;
+            }
+        }
+        return rowMatch;
+    }
+
+    // Matches each column to a row over the transpose
+    private static int[] solveTall(long[][] cost, int n, int m) {
+        long[][] transposed = new long[m][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                transposed[j][i] = cost[i][j];
+            }
+        }
+        int[] columnMatch = solve(transposed);
+        int[] rowMatch = new int[n];
+        Arrays.fill(rowMatch, -1);
+        for (int j = 0; j < m; j++) {
+            rowMatch[columnMatch[j]] = j;
+        }
+        return rowMatch;
+    }
+}
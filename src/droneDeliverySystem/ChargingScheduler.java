@@ -0,0 +1,220 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+// Hands out charger slots at each station. Drones that stopped mid-flight with packages on
+// board are served first, shortest charge first, since every second they wait is a
+// second the whole load is late; idle drones topping up fill whatever slots are left and
+// give theirs up when a delivering drone arrives to a full station. An idle drone stays
+// dispatchable while it waits or charges, and leaves with whatever charge it has so far.
+//
+// Sessions end on clock events. Listener callbacks and completion actions run after the
+// scheduler's lock is released.
+class ChargingScheduler {
+    private final LocationGraph graph;
+    private final SimulationClock clock;
+    private final EnergyModel model;
+    private final DeliveryListener listeners;
+    private final Map<Integer, Station> stations = new HashMap<>();
+    private final Map<Drone, Session> sessions = new HashMap<>();
+    private long sequence;
+
+    public ChargingScheduler(LocationGraph graph, SimulationClock clock, EnergyModel model, DeliveryListener listeners) {
+        this.graph = graph;
+        this.clock = clock;
+        this.model = model;
+        this.listeners = listeners;
+        for (int id : graph.chargingStations()) {
+            stations.put(id, new Station(graph.nameOf(id), graph.chargingSlots(id)));
+        }
+    }
+
+    // Queues the drone for a slot at the station it is standing on; onCharged runs once it
+    // reaches target, and not at all if it leaves first
+    public void request(Drone drone, String location, double target, boolean delivering, Runnable onCharged) {
+        Station station = stations.get(graph.idOf(location));
+        if (station == null) {
+            throw new IllegalArgumentException(location + " is not a charging station");
+        }
+        List<Runnable> fired = new ArrayList<>();
+        synchronized (this) {
+            Session previous = sessions.remove(drone);
+            if (previous != null) {
+                stop(previous, fired);
+            }
+            Session session = new Session(drone, station, Math.min(target, drone.getBatteryCapacity()), delivering, onCharged);
+            sessions.put(drone, session);
+            if (station.charging.size() >= station.slots && delivering) {
+                preemptTopUp(station, fired);
+            }
+            if (station.charging.size() < station.slots) {
+                start(session, fired);
+            } else {
+                station.waiting.add(session);
+            }
+        }
+        fired.forEach(Runnable::run);
+    }
+
+    // Ends the drone's session, keeping the charge taken so far, and frees its slot
+    public void leave(Drone drone) {
+        List<Runnable> fired = new ArrayList<>();
+        synchronized (this) {
+            Session session = sessions.remove(drone);
+            if (session == null) {
+                return;
+            }
+            stop(session, fired);
+            admit(session.station, fired);
+        }
+        fired.forEach(Runnable::run);
+    }
+
+    // What the drone would leave with if it left now
+    public synchronized double chargeNow(Drone drone) {
+        Session session = sessions.get(drone);
+        return session == null || session.startedAt < 0 ? drone.getCharge() : chargedSoFar(session);
+    }
+
+    // Whether the drone is charging or queued for a slot
+    public synchronized boolean hasSession(Drone drone) {
+        return sessions.containsKey(drone);
+    }
+
+    // How long a delivering drone arriving now would wait for a slot. Idle top-ups do not
+    // count, since it would take their slot.
+    public synchronized long expectedWaitMillis(int stationId) {
+        Station station = stations.get(stationId);
+        if (station == null) {
+            return Long.MAX_VALUE;
+        }
+        long now = clock.now();
+        long soonest = Long.MAX_VALUE;
+        int busy = 0;
+        for (Session session : station.charging) {
+            if (session.delivering) {
+                busy++;
+                soonest = Math.min(soonest, session.completion.getTime() - now);
+            }
+        }
+        if (busy < station.slots) {
+            return 0;
+        }
+        long queued = 0;
+        for (Session session : station.waiting) {
+            if (session.delivering) {
+                queued += session.millis;
+            }
+        }
+        return Math.max(0, soonest) + queued / station.slots;
+    }
+
+    private void start(Session session, List<Runnable> fired) {
+        Station station = session.station;
+        long now = clock.now();
+        session.startedAt = now;
+        session.startCharge = session.drone.getCharge();
+        station.charging.add(session);
+        session.completion = clock.schedule(model.chargeMillis(session.target - session.startCharge), () -> finish(session));
+        long waited = now - session.requestedAt;
+        fired.add(() -> listeners.chargingStarted(session.drone, station.name, waited));
+    }
+
+    private void finish(Session session) {
+        List<Runnable> fired = new ArrayList<>();
+        synchronized (this) {
+            if (sessions.get(session.drone) != session) {
+                return;
+            }
+            sessions.remove(session.drone);
+            session.drone.setCharge(Math.max(session.target, session.startCharge));
+            session.station.charging.remove(session);
+            fired.add(() -> finished(session));
+            admit(session.station, fired);
+            if (session.onCharged != null) {
+                fired.add(session.onCharged);
+            }
+        }
+        fired.forEach(Runnable::run);
+    }
+
+    // Settles a session that ends early, whether it held a slot or was still queued
+    private void stop(Session session, List<Runnable> fired) {
+        Station station = session.station;
+        if (session.startedAt < 0) {
+            station.waiting.remove(session);
+            return;
+        }
+        session.drone.setCharge(chargedSoFar(session));
+        session.completion.cancel();
+        station.charging.remove(session);
+        fired.add(() -> finished(session));
+    }
+
+    // The fullest idle top-up goes back to the queue, keeping what it has charged
+    private void preemptTopUp(Station station, List<Runnable> fired) {
+        Session fullest = null;
+        for (Session session : station.charging) {
+            if (!session.delivering && (fullest == null || chargedSoFar(session) > chargedSoFar(fullest))) {
+                fullest = session;
+            }
+        }
+        if (fullest != null) {
+            stop(fullest, fired);
+            fullest.startedAt = -1;
+            fullest.millis = model.chargeMillis(fullest.target - fullest.drone.getCharge());
+            station.waiting.add(fullest);
+        }
+    }
+
+    private void admit(Station station, List<Runnable> fired) {
+        while (station.charging.size() < station.slots && !station.waiting.isEmpty()) {
+            start(station.waiting.poll(), fired);
+        }
+    }
+
+    private double chargedSoFar(Session session) {
+        double charged = model.energyCharged(clock.now() - session.startedAt);
+        return Math.max(session.startCharge, Math.min(session.target, session.startCharge + charged));
+    }
+
+    private void finished(Session session) {
+        listeners.chargingFinished(session.drone, session.station.name);
+    }
+
+    private static class Station {
+        final String name;
+        final int slots;
+        final List<Session> charging = new ArrayList<>();
+        final PriorityQueue<Session> waiting = new PriorityQueue<>(
+            Comparator.comparing((Session s) -> !s.delivering).thenComparingLong(s -> s.millis).thenComparingLong(s -> s.sequence));
+
+        Station(String name, int slots) {
+            this.name = name;
+            this.slots = slots;
+        }
+    }
+
+    private class Session {
+        final Drone drone;
+        final Station station;
+        final double target;
+        final boolean delivering;
+        final Runnable onCharged;
+        final long sequence = ++ChargingScheduler.this.sequence;
+        final long requestedAt = clock.now();
+        long millis;
+        long startedAt = -1;
+        double startCharge;
+        SimulationClock.Event completion;
+
+        Session(Drone drone, Station station, double target, boolean delivering, Runnable onCharged) {
+            this.drone = drone;
+            this.station = station;
+            this.target = target;
+            this.delivering = delivering;
+            this.onCharged = onCharged;
+            this.millis = model.chargeMillis(target - drone.getCharge());
+        }
+    }
+}
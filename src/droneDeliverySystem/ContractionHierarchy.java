@@ -0,0 +1,345 @@
+package droneDeliverySystem;
+
+import java.util.Arrays;
+
+// Contraction hierarchy over the route table's graph. Preprocessing removes nodes one at a
+// time, least important first, and adds a shortcut u->w for every u->v->w through the
+// removed node v unless a witness path avoiding v is no longer. Importance is the edge
+// difference plus the number of already-removed neighbours, re-evaluated when a node
+// reaches the front of the queue.
+//
+// A query is a bidirectional Dijkstra in which both searches only climb to nodes removed
+// later, so on road-like graphs it settles a few hundred nodes where Dijkstra settles most
+// of the graph. Graphs with many long random links contract into a dense core, which is
+// left uncontracted and searched in full. Shortcut weights bake in the current road
+// distances: any change means preprocessing again, which RouteTable does in the background.
+class ContractionHierarchy implements PointToPointRouter {
+    private static final int UNREACHABLE = RouteTable.UNREACHABLE;
+    // A witness search that settles this many nodes gives up and the shortcut is added,
+    // which costs query time but never correctness
+    private static final int WITNESS_SETTLE_LIMIT = 100;
+    // Contraction stops once the cheapest remaining node has more edges than this; the
+    // rest form a core that queries search with plain bidirectional Dijkstra
+    private static final int CORE_DEGREE = 100;
+
+    // Edges to later-contracted nodes by source, and edges from them by target
+    private final int[] upStart;
+    private final int[] upTarget;
+    private final int[] upWeight;
+    private final int[] downStart;
+    private final int[] downSource;
+    private final int[] downWeight;
+    private final int shortcuts;
+    private final SearchState.Pool searches;
+
+    ContractionHierarchy(RouteTable table) {
+        int nodes = table.size();
+        Contraction contraction = new Contraction(table);
+        contraction.run();
+        shortcuts = contraction.shortcuts;
+
+        upStart = new int[nodes + 1];
+        downStart = new int[nodes + 1];
+        for (int v = 0; v < nodes; v++) {
+            upStart[v + 1] = upStart[v] + contraction.upCount[v];
+            downStart[v + 1] = downStart[v] + contraction.downCount[v];
+        }
+        upTarget = new int[upStart[nodes]];
+        upWeight = new int[upStart[nodes]];
+        downSource = new int[downStart[nodes]];
+        downWeight = new int[downStart[nodes]];
+        for (int v = 0; v < nodes; v++) {
+            System.arraycopy(contraction.upNode[v], 0, upTarget, upStart[v], contraction.upCount[v]);
+            System.arraycopy(contraction.upWeight[v], 0, upWeight, upStart[v], contraction.upCount[v]);
+            System.arraycopy(contraction.downNode[v], 0, downSource, downStart[v], contraction.downCount[v]);
+            System.arraycopy(contraction.downWeight[v], 0, downWeight, downStart[v], contraction.downCount[v]);
+        }
+        searches = new SearchState.Pool(nodes, 2);
+    }
+
+    public int getShortcutCount() {
+        return shortcuts;
+    }
+
+    @Override
+    public boolean edgeChanged(int u, int v, int oldWeight, int newWeight) {
+        return false;
+    }
+
+    // Alternates the two searches; each stops once its smallest key cannot improve on
+    // the best meeting point found so far
+    @Override
+    public int distance(int source, int target) {
+        if (source == target) {
+            return 0;
+        }
+        SearchState forward = searches.borrow();
+        SearchState backward = searches.borrow();
+        try {
+            forward.relax(source, 0, 0);
+            backward.relax(target, 0, 0);
+            int best = UNREACHABLE;
+            boolean forwardTurn = true;
+            while (true) {
+                boolean forwardOpen = !forward.heap.isEmpty() && forward.heap.peekKey() < best;
+                boolean backwardOpen = !backward.heap.isEmpty() && backward.heap.peekKey() < best;
+                if (!forwardOpen && !backwardOpen) {
+                    return best;
+                }
+                if (forwardOpen && (forwardTurn || !backwardOpen)) {
+                    best = settle(forward, backward, upStart, upTarget, upWeight, downStart, downSource, downWeight, best);
+                } else {
+                    best = settle(backward, forward, downStart, downSource, downWeight, upStart, upTarget, upWeight, best);
+                }
+                forwardTurn = !forwardTurn;
+            }
+        } finally {
+            searches.giveBack(forward);
+            searches.giveBack(backward);
+        }
+    }
+
+    // Stall-on-demand: a node that some later-contracted neighbour reaches more cheaply
+    // than its own distance is not on a shortest up-path, so its edges are not relaxed.
+    // The edges that reveal this are the other direction's edges at the same node.
+    private static int settle(SearchState search, SearchState other, int[] start, int[] adjacent, int[] weights,
+                              int[] stallStart, int[] stallAdjacent, int[] stallWeights, int best) {
+        int node = search.heap.pop();
+        int base = search.distance[node];
+        int meet = other.distance[node];
+        if (meet != UNREACHABLE && (long) base + meet < best) {
+            best = base + meet;
+        }
+        for (int e = stallStart[node]; e < stallStart[node + 1]; e++) {
+            int higher = search.distance[stallAdjacent[e]];
+            if (higher != UNREACHABLE && (long) higher + stallWeights[e] < base) {
+                return best;
+            }
+        }
+        for (int e = start[node]; e < start[node + 1]; e++) {
+            int next = adjacent[e];
+            long newDist = (long) base + weights[e];
+            if (newDist < search.distance[next]) {
+                search.relax(next, (int) newDist, (int) newDist);
+            }
+        }
+        return best;
+    }
+
+    // Preprocessing state: a mutable adjacency list of the nodes not yet contracted, in
+    // both directions. A contracted node is unlinked from its neighbours' lists.
+    private static final class Contraction {
+        private final int nodes;
+        private final int[][] outNode;
+        private final int[][] outWeight;
+        private final int[] outCount;
+        private final int[][] inNode;
+        private final int[][] inWeight;
+        private final int[] inCount;
+        private final int[] contractedNeighbours;
+        private final SearchState witness;
+
+        // Each node's edges at the moment it was contracted: all lead to later nodes
+        final int[][] upNode;
+        final int[][] upWeight;
+        final int[] upCount;
+        final int[][] downNode;
+        final int[][] downWeight;
+        final int[] downCount;
+        int shortcuts;
+
+        Contraction(RouteTable table) {
+            nodes = table.size();
+            outNode = new int[nodes][];
+            outWeight = new int[nodes][];
+            outCount = new int[nodes];
+            inNode = new int[nodes][];
+            inWeight = new int[nodes][];
+            inCount = new int[nodes];
+            contractedNeighbours = new int[nodes];
+            witness = new SearchState(nodes);
+            upNode = new int[nodes][];
+            upWeight = new int[nodes][];
+            upCount = new int[nodes];
+            downNode = new int[nodes][];
+            downWeight = new int[nodes][];
+            downCount = new int[nodes];
+
+            int[] edgeStart = table.edgeStart();
+            int[] edgeTarget = table.edgeTarget();
+            int[] edgeWeight = table.edgeWeight();
+            int[] reverseStart = table.reverseStart();
+            for (int v = 0; v < nodes; v++) {
+                int out = edgeStart[v + 1] - edgeStart[v];
+                int in = reverseStart[v + 1] - reverseStart[v];
+                outNode[v] = new int[Math.max(out, 2)];
+                outWeight[v] = new int[Math.max(out, 2)];
+                inNode[v] = new int[Math.max(in, 2)];
+                inWeight[v] = new int[Math.max(in, 2)];
+            }
+            for (int u = 0; u < nodes; u++) {
+                for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+                    if (edgeWeight[e] != UNREACHABLE && edgeTarget[e] != u) {
+                        link(u, edgeTarget[e], edgeWeight[e]);
+                    }
+                }
+            }
+        }
+
+        void run() {
+            IntHeap queue = new IntHeap(nodes);
+            for (int v = 0; v < nodes; v++) {
+                queue.push(v, priority(v));
+            }
+            while (!queue.isEmpty()) {
+                int v = queue.pop();
+                if (outCount[v] + inCount[v] > CORE_DEGREE) {
+                    leaveCore(v, queue);
+                    break;
+                }
+                int priority = priority(v);
+                if (!queue.isEmpty() && priority > queue.peekKey()) {
+                    queue.push(v, priority);
+                    continue;
+                }
+                contract(v);
+            }
+        }
+
+        // The remaining nodes keep all their edges among each other as both up and down edges
+        private void leaveCore(int v, IntHeap queue) {
+            while (true) {
+                upNode[v] = Arrays.copyOf(outNode[v], outCount[v]);
+                upWeight[v] = Arrays.copyOf(outWeight[v], outCount[v]);
+                upCount[v] = outCount[v];
+                downNode[v] = Arrays.copyOf(inNode[v], inCount[v]);
+                downWeight[v] = Arrays.copyOf(inWeight[v], inCount[v]);
+                downCount[v] = inCount[v];
+                if (queue.isEmpty()) {
+                    return;
+                }
+                v = queue.pop();
+            }
+        }
+
+        private int priority(int v) {
+            return shortcutsFor(v, false) - outCount[v] - inCount[v] + contractedNeighbours[v];
+        }
+
+        private void contract(int v) {
+            shortcuts += shortcutsFor(v, true);
+            upNode[v] = Arrays.copyOf(outNode[v], outCount[v]);
+            upWeight[v] = Arrays.copyOf(outWeight[v], outCount[v]);
+            upCount[v] = outCount[v];
+            downNode[v] = Arrays.copyOf(inNode[v], inCount[v]);
+            downWeight[v] = Arrays.copyOf(inWeight[v], inCount[v]);
+            downCount[v] = inCount[v];
+            for (int i = 0; i < upCount[v]; i++) {
+                int w = upNode[v][i];
+                unlink(inNode[w], inWeight[w], inCount, w, v);
+                contractedNeighbours[w]++;
+            }
+            for (int i = 0; i < downCount[v]; i++) {
+                int u = downNode[v][i];
+                unlink(outNode[u], outWeight[u], outCount, u, v);
+                contractedNeighbours[u]++;
+            }
+            outCount[v] = 0;
+            inCount[v] = 0;
+        }
+
+        // Counts, and if add is set creates, the shortcuts contracting v needs
+        private int shortcutsFor(int v, boolean add) {
+            int needed = 0;
+            for (int i = 0; i < inCount[v]; i++) {
+                int u = inNode[v][i];
+                int toV = inWeight[v][i];
+                long longest = -1;
+                for (int j = 0; j < outCount[v]; j++) {
+                    if (outNode[v][j] != u) {
+                        longest = Math.max(longest, (long) toV + outWeight[v][j]);
+                    }
+                }
+                if (longest < 0) {
+                    continue;
+                }
+                searchWitnesses(u, v, (int) Math.min(longest, UNREACHABLE));
+                for (int j = 0; j < outCount[v]; j++) {
+                    int w = outNode[v][j];
+                    long via = (long) toV + outWeight[v][j];
+                    // A path too long for an int distance needs no shortcut; it is unreachable
+                    if (w != u && via < UNREACHABLE && witness.distance[w] > via) {
+                        needed++;
+                        if (add) {
+                            link(u, w, (int) via);
+                        }
+                    }
+                }
+                witness.reset();
+            }
+            return needed;
+        }
+
+        // Dijkstra from source that avoids skip, bounded by distance and settled count.
+        // Distances it leaves behind are lengths of real paths, so any that beats a
+        // shortcut is a valid witness even if the search stopped early.
+        private void searchWitnesses(int source, int skip, int limit) {
+            int[] distance = witness.distance;
+            witness.relax(source, 0, 0);
+            int settled = 0;
+            while (!witness.heap.isEmpty() && witness.heap.peekKey() <= limit && settled++ < WITNESS_SETTLE_LIMIT) {
+                int current = witness.heap.pop();
+                int base = distance[current];
+                for (int j = 0; j < outCount[current]; j++) {
+                    int next = outNode[current][j];
+                    long newDist = (long) base + outWeight[current][j];
+                    if (next != skip && newDist < distance[next]) {
+                        witness.relax(next, (int) newDist, (int) newDist);
+                    }
+                }
+            }
+        }
+
+        // Adds edge u->w, or lowers its weight if it exists
+        private void link(int u, int w, int weight) {
+            for (int j = 0; j < outCount[u]; j++) {
+                if (outNode[u][j] == w) {
+                    if (weight < outWeight[u][j]) {
+                        outWeight[u][j] = weight;
+                        for (int i = 0; i < inCount[w]; i++) {
+                            if (inNode[w][i] == u) {
+                                inWeight[w][i] = weight;
+                            }
+                        }
+                    }
+                    return;
+                }
+            }
+            append(outNode, outWeight, outCount, u, w, weight);
+            append(inNode, inWeight, inCount, w, u, weight);
+        }
+
+        private static void append(int[][] node, int[][] weight, int[] count, int owner, int neighbour, int distance) {
+            int size = count[owner];
+            if (size == node[owner].length) {
+                node[owner] = Arrays.copyOf(node[owner], size * 2);
+                weight[owner] = Arrays.copyOf(weight[owner], size * 2);
+            }
+            node[owner][size] = neighbour;
+            weight[owner][size] = distance;
+            count[owner] = size + 1;
+        }
+
+        private static void unlink(int[] node, int[] weight, int[] count, int owner, int neighbour) {
+            int size = count[owner];
+            for (int j = 0; j < size; j++) {
+                if (node[j] == neighbour) {
+                    node[j] = node[size - 1];
+                    weight[j] = weight[size - 1];
+                    count[owner] = size - 1;
+                    return;
+                }
+            }
+        }
+    }
+}
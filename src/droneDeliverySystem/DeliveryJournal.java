@@ -0,0 +1,783 @@
+package droneDeliverySystem;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.*;
+
+// Append-only journal of order, assignment, delivery and drone movement events in
+// memory-mapped segment files. Appends only copy into the mapping; a flusher thread forces
+// everything appended during one commit interval in a single fsync (group commit), and
+// sync() waits for it. Listener callbacks return before their record is forced, so a power
+// loss or OS crash can lose the records of the current commit interval; a caller that must
+// not lose an event calls sync() after it. A failed write is passed to the error handler
+// and the journal drops every later record; sync() and close() then throw. Callbacks never
+// throw into the delivery system, and records arriving after close() are dropped too.
+// Every snapshotInterval records the journal rolls to a new segment and writes a snapshot
+// of the pending orders and drone positions, after which older segments are deleted, so
+// recovery reads one snapshot plus the tail.
+//
+// Appenders only copy and count. The flusher keeps the next segment created and mapped
+// ahead of time, so rolling is a rename, and it builds snapshots from its own copy of the
+// state, which it brings up to date by reading back the records it has forced.
+//
+// Attach the journal as a listener after DeliverySystem.restore(getRecovery()), so the
+// replayed orders are not journaled twice.
+class DeliveryJournal implements DeliveryListener, Closeable {
+    static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+    static final int DEFAULT_SNAPSHOT_INTERVAL = 200_000;
+    static final long DEFAULT_COMMIT_MILLIS = 5;
+
+    private static final byte ORDER = 1;
+    private static final byte ASSIGNED = 2;
+    private static final byte DELIVERED = 3;
+    private static final byte MOVED = 4;
+    private static final byte DISCARDED = 5;
+    // Each record is [body length][CRC32 of body][body]; a zero length marks the end
+    private static final int HEADER_BYTES = 8;
+    private static final int SNAPSHOT_MAGIC = 0x44444a53;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    // The segment the flusher prepared for the next roll, renamed when it is used
+    private static final String SPARE_SEGMENT = "journal-spare.tmp";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int snapshotInterval;
+    private final long commitMillis;
+    // Live journal state: undelivered orders in placement order, and last drone positions
+    private final Map<String, OrderEntry> orders = new LinkedHashMap<>();
+    private final Map<String, String> droneLocations = new HashMap<>();
+    private final RecordBuffer record = new RecordBuffer();
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+    private final Recovery recovery;
+    private final Thread flusher;
+    // Full segments waiting for the flusher to force and close them
+    private final List<Retired> retired = new ArrayList<>();
+    // Every segment opened, for the flusher to read back in order
+    private final List<ByteBuffer> unread = new ArrayList<>();
+    // The flusher's copy of the state, as of record appliedLsn; only it touches these
+    private final Map<String, OrderEntry> snapshotOrders = new LinkedHashMap<>();
+    private final Map<String, String> snapshotDrones = new HashMap<>();
+    private final Deque<ByteBuffer> reading = new ArrayDeque<>();
+    private byte[] readBody = new byte[256];
+    private long appliedLsn;
+    private volatile Consumer<IOException> errorHandler = DeliveryJournal::uncaught;
+    private IOException failure;
+    private FileChannel segmentChannel;
+    private MappedByteBuffer segment;
+    private FileChannel spareChannel;
+    private MappedByteBuffer spare;
+    private long nextLsn;
+    private long durableLsn;
+    private int sinceSnapshot;
+    // Sequence number a snapshot is due at, or -1
+    private long snapshotDue = -1;
+    private boolean open = true;
+
+    private DeliveryJournal(Path directory, int segmentBytes, int snapshotInterval, long commitMillis) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.snapshotInterval = snapshotInterval;
+        this.commitMillis = commitMillis;
+
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        long replayed = replay();
+        this.recovery = new Recovery(new ArrayList<>(orders.values()), new HashMap<>(droneLocations),
+                                     replayed, (System.nanoTime() - start) / 1_000_000L, this::discarded);
+        this.durableLsn = nextLsn;
+        snapshotOrders.putAll(orders);
+        snapshotDrones.putAll(droneLocations);
+        appliedLsn = nextLsn;
+        Files.deleteIfExists(directory.resolve(SPARE_SEGMENT));
+        openSegment();
+
+        flusher = new Thread(this::flushLoop, "delivery-journal");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public static DeliveryJournal open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_SNAPSHOT_INTERVAL, DEFAULT_COMMIT_MILLIS);
+    }
+
+    public static DeliveryJournal open(Path directory, int segmentBytes, int snapshotInterval, long commitMillis) throws IOException {
+        if (segmentBytes < 4096 || snapshotInterval < 1 || commitMillis < 0) {
+            throw new IllegalArgumentException("Invalid journal settings " + segmentBytes + " bytes / "
+                                               + snapshotInterval + " records / " + commitMillis + "ms");
+        }
+        return new DeliveryJournal(directory, segmentBytes, snapshotInterval, commitMillis);
+    }
+
+    // State rebuilt from disk when the journal was opened
+    public Recovery getRecovery() {
+        return recovery;
+    }
+
+    // Receives the write failure that stopped the journal, on the thread that hit it; by
+    // default it goes to that thread's uncaught exception handler
+    public void setErrorHandler(Consumer<IOException> handler) {
+        this.errorHandler = handler;
+    }
+
+    @Override
+    public void packageQueued(Package pkg) {
+        write(out -> {
+            out.writeByte(ORDER);
+            out.writeUTF(pkg.getId());
+            out.writeDouble(pkg.getWeight());
+            out.writeUTF(pkg.getDropOffLocation());
+            out.writeByte(pkg.getPriority().ordinal());
+            out.writeLong(pkg.getDeadline());
+            out.writeLong(pkg.getSequence());
+            out.writeLong(pkg.getQueuedTime());
+        }, () -> orders.put(pkg.getId(), new OrderEntry(pkg.getId(), pkg.getWeight(), pkg.getDropOffLocation(),
+                                                        pkg.getPriority(), pkg.getDeadline(),
+                                                        pkg.getSequence(), pkg.getQueuedTime(), null)));
+    }
+
+    @Override
+    public void packageAssigned(Package pkg, Drone drone, int distance) {
+        write(out -> {
+            out.writeByte(ASSIGNED);
+            out.writeUTF(pkg.getId());
+            out.writeUTF(drone.getId());
+        }, () -> assigned(pkg.getId(), drone.getId()));
+    }
+
+    @Override
+    public void packageDelivered(Package pkg, Drone drone) {
+        String location = pkg.getCurrentLocation();
+        write(out -> {
+            out.writeByte(DELIVERED);
+            out.writeUTF(pkg.getId());
+            out.writeUTF(drone.getId());
+            out.writeUTF(location);
+        }, () -> delivered(pkg.getId(), drone.getId(), location));
+    }
+
+    // A drone landing from an empty flight, or stopping at a charger on the way somewhere;
+    // delivery stops are covered by their delivery records
+    @Override
+    public void stopReached(Drone drone, FlightPlan.Stop stop) {
+        if (stop.getPackages().isEmpty()) {
+            moved(drone.getId(), stop.getLocation());
+        }
+    }
+
+    @Override
+    public void chargingStarted(Drone drone, String station, long waitedMillis) {
+        moved(drone.getId(), station);
+    }
+
+    // Blocks until every record appended so far has been forced to disk
+    public void sync() throws InterruptedException, IOException {
+        synchronized (this) {
+            long target = nextLsn;
+            notifyAll();
+            while (open && failure == null && durableLsn < target) {
+                wait();
+            }
+            if (failure != null) {
+                throw stopped();
+            }
+        }
+    }
+
+    // Throws the failure that stopped the journal, if any, once the files are released
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (!open) {
+                return;
+            }
+            open = false;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            for (Retired full : retired) {
+                if (failure == null) {
+                    full.segment.force();
+                }
+                full.channel.close();
+            }
+            retired.clear();
+            if (failure == null) {
+                segment.force();
+                durableLsn = nextLsn;
+            }
+            segmentChannel.close();
+            if (spare != null) {
+                spareChannel.close();
+                spare = null;
+                Files.deleteIfExists(directory.resolve(SPARE_SEGMENT));
+            }
+            // One the flusher did not get to still saves the next open a replay
+            if (failure == null && snapshotDue >= 0) {
+                reading.addAll(unread);
+                unread.clear();
+                catchUp(snapshotDue);
+                writeSnapshot(snapshotDue);
+                snapshotDue = -1;
+            }
+            if (failure != null) {
+                throw stopped();
+            }
+        }
+    }
+
+    // Only pending orders need a record; anything else would never be recovered anyway
+    private void discarded(String packageId) {
+        synchronized (this) {
+            if (!orders.containsKey(packageId)) {
+                return;
+            }
+        }
+        write(out -> {
+            out.writeByte(DISCARDED);
+            out.writeUTF(packageId);
+        }, () -> orders.remove(packageId));
+    }
+
+    private void moved(String droneId, String location) {
+        write(out -> {
+            out.writeByte(MOVED);
+            out.writeUTF(droneId);
+            out.writeUTF(location);
+        }, () -> droneLocations.put(droneId, location));
+    }
+
+    // Serializes one record, appends it and applies it to the live state. A journal that is
+    // closed or stopped drops the record; a write that fails stops the journal.
+    private void write(RecordBody body, Runnable apply) {
+        IOException failed;
+        synchronized (this) {
+            if (!open || failure != null) {
+                return;
+            }
+            try {
+                record.reset();
+                body.writeTo(recordOut);
+                append();
+                apply.run();
+                advance();
+                return;
+            } catch (IOException e) {
+                failure = e;
+                failed = e;
+                notifyAll();
+            }
+        }
+        errorHandler.accept(failed);
+    }
+
+    private IOException stopped() {
+        return new IOException("Journal stopped after a failed write", failure);
+    }
+
+    // Caller holds the monitor and has serialized the record body into the buffer
+    private void append() throws IOException {
+        int length = record.size();
+        if (segment.remaining() < HEADER_BYTES + length + 4) {
+            if (HEADER_BYTES + length + 4 > segmentBytes) {
+                throw new IOException("Journal record of " + length + " bytes exceeds segment size");
+            }
+            rollSegment();
+        }
+        crc.reset();
+        crc.update(record.array(), 0, length);
+        segment.putInt(length);
+        segment.putInt((int) crc.getValue());
+        segment.put(record.array(), 0, length);
+    }
+
+    // Counts the appended record and, every snapshotInterval records, rolls the segment
+    // and tells the flusher a snapshot is due at the new segment's first record
+    private void advance() throws IOException {
+        if (nextLsn++ == durableLsn) {
+            notifyAll();
+        }
+        if (++sinceSnapshot >= snapshotInterval) {
+            sinceSnapshot = 0;
+            rollSegment();
+            snapshotDue = nextLsn;
+            notifyAll();
+        }
+    }
+
+    private void assigned(String packageId, String droneId) {
+        assigned(orders, packageId, droneId);
+    }
+
+    private void delivered(String packageId, String droneId, String location) {
+        delivered(orders, droneLocations, packageId, droneId, location);
+    }
+
+    private static void assigned(Map<String, OrderEntry> orders, String packageId, String droneId) {
+        OrderEntry entry = orders.get(packageId);
+        if (entry != null) {
+            orders.put(packageId, entry.assignedTo(droneId));
+        }
+    }
+
+    private static void delivered(Map<String, OrderEntry> orders, Map<String, String> droneLocations,
+                                  String packageId, String droneId, String location) {
+        orders.remove(packageId);
+        droneLocations.put(droneId, location);
+    }
+
+    private static void apply(byte[] body, int length, Map<String, OrderEntry> orders,
+                              Map<String, String> droneLocations) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body, 0, length));
+        byte type = in.readByte();
+        String packageId = in.readUTF();
+        if (type == MOVED) {
+            droneLocations.put(packageId, in.readUTF());
+        } else if (type == ORDER) {
+            double weight = in.readDouble();
+            String dropOff = in.readUTF();
+            PackagePriority priority = PackagePriority.values()[in.readByte()];
+            long deadline = in.readLong();
+            long sequence = in.readLong();
+            long queuedTime = in.readLong();
+            orders.put(packageId, new OrderEntry(packageId, weight, dropOff, priority, deadline, sequence, queuedTime, null));
+        } else if (type == ASSIGNED) {
+            assigned(orders, packageId, in.readUTF());
+        } else if (type == DELIVERED) {
+            String droneId = in.readUTF();
+            delivered(orders, droneLocations, packageId, droneId, in.readUTF());
+        } else if (type == DISCARDED) {
+            orders.remove(packageId);
+        } else {
+            throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    // The full segment is forced by the flusher, so the appending thread never waits on disk.
+    // The spare the flusher prepared only needs its name; without one, the roll creates and
+    // maps the next segment itself.
+    private void rollSegment() throws IOException {
+        retired.add(new Retired(segment, segmentChannel));
+        if (spare != null) {
+            Files.move(directory.resolve(SPARE_SEGMENT), segmentPath(nextLsn), StandardCopyOption.ATOMIC_MOVE);
+            segmentChannel = spareChannel;
+            segment = spare;
+            spareChannel = null;
+            spare = null;
+            unread.add(segment.duplicate());
+        } else {
+            openSegment();
+        }
+        notifyAll();
+    }
+
+    // Segments are named after the sequence number of their first record
+    private void openSegment() throws IOException {
+        segmentChannel = FileChannel.open(segmentPath(nextLsn), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                          StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        unread.add(segment.duplicate());
+    }
+
+    private Path segmentPath(long lsn) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, lsn, SEGMENT_SUFFIX));
+    }
+
+    // Runs on the flusher, holding no lock
+    private void prepareSpare() throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(SPARE_SEGMENT), StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ, StandardOpenOption.WRITE,
+                                               StandardOpenOption.TRUNCATE_EXISTING);
+        MappedByteBuffer mapped;
+        try {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        synchronized (this) {
+            if (open && failure == null && spare == null) {
+                spareChannel = channel;
+                spare = mapped;
+                return;
+            }
+        }
+        channel.close();
+    }
+
+    // Applies records to the flusher's copy of the state until it is as of record lsn. Only
+    // records already appended are read, and a segment ends at a zero length.
+    private void catchUp(long lsn) throws IOException {
+        while (appliedLsn < lsn) {
+            ByteBuffer buffer = reading.peekFirst();
+            if (buffer == null) {
+                throw new IOException("Journal record " + appliedLsn + " is missing from the segments");
+            }
+            int length = buffer.remaining() < HEADER_BYTES ? 0 : buffer.getInt(buffer.position());
+            if (length <= 0) {
+                reading.removeFirst();
+                continue;
+            }
+            buffer.position(buffer.position() + HEADER_BYTES);
+            if (readBody.length < length) {
+                readBody = new byte[Math.max(length, readBody.length * 2)];
+            }
+            buffer.get(readBody, 0, length);
+            apply(readBody, length, snapshotOrders, snapshotDrones);
+            appliedLsn++;
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            MappedByteBuffer buffer;
+            long target;
+            long snapshot;
+            List<Retired> full;
+            boolean needSpare;
+            synchronized (this) {
+                try {
+                    while (open && failure == null && nextLsn == durableLsn && snapshotDue < 0 && retired.isEmpty()
+                           && spare != null) {
+                        wait();
+                    }
+                    // After a failure nothing more is forced; close() releases what is left
+                    if (!open || failure != null) {
+                        return;
+                    }
+                    // Let the rest of this commit group arrive before paying for the fsync
+                    if (commitMillis > 0) {
+                        wait(commitMillis);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                buffer = segment;
+                target = nextLsn;
+                snapshot = snapshotDue;
+                snapshotDue = -1;
+                full = new ArrayList<>(retired);
+                retired.clear();
+                reading.addAll(unread);
+                unread.clear();
+                needSpare = spare == null;
+            }
+
+            try {
+                // Older segments first: a record only counts as durable once all before it are
+                for (Retired old : full) {
+                    old.segment.force();
+                    old.channel.close();
+                }
+                buffer.force();
+                synchronized (this) {
+                    durableLsn = Math.max(durableLsn, target);
+                    notifyAll();
+                }
+                if (snapshot >= 0) {
+                    catchUp(snapshot);
+                    writeSnapshot(snapshot);
+                }
+                // Reading back now spreads the work and lets go of the segments read
+                catchUp(target);
+                if (needSpare) {
+                    prepareSpare();
+                }
+            } catch (IOException e) {
+                fail(e);
+                return;
+            } catch (UncheckedIOException e) {
+                fail(e.getCause());
+                return;
+            }
+        }
+    }
+
+    private void fail(IOException e) {
+        synchronized (this) {
+            if (failure != null) {
+                return;
+            }
+            failure = e;
+            notifyAll();
+        }
+        errorHandler.accept(e);
+    }
+
+    private static void uncaught(IOException e) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+
+    // The flusher's copy of the state, which must be as of record lsn. Written to a temporary
+    // file and renamed, so a crash leaves either the old or new snapshot.
+    private void writeSnapshot(long lsn) throws IOException {
+        Path target = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, lsn, SNAPSHOT_SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(lsn);
+            out.writeInt(snapshotDrones.size());
+            for (Map.Entry<String, String> drone : snapshotDrones.entrySet()) {
+                out.writeUTF(drone.getKey());
+                out.writeUTF(drone.getValue());
+            }
+            out.writeInt(snapshotOrders.size());
+            for (OrderEntry order : snapshotOrders.values()) {
+                out.writeUTF(order.id);
+                out.writeDouble(order.weight);
+                out.writeUTF(order.dropOff);
+                out.writeByte(order.priority.ordinal());
+                out.writeLong(order.deadline);
+                out.writeLong(order.sequence);
+                out.writeLong(order.queuedTime);
+                out.writeBoolean(order.droneId != null);
+                if (order.droneId != null) {
+                    out.writeUTF(order.droneId);
+                }
+            }
+            out.flush();
+            long checksum = checked.getChecksum().getValue();
+            out.writeLong(checksum);
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        for (Path file : list(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (lsnOf(file, SEGMENT_PREFIX, SEGMENT_SUFFIX) < lsn) {
+                Files.deleteIfExists(file);
+            }
+        }
+        for (Path file : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (lsnOf(file, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX) < lsn) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    // Loads the newest readable snapshot, then replays later segments up to the first torn
+    // or corrupt record. A segment ends at a zero length, a torn record or a bad checksum, and
+    // the next one counts only if it starts at the record after the last one replayed, so
+    // nothing after a lost record is applied. Segments that do not are deleted before the
+    // journal reuses their sequence numbers. Returns the number of records replayed.
+    private long replay() throws IOException {
+        List<Path> snapshots = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            if (readSnapshot(snapshots.get(i))) {
+                break;
+            }
+        }
+
+        long replayed = 0;
+        byte[] body = new byte[256];
+        for (Path file : list(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            long start = lsnOf(file, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+            if (start < nextLsn) {
+                continue;
+            }
+            if (start > nextLsn) {
+                Files.delete(file);
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                while (buffer.remaining() >= HEADER_BYTES) {
+                    int length = buffer.getInt();
+                    int checksum = buffer.getInt();
+                    if (length <= 0 || length > buffer.remaining()) {
+                        break;
+                    }
+                    if (body.length < length) {
+                        body = new byte[Math.max(length, body.length * 2)];
+                    }
+                    buffer.get(body, 0, length);
+                    crc.reset();
+                    crc.update(body, 0, length);
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                    apply(body, length, orders, droneLocations);
+                    nextLsn++;
+                    replayed++;
+                }
+            }
+        }
+        return replayed;
+    }
+
+    private boolean readSnapshot(Path file) throws IOException {
+        Map<String, OrderEntry> orders = new LinkedHashMap<>();
+        Map<String, String> droneLocations = new HashMap<>();
+        long lsn;
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            CheckedInputStream checked = new CheckedInputStream(raw, new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                return false;
+            }
+            lsn = in.readLong();
+            int drones = in.readInt();
+            for (int i = 0; i < drones; i++) {
+                droneLocations.put(in.readUTF(), in.readUTF());
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String id = in.readUTF();
+                double weight = in.readDouble();
+                String dropOff = in.readUTF();
+                PackagePriority priority = PackagePriority.values()[in.readByte()];
+                long deadline = in.readLong();
+                long sequence = in.readLong();
+                long queuedTime = in.readLong();
+                String droneId = in.readBoolean() ? in.readUTF() : null;
+                orders.put(id, new OrderEntry(id, weight, dropOff, priority, deadline, sequence, queuedTime, droneId));
+            }
+            long expected = checked.getChecksum().getValue();
+            if (new DataInputStream(raw).readLong() != expected) {
+                return false;
+            }
+        } catch (EOFException e) {
+            return false;
+        }
+        this.orders.putAll(orders);
+        this.droneLocations.putAll(droneLocations);
+        this.nextLsn = lsn;
+        return true;
+    }
+
+    private List<Path> list(String prefix, String suffix) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(Comparator.comparingLong(file -> lsnOf(file, prefix, suffix)));
+        return files;
+    }
+
+    private static long lsnOf(Path file, String prefix, String suffix) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    }
+
+    // Undelivered orders and where each drone last landed or charged, as found on disk
+    static final class Recovery {
+        private final List<OrderEntry> orders;
+        private final Map<String, String> droneLocations;
+        private final long recordsReplayed;
+        private final long millis;
+        private final Consumer<String> discard;
+
+        private Recovery(List<OrderEntry> orders, Map<String, String> droneLocations, long recordsReplayed, long millis,
+                         Consumer<String> discard) {
+            this.orders = orders;
+            this.droneLocations = droneLocations;
+            this.recordsReplayed = recordsReplayed;
+            this.millis = millis;
+            this.discard = discard;
+        }
+
+        public Map<String, String> getDroneLocations() { return Collections.unmodifiableMap(droneLocations); }
+        public long getRecordsReplayed() { return recordsReplayed; }
+        public long getMillis() { return millis; }
+        public int getPendingCount() { return orders.size(); }
+
+        public int getInFlightCount() {
+            int inFlight = 0;
+            for (OrderEntry order : orders) {
+                if (order.droneId != null) {
+                    inFlight++;
+                }
+            }
+            return inFlight;
+        }
+
+        // Journals that the pending order will never be placed again, say because its
+        // drop-off is gone from the map, so later starts stop recovering it
+        public void discard(String packageId) {
+            discard.accept(packageId);
+        }
+
+        // Fresh packages awaiting dispatch, in original order. Flights cut short by the
+        // restart are not resumed; their packages are dispatched again. The clock restarts
+        // at zero, so each deadline keeps the allowance it was originally placed with.
+        public List<Package> getPendingPackages() {
+            List<OrderEntry> sorted = new ArrayList<>(orders);
+            sorted.sort(Comparator.comparingLong(order -> order.sequence));
+            List<Package> packages = new ArrayList<>(sorted.size());
+            for (OrderEntry order : sorted) {
+                long deadline = order.deadline == Package.NO_DEADLINE ? Package.NO_DEADLINE : order.deadline - order.queuedTime;
+                packages.add(new Package(order.id, order.weight, order.dropOff, order.priority, deadline));
+            }
+            return packages;
+        }
+    }
+
+    private static final class OrderEntry {
+        final String id;
+        final double weight;
+        final String dropOff;
+        final PackagePriority priority;
+        final long deadline;
+        final long sequence;
+        final long queuedTime;
+        final String droneId;
+
+        OrderEntry(String id, double weight, String dropOff, PackagePriority priority, long deadline,
+                   long sequence, long queuedTime, String droneId) {
+            this.id = id;
+            this.weight = weight;
+            this.dropOff = dropOff;
+            this.priority = priority;
+            this.deadline = deadline;
+            this.sequence = sequence;
+            this.queuedTime = queuedTime;
+            this.droneId = droneId;
+        }
+
+        OrderEntry assignedTo(String droneId) {
+            return new OrderEntry(id, weight, dropOff, priority, deadline, sequence, queuedTime, droneId);
+        }
+    }
+
+    private interface RecordBody {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    private static final class Retired {
+        final MappedByteBuffer segment;
+        final FileChannel channel;
+
+        Retired(MappedByteBuffer segment, FileChannel channel) {
+            this.segment = segment;
+            this.channel = channel;
+        }
+    }
+
+    // Exposes the backing array so record bodies can be checksummed and copied without a copy
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+        RecordBuffer() {
+            super(256);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package droneDeliverySystem;
+
+// Receives lifecycle events from DeliverySystem. Callbacks run on the engine's own
+// threads, so implementations that touch a UI must marshal to it themselves.
+interface DeliveryListener {
+    default void packageQueued(Package pkg) {}
+    default void orderRejected(Package pkg) {}
+    default void packageRequeued(Package pkg) {}
+    default void packageAssigned(Package pkg, Drone drone, int distance) {}
+    default void deliveryProgress(Package pkg, Drone drone, int progress, int distance) {}
+    default void packageDelivered(Package pkg, Drone drone) {}
+    default void stopReached(Drone drone, FlightPlan.Stop stop) {}
+    // An idle drone set off without packages: to a charger, home, or towards forecast demand
+    default void droneRelocating(Drone drone, FlightPlan trip) {}
+    default void chargingStarted(Drone drone, String station, long waitedMillis) {}
+    default void chargingFinished(Drone drone, String station) {}
+}
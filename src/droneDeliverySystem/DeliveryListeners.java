@@ -0,0 +1,92 @@
+package droneDeliverySystem;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// The listeners of one DeliverySystem, called as one. Each callback runs on its own: an
+// exception from one listener goes to the error handler and the next listener is still
+// called, so user code can never unwind through the dispatcher or a flight.
+final class DeliveryListeners implements DeliveryListener {
+    private final List<DeliveryListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Consumer<RuntimeException> errorHandler = DeliveryListeners::uncaught;
+
+    public void add(DeliveryListener listener) {
+        listeners.add(listener);
+    }
+
+    public void remove(DeliveryListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Receives exceptions thrown by listeners, which are otherwise passed to the calling
+    // thread's uncaught exception handler
+    public void setErrorHandler(Consumer<RuntimeException> handler) {
+        this.errorHandler = handler;
+    }
+
+    @Override
+    public void packageQueued(Package pkg) {
+        each(listener -> listener.packageQueued(pkg));
+    }
+
+    @Override
+    public void orderRejected(Package pkg) {
+        each(listener -> listener.orderRejected(pkg));
+    }
+
+    @Override
+    public void packageRequeued(Package pkg) {
+        each(listener -> listener.packageRequeued(pkg));
+    }
+
+    @Override
+    public void packageAssigned(Package pkg, Drone drone, int distance) {
+        each(listener -> listener.packageAssigned(pkg, drone, distance));
+    }
+
+    @Override
+    public void deliveryProgress(Package pkg, Drone drone, int progress, int distance) {
+        each(listener -> listener.deliveryProgress(pkg, drone, progress, distance));
+    }
+
+    @Override
+    public void packageDelivered(Package pkg, Drone drone) {
+        each(listener -> listener.packageDelivered(pkg, drone));
+    }
+
+    @Override
+    public void stopReached(Drone drone, FlightPlan.Stop stop) {
+        each(listener -> listener.stopReached(drone, stop));
+    }
+
+    @Override
+    public void droneRelocating(Drone drone, FlightPlan trip) {
+        each(listener -> listener.droneRelocating(drone, trip));
+    }
+
+    @Override
+    public void chargingStarted(Drone drone, String station, long waitedMillis) {
+        each(listener -> listener.chargingStarted(drone, station, waitedMillis));
+    }
+
+    @Override
+    public void chargingFinished(Drone drone, String station) {
+        each(listener -> listener.chargingFinished(drone, station));
+    }
+
+    private void each(Consumer<DeliveryListener> callback) {
+        for (DeliveryListener listener : listeners) {
+            try {
+                callback.accept(listener);
+            } catch (RuntimeException e) {
+                errorHandler.accept(e);
+            }
+        }
+    }
+
+    private static void uncaught(RuntimeException e) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+}
@@ -0,0 +1,184 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+// Counters and latency histograms fed by the dispatcher's own lifecycle events. Updates are
+// LongAdder increments and histogram records; gauges and percentiles are only computed
+// when an exporter takes a snapshot. Lifecycle latencies are in virtual milliseconds.
+class DeliveryMetrics implements DeliveryListener {
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder requeued = new LongAdder();
+    private final LongAdder assigned = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder flights = new LongAdder();
+    private final LongAdder withDeadline = new LongAdder();
+    private final LongAdder deadlinesMissed = new LongAdder();
+    private final LongAdder chargingSessions = new LongAdder();
+    private final LongAdder relocations = new LongAdder();
+    private final LongAdder relocationDistance = new LongAdder();
+    private final LatencyHistogram timeToAssign = new LatencyHistogram();
+    private final LatencyHistogram timeInFlight = new LatencyHistogram();
+    private final LatencyHistogram timeToDeliver = new LatencyHistogram();
+    private final LatencyHistogram dispatchPass = new LatencyHistogram();
+    // How long before (or, recorded separately, after) its deadline each package arrived
+    private final LatencyHistogram deadlineSlack = new LatencyHistogram();
+    private final LatencyHistogram deadlineLateness = new LatencyHistogram();
+    // How long each drone queued for a charger slot before it started charging
+    private final LatencyHistogram chargerWait = new LatencyHistogram();
+    // Distance units from the assigned drone to its first drop-off; not a latency, but the
+    // same histogram serves
+    private final LatencyHistogram assignmentDistance = new LatencyHistogram();
+    private final IntSupplier queueDepth;
+    private final List<Drone> drones;
+
+    public DeliveryMetrics(IntSupplier queueDepth, List<Drone> drones) {
+        this.queueDepth = queueDepth;
+        this.drones = drones;
+    }
+
+    public long getQueued() { return queued.sum(); }
+    public long getRejected() { return rejected.sum(); }
+    public long getRequeued() { return requeued.sum(); }
+    public long getAssigned() { return assigned.sum(); }
+    public long getDelivered() { return delivered.sum(); }
+    public long getFlights() { return flights.sum(); }
+    public long getWithDeadline() { return withDeadline.sum(); }
+    public long getDeadlinesMissed() { return deadlinesMissed.sum(); }
+    public long getChargingSessions() { return chargingSessions.sum(); }
+    public long getRelocations() { return relocations.sum(); }
+    public long getRelocationDistance() { return relocationDistance.sum(); }
+    public int getQueueDepth() { return queueDepth.getAsInt(); }
+    public LatencyHistogram getTimeToAssign() { return timeToAssign; }
+    public LatencyHistogram getTimeInFlight() { return timeInFlight; }
+    public LatencyHistogram getTimeToDeliver() { return timeToDeliver; }
+    public LatencyHistogram getDispatchPass() { return dispatchPass; }
+    public LatencyHistogram getDeadlineSlack() { return deadlineSlack; }
+    public LatencyHistogram getDeadlineLateness() { return deadlineLateness; }
+    public LatencyHistogram getChargerWait() { return chargerWait; }
+    public LatencyHistogram getAssignmentDistance() { return assignmentDistance; }
+
+    // Share of delivered packages with a deadline that arrived after it
+    public double getDeadlineMissRatio() {
+        long total = withDeadline.sum();
+        return total == 0 ? 0 : (double) deadlinesMissed.sum() / total;
+    }
+
+    // Share of the fleet currently out on a flight
+    public double getUtilization() {
+        if (drones.isEmpty()) {
+            return 0;
+        }
+        int busy = 0;
+        for (Drone drone : drones) {
+            if (!drone.isAvailable()) {
+                busy++;
+            }
+        }
+        return (double) busy / drones.size();
+    }
+
+    // Flights that carried packages; empty repositioning and charger trips are not counted
+    void recordFlightCompleted() {
+        flights.increment();
+    }
+
+    void recordAssignment(int distance) {
+        if (distance != RouteTable.UNREACHABLE) {
+            assignmentDistance.record(distance);
+        }
+    }
+
+    // Empty flights to reposition a drone or take it to a charger
+    void recordRelocation(int distance) {
+        relocations.increment();
+        relocationDistance.add(distance);
+    }
+
+    // Wall-clock nanoseconds spent in one dispatcher pass over the queue
+    void recordDispatchPass(long nanos) {
+        dispatchPass.record(nanos);
+    }
+
+    @Override
+    public void packageQueued(Package pkg) {
+        queued.increment();
+    }
+
+    @Override
+    public void orderRejected(Package pkg) {
+        rejected.increment();
+    }
+
+    @Override
+    public void packageRequeued(Package pkg) {
+        requeued.increment();
+    }
+
+    @Override
+    public void packageAssigned(Package pkg, Drone drone, int distance) {
+        assigned.increment();
+        timeToAssign.record(pkg.getDispatchTime() - pkg.getQueuedTime());
+    }
+
+    @Override
+    public void packageDelivered(Package pkg, Drone drone) {
+        delivered.increment();
+        timeInFlight.record(pkg.getDeliveryTime() - pkg.getDispatchTime());
+        timeToDeliver.record(pkg.getDeliveryTime() - pkg.getQueuedTime());
+        if (pkg.hasDeadline()) {
+            withDeadline.increment();
+            if (pkg.missedDeadline()) {
+                deadlinesMissed.increment();
+                deadlineLateness.record(pkg.getDeliveryTime() - pkg.getDeadline());
+            } else {
+                deadlineSlack.record(pkg.getDeadline() - pkg.getDeliveryTime());
+            }
+        }
+    }
+
+    @Override
+    public void chargingStarted(Drone drone, String station, long waitedMillis) {
+        chargingSessions.increment();
+        chargerWait.record(waitedMillis);
+    }
+
+    // Flat name -> value view shared by every exporter, in a stable order
+    public Map<String, Number> snapshot() {
+        Map<String, Number> values = new LinkedHashMap<>();
+        values.put("orders_queued_total", getQueued());
+        values.put("orders_rejected_total", getRejected());
+        values.put("packages_requeued_total", getRequeued());
+        values.put("packages_assigned_total", getAssigned());
+        values.put("packages_delivered_total", getDelivered());
+        values.put("flights_completed_total", getFlights());
+        values.put("deadline_packages_total", getWithDeadline());
+        values.put("deadline_missed_total", getDeadlinesMissed());
+        values.put("deadline_miss_ratio", getDeadlineMissRatio());
+        values.put("charging_sessions_total", getChargingSessions());
+        values.put("relocations_total", getRelocations());
+        values.put("relocation_distance_total", getRelocationDistance());
+        values.put("queue_depth", getQueueDepth());
+        values.put("fleet_utilization", getUtilization());
+        putHistogram(values, "time_to_assign_ms", timeToAssign);
+        putHistogram(values, "time_in_flight_ms", timeInFlight);
+        putHistogram(values, "time_to_deliver_ms", timeToDeliver);
+        putHistogram(values, "deadline_slack_ms", deadlineSlack);
+        putHistogram(values, "deadline_lateness_ms", deadlineLateness);
+        putHistogram(values, "charger_wait_ms", chargerWait);
+        putHistogram(values, "assignment_distance", assignmentDistance);
+        putHistogram(values, "dispatch_pass_ns", dispatchPass);
+        return values;
+    }
+
+    private static void putHistogram(Map<String, Number> values, String name, LatencyHistogram histogram) {
+        values.put(name + "_count", histogram.getCount());
+        values.put(name + "_mean", histogram.getMean());
+        values.put(name + "_p50", histogram.valueAtPercentile(50));
+        values.put(name + "_p90", histogram.valueAtPercentile(90));
+        values.put(name + "_p99", histogram.valueAtPercentile(99));
+        values.put(name + "_max", histogram.getMax());
+    }
+}
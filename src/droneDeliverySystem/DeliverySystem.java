@@ -3,220 +3,1237 @@ package droneDeliverySystem;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import java.util.concurrent.locks.*;
-import org.eclipse.swt.widgets.*;
-import org.eclipse.jface.viewers.*;
+import java.util.function.Consumer;
 
+// Orders are enqueued lock-free; packages and drones are claimed with CAS on their own
+// state, and the drone index is striped per location. The dispatcher's scratch buffers
+// are the only state it owns exclusively.
 class DeliverySystem {
+    static final long MILLIS_PER_DISTANCE_UNIT = 1000;
+    private static final long UNASSIGNED_COST = 1L << 40;
+    private static final int CONSOLIDATION_SCAN_LIMIT = 256;
+    private static final int CLAIM_ATTEMPTS = 3;
+    // Nearest drones checked for battery range at first; the search widens by this factor
+    // until it has covered every capable drone
+    private static final int RANGE_CANDIDATES = 16;
+    private static final long DISPATCHER_STOP_MILLIS = 1000;
+
+    enum DispatchMode { GREEDY, BATCH }
+
+    // Where a drone waits after its last drop-off
+    enum Repositioning { STAY, RETURN_TO_BASE, PREDICTIVE }
+
     private List<Drone> drones;
-    private Queue<Package> packageQueue;
-    private ExecutorService executorService;
-    private Map<String, Map<String, Integer>> locationGraph;
-    private final Lock lock = new ReentrantLock();
-    private Display display;
-    private TableViewer droneViewer;
-    private TableViewer packageViewer;
-    private Text statusText;
-
-    public DeliverySystem(List<Drone> drones, Display display, TableViewer droneViewer, TableViewer packageViewer, Text statusText) {
-        this.drones = drones;
-        this.packageQueue = new LinkedList<>();
-        this.executorService = Executors.newFixedThreadPool(10);
-        this.display = display;
-        this.droneViewer = droneViewer;
-        this.packageViewer = packageViewer;
-        this.statusText = statusText;
-        
-        initializeLocationGraph();
-    }
-
-    private void initializeLocationGraph() {
-        this.locationGraph = new HashMap<>();
-        
-        Map<String, Integer> warehouseConnections = new HashMap<>();
-        warehouseConnections.put("Downtown", 5);
-        warehouseConnections.put("Uptown", 3);
-        locationGraph.put("Warehouse", warehouseConnections);
-
-        Map<String, Integer> downtownConnections = new HashMap<>();
-        downtownConnections.put("Warehouse", 5);
-        downtownConnections.put("Airport", 2);
-        locationGraph.put("Downtown", downtownConnections);
-
-        Map<String, Integer> uptownConnections = new HashMap<>();
-        uptownConnections.put("Warehouse", 3);
-        uptownConnections.put("Airport", 6);
-        locationGraph.put("Uptown", uptownConnections);
-
-        Map<String, Integer> airportConnections = new HashMap<>();
-        airportConnections.put("Downtown", 2);
-        airportConnections.put("Uptown", 6);
-        locationGraph.put("Airport", airportConnections);
-    }
-
-    public void placeOrder(Package pkg) {
-        lock.lock();
+    private NavigableSet<Package> packageQueue;
+    private final AtomicLong orderSequence = new AtomicLong();
+    private final AtomicInteger waitingCount = new AtomicInteger();
+    private volatile int orderLimit = Integer.MAX_VALUE;
+    // Only producers blocked on a full queue take this lock
+    private final Lock roomLock = new ReentrantLock();
+    private final Condition roomFreed = roomLock.newCondition();
+    private final AtomicInteger blockedProducers = new AtomicInteger();
+    private SimulationClock clock;
+    private RouteTable routeTable;
+    private DroneIndex droneIndex;
+    private RoutePlanner routePlanner;
+    private final PayloadPacker payloadPacker = new PayloadPacker();
+    private final List<Package> consolidationCandidates = new ArrayList<>();
+    private final List<Drone> rangeCandidates = new ArrayList<>();
+    // Packages no idle drone has the charge for in this pass, and the drone that could fly
+    // each one after charging; the dispatcher's own, like the other scratch buffers
+    private final Map<Package, Drone> rangeBlocked = new LinkedHashMap<>();
+    // Both null until useEnergyModel; drones then fly only plans their battery allows
+    private volatile EnergyPlanner energyPlanner;
+    private volatile ChargingScheduler chargingScheduler;
+    private volatile Repositioning repositioning = Repositioning.STAY;
+    private final Map<Drone, String> homes = new ConcurrentHashMap<>();
+    private volatile DemandForecast demandForecast;
+    private volatile FleetRepositioner repositioner;
+    private volatile long repositionInterval;
+    private final AtomicBoolean repositionPending = new AtomicBoolean();
+    private volatile long lastReposition = Long.MIN_VALUE;
+    private final AtomicBoolean dispatchPending = new AtomicBoolean();
+    // Work that must not overlap a dispatch pass, run by the dispatcher before its next one
+    private final Queue<Runnable> dispatcherTasks = new ConcurrentLinkedQueue<>();
+    private volatile DispatchMode dispatchMode = DispatchMode.GREEDY;
+    private volatile long batchWindowMillis;
+    private volatile int batchSize;
+    private volatile SimulationClock.Event batchTimer;
+    private long batchOpenedAt = -1;
+    private volatile boolean consolidation;
+    private volatile int maxStops;
+    private volatile int maxDetour;
+    private volatile boolean running = true;
+    private Thread dispatcher;
+    private final DeliveryListeners listeners = new DeliveryListeners();
+    private volatile Consumer<RuntimeException> errorHandler = DeliverySystem::uncaught;
+    private final DeliveryMetrics metrics;
+    private final List<MetricsExporter> exporters = new CopyOnWriteArrayList<>();
+
+    public DeliverySystem(List<Drone> drones) {
+        this(drones, new SimulationClock(SimulationClock.Mode.REAL_TIME));
+    }
+
+    public DeliverySystem(List<Drone> drones, SimulationClock clock) {
+        this(drones, clock, LocationGraph.defaultCity());
+    }
+
+    // With an ACCELERATED clock, dispatch also runs as clock events so a whole run is
+    // sequenced by virtual time on one thread.
+    public DeliverySystem(List<Drone> drones, SimulationClock clock, LocationGraph locationGraph) {
+        this(drones, clock, new RouteTable(locationGraph));
+    }
+
+    // Systems in one process may share a route table, and with it the memoized rows
+    public DeliverySystem(List<Drone> drones, SimulationClock clock, RouteTable routeTable) {
+        this.drones = new CopyOnWriteArrayList<>(drones);
+        this.packageQueue = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(Package::getScheduleKey).thenComparingLong(Package::getSequence));
+        this.clock = clock;
+        this.metrics = new DeliveryMetrics(waitingCount::get, this.drones);
+        listeners.add(metrics);
+
+        this.routeTable = routeTable;
+        this.droneIndex = new DroneIndex(routeTable);
+        this.routePlanner = new RoutePlanner(routeTable);
+
+        for (Drone drone : this.drones) {
+            homes.put(drone, drone.getCurrentLocation());
+            if (drone.isAvailable()) {
+                droneIndex.add(drone);
+            }
+            drone.setAvailabilityListener(this::droneAvailable);
+        }
+        clock.start();
+        // Dispatch keeps a platform thread of its own, whatever backend runs the clock's callbacks
+        if (!clock.isAccelerated()) {
+            dispatcher = new Thread(this::dispatchLoop, "delivery-dispatcher");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+    }
+
+    // Accepted even past the order limit. Only an order for a drop-off that is not on the
+    // map is rejected, since no drone could ever fly it.
+    public boolean placeOrder(Package pkg) {
+        if (!knowsLocation(pkg.getDropOffLocation())) {
+            listeners.orderRejected(pkg);
+            return false;
+        }
+        waitingCount.incrementAndGet();
+        enqueue(pkg, orderSequence.incrementAndGet(), clock.now());
+        requestDispatch();
+        return true;
+    }
+
+    public boolean knowsLocation(String location) {
+        return routeTable.idOf(location) >= 0;
+    }
+
+    // Queues the package unless the order limit is reached; a rejected one is reported to
+    // the listeners and left to the caller
+    public boolean offerOrder(Package pkg) {
+        return placeOrders(Collections.singletonList(pkg)) == 1;
+    }
+
+    // Queues as many of the orders as there is room for, in iteration order, and rejects the
+    // rest, along with any whose drop-off is not on the map. The batch shares one queue time,
+    // one block of sequence numbers and one dispatcher wake-up. Returns how many were accepted.
+    public int placeOrders(Collection<Package> orders) {
+        List<Package> batch = onMap(orders);
+        int accepted = reserve(batch.size());
+        admit(batch.subList(0, accepted));
+        reject(batch.subList(accepted, batch.size()));
+        return accepted;
+    }
+
+    // Like placeOrders, but while the queue is full waits up to the timeout for the
+    // dispatcher to make room before rejecting what is left. Not for clock callbacks: on an
+    // ACCELERATED clock the dispatcher runs there, and would never get to make room.
+    public int placeOrders(Collection<Package> orders, long timeout, TimeUnit unit) throws InterruptedException {
+        List<Package> batch = onMap(orders);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int accepted = 0;
         try {
-            packageQueue.add(pkg);
-            updateStatus("Package " + pkg.getId() + " added to queue");
-            updatePackageViewer();
+            while (true) {
+                int room = reserve(batch.size() - accepted);
+                admit(batch.subList(accepted, accepted + room));
+                accepted += room;
+                if (accepted == batch.size() || !awaitRoom(deadline)) {
+                    break;
+                }
+            }
         } finally {
-            lock.unlock();
+            reject(batch.subList(accepted, batch.size()));
         }
-        processOrders();
+        return accepted;
     }
 
-    private void processOrders() {
-        executorService.submit(() -> {
-            while (!packageQueue.isEmpty()) {
-                lock.lock();
-                try {
-                    Package pkg = packageQueue.poll();
-                    if (pkg != null) {
-                        Drone assignedDrone = findAvailableDrone(pkg);
-                        if (assignedDrone != null) {
-                            updateStatus("Assigning package " + pkg.getId() + " to drone " + assignedDrone.getId());
-                            pkg.setStatus("on its way");
-                            assignedDrone.assignPackage(pkg);
-                            updateDroneViewer();
-                            updatePackageViewer();
-                            simulateDelivery(pkg, assignedDrone);
-                        } else {
-                            updateStatus("No available drones for package " + pkg.getId() + ". Requeuing.");
-                            packageQueue.add(pkg);
-                        }
-                    }
-                } finally {
-                    lock.unlock();
+    // Caps how many packages may wait at once for placeOrders and offerOrder; placeOrder
+    // and orders handed over from other dispatchers still always get in
+    public void useOrderLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Invalid order limit " + limit);
+        }
+        orderLimit = limit;
+        signalRoom();
+    }
+
+    public int getOrderLimit() {
+        return orderLimit;
+    }
+
+    // Rejects the orders for drop-offs that are not on the map and returns the rest, in
+    // order; the orders themselves when all of them are
+    private List<Package> onMap(Collection<Package> orders) {
+        List<Package> batch = orders instanceof List ? (List<Package>) orders : new ArrayList<>(orders);
+        List<Package> known = batch;
+        int index = 0;
+        for (Package pkg : batch) {
+            if (!knowsLocation(pkg.getDropOffLocation())) {
+                if (known == batch) {
+                    known = new ArrayList<>(batch.subList(0, index));
                 }
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+                listeners.orderRejected(pkg);
+            } else if (known != batch) {
+                known.add(pkg);
+            }
+            index++;
+        }
+        return known;
+    }
+
+    // Takes room for up to wanted more waiting packages under the order limit
+    private int reserve(int wanted) {
+        while (true) {
+            int waiting = waitingCount.get();
+            int room = Math.min(wanted, orderLimit - waiting);
+            if (room <= 0) {
+                return 0;
+            }
+            if (waitingCount.compareAndSet(waiting, waiting + room)) {
+                return room;
+            }
+        }
+    }
+
+    // Packages whose room in waitingCount is already taken
+    private void admit(List<Package> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long now = clock.now();
+        long sequence = orderSequence.getAndAdd(batch.size());
+        for (Package pkg : batch) {
+            enqueue(pkg, ++sequence, now);
+        }
+        requestDispatch();
+    }
+
+    private void enqueue(Package pkg, long sequence, long now) {
+        pkg.setSequence(sequence);
+        pkg.setQueuedTime(now);
+        pkg.setScheduleKey(scheduleKey(pkg));
+        DemandForecast forecast = demandForecast;
+        if (forecast != null) {
+            forecast.record(routeTable.idOf(pkg.getDropOffLocation()), now);
+        }
+        packageQueue.add(pkg);
+        listeners.packageQueued(pkg);
+    }
+
+    private void reject(List<Package> rejected) {
+        for (Package pkg : rejected) {
+            listeners.orderRejected(pkg);
+        }
+    }
+
+    // Producers count themselves in before checking for room, so a claim that frees room
+    // after the check always sees them and signals
+    private boolean awaitRoom(long deadline) throws InterruptedException {
+        roomLock.lock();
+        blockedProducers.incrementAndGet();
+        try {
+            while (waitingCount.get() >= orderLimit) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
                 }
+                roomFreed.awaitNanos(remaining);
             }
-        });
+            return true;
+        } finally {
+            blockedProducers.decrementAndGet();
+            roomLock.unlock();
+        }
     }
 
-    private Drone findAvailableDrone(Package pkg) {
-        Drone bestDrone = null;
-        int shortestDistance = Integer.MAX_VALUE;
+    private void signalRoom() {
+        roomLock.lock();
+        try {
+            roomFreed.signalAll();
+        } finally {
+            roomLock.unlock();
+        }
+    }
 
+    // Changes a waiting package's class and deadline; returns false once it has been dispatched
+    public boolean reprioritize(Package pkg, PackagePriority priority, long deadline) {
+        synchronized (pkg) {
+            if (!isWaiting(pkg) || !packageQueue.remove(pkg)) {
+                return false;
+            }
+            pkg.setPriority(priority);
+            pkg.setDeadline(deadline);
+            pkg.setLate(false);
+            pkg.setScheduleKey(scheduleKey(pkg));
+            packageQueue.add(pkg);
+        }
+        requestDispatch();
+        return true;
+    }
+
+    // Earliest deadline first. Packages without a deadline, or that can no longer make it,
+    // are keyed by when their priority class should have been served, so an old bulk
+    // package eventually sorts ahead of newer urgent ones and nothing starves.
+    private static long scheduleKey(Package pkg) {
+        long target = pkg.getQueuedTime() + pkg.getPriority().getTargetMillis();
+        return pkg.hasDeadline() && !pkg.isLate() ? Math.min(pkg.getDeadline(), target) : target;
+    }
+
+    // Moves a package that cannot be delivered on time behind those that still can. The key
+    // may only change while the package is out of the queue.
+    private void demote(Package pkg) {
+        synchronized (pkg) {
+            if (packageQueue.remove(pkg)) {
+                pkg.setLate(true);
+                pkg.setScheduleKey(scheduleKey(pkg));
+                packageQueue.add(pkg);
+            }
+        }
+    }
+
+    // Whether the drone, leaving now, could still reach the drop-off by the deadline on a
+    // direct flight; dispatch checks the flight it actually plans
+    private boolean canMeetDeadline(Package pkg, Drone drone) {
+        if (!pkg.hasDeadline() || pkg.isLate()) {
+            return true;
+        }
+        int distance = calculateShortestDistance(drone.getCurrentLocation(), pkg.getDropOffLocation());
+        return distance != RouteTable.UNREACHABLE
+            && clock.now() + distance * MILLIS_PER_DISTANCE_UNIT <= pkg.getDeadline();
+    }
+
+    // Puts drones back where the journal last saw them land and re-queues every order that
+    // was not delivered. An order whose drop-off is no longer on the map is rejected and
+    // discarded from the journal. Call before any new orders are placed.
+    public void restore(DeliveryJournal.Recovery recovery) {
+        Map<String, String> locations = recovery.getDroneLocations();
         for (Drone drone : drones) {
-            if (drone.isAvailable() && drone.getMaxPayloadCapacity() >= pkg.getWeight()) {
-                int distance = calculateShortestDistance(drone.getCurrentLocation(), pkg.getDropOffLocation());
-                if (distance < shortestDistance) {
-                    shortestDistance = distance;
-                    bestDrone = drone;
+            String location = locations.get(drone.getId());
+            if (location != null && drone.isAvailable() && droneIndex.remove(drone)) {
+                drone.setCurrentLocation(location);
+                drone.setTargetLocation(location);
+                droneIndex.add(drone);
+            }
+        }
+        for (Package pkg : recovery.getPendingPackages()) {
+            if (!placeOrder(pkg)) {
+                recovery.discard(pkg.getId());
+            }
+        }
+    }
+
+    // Queues a package handed over by another dispatcher. It keeps its queue time and schedule
+    // key, and is not announced as a new order.
+    public void adoptOrder(Package pkg) {
+        pkg.setSequence(orderSequence.incrementAndGet());
+        pkg.setStatus(PackageStatus.AWAITING_DISPATCH);
+        waitingCount.incrementAndGet();
+        packageQueue.add(pkg);
+        requestDispatch();
+    }
+
+    // Takes up to limit waiting packages no heavier than maxWeight off the queue, most urgent
+    // first, and passes them to taken. This runs between dispatch passes, so no pass can still
+    // be holding one of them; they stay claimed until another dispatcher adopts them.
+    public void handOffOrders(int limit, double maxWeight, Consumer<List<Package>> taken) {
+        dispatcherTasks.add(() -> {
+            List<Package> handed = new ArrayList<>();
+            int scanned = 0;
+            for (Package pkg : packageQueue) {
+                if (handed.size() == limit || scanned++ == CONSOLIDATION_SCAN_LIMIT) {
+                    break;
+                }
+                if (pkg.getWeight() <= maxWeight && claim(pkg)) {
+                    synchronized (pkg) {
+                        packageQueue.remove(pkg);
+                    }
+                    handed.add(pkg);
                 }
             }
+            taken.accept(handed);
+        });
+        requestDispatch();
+    }
+
+    // Gives up an idle drone, for instance to the dispatcher that owns where it landed. The
+    // drone stays claimed until adoptDrone; false if a flight claimed it first.
+    public boolean releaseDrone(Drone drone) {
+        if (!drone.relocate(drone.getCurrentLocation())) {
+            return false;
         }
-        return bestDrone;
+        droneIndex.remove(drone);
+        if (chargingScheduler != null) {
+            chargingScheduler.leave(drone);
+        }
+        drone.setAvailabilityListener(null);
+        drones.remove(drone);
+        homes.remove(drone);
+        return true;
     }
 
-    private int calculateShortestDistance(String start, String end) {
-        Map<String, Integer> distances = new HashMap<>();
-        PriorityQueue<String> queue = new PriorityQueue<>(Comparator.comparingInt(distances::get));
-        Set<String> visited = new HashSet<>();
+    // Takes over a drone released by another dispatcher; home is where return-to-base sends it
+    public void adoptDrone(Drone drone, String home) {
+        homes.put(drone, home);
+        drones.add(drone);
+        drone.setAvailabilityListener(this::droneAvailable);
+        drone.completeDelivery();
+    }
+
+    public String getHome(Drone drone) {
+        return homes.get(drone);
+    }
 
-        for (String location : locationGraph.keySet()) {
-            distances.put(location, Integer.MAX_VALUE);
+    public int getWaitingCount() {
+        return waitingCount.get();
+    }
+
+    public int getAvailableDroneCount() {
+        return droneIndex.size();
+    }
+
+    // Re-indexes the drone at its new location and wakes the dispatcher. With an energy
+    // model, a drone landing on a charger tops up there while staying dispatchable, and one
+    // running low anywhere else first flies to the nearest charger. Otherwise an idle drone
+    // may head home or towards forecast demand, depending on the repositioning policy.
+    private void droneAvailable(Drone drone) {
+        EnergyPlanner planner = energyPlanner;
+        if (planner != null && drone.hasLimitedRange() && drone.getCharge() < drone.getBatteryCapacity()) {
+            String location = drone.getCurrentLocation();
+            if (routeTable.getGraph().isChargingStation(location)) {
+                // Queued before it is indexed, so a dispatcher that claims it always sees the session to end
+                chargingScheduler.request(drone, location, drone.getBatteryCapacity(), false, this::requestDispatch);
+                if (!droneIndex.add(drone) && !drone.isAvailable()) {
+                    // Claimed since it landed, perhaps before the session existed to be ended
+                    chargingScheduler.leave(drone);
+                }
+                requestDispatch();
+                return;
+            }
+            if (drone.getCharge() < planner.getModel().getRechargeBelow() * drone.getBatteryCapacity()) {
+                FlightPlan trip = planner.planRecharge(drone);
+                if (trip != null && startRelocation(drone, trip)) {
+                    return;
+                }
+            }
+        }
+        if (repositioning == Repositioning.RETURN_TO_BASE && waitingCount.get() == 0) {
+            String home = homes.get(drone);
+            if (home != null && !home.equals(drone.getCurrentLocation())) {
+                FlightPlan trip = emptyTrip(drone, home);
+                if (trip != null && startRelocation(drone, trip)) {
+                    return;
+                }
+            }
         }
-        distances.put(start, 0);
-        queue.add(start);
+        droneIndex.add(drone);
+        requestDispatch();
+        if (repositioning == Repositioning.PREDICTIVE) {
+            requestReposition();
+        }
+    }
+
+    // Claims an idle drone for an empty flight; it becomes available again on landing
+    private boolean startRelocation(Drone drone, FlightPlan trip) {
+        if (!drone.relocate(trip.getFinalLocation())) {
+            return false;
+        }
+        droneIndex.remove(drone);
+        if (chargingScheduler != null) {
+            chargingScheduler.leave(drone);
+        }
+        metrics.recordRelocation(trip.getTotalDistance());
+        listeners.droneRelocating(drone, trip);
+        clock.schedule(0, () -> advanceFlight(drone, trip, 0));
+        return true;
+    }
 
-        while (!queue.isEmpty()) {
-            String current = queue.poll();
-            if (current.equals(end)) {
-                return distances.get(current);
+    // A flight with no packages to the destination, with charging stops if the battery
+    // needs them; null if the drone cannot get there
+    private FlightPlan emptyTrip(Drone drone, String destination) {
+        String origin = drone.getCurrentLocation();
+        int distance = calculateShortestDistance(origin, destination);
+        if (distance == RouteTable.UNREACHABLE) {
+            return null;
+        }
+        FlightPlan trip = new FlightPlan(origin, Collections.singletonList(
+            new FlightPlan.Stop(destination, distance, Collections.emptyList())));
+        EnergyPlanner planner = energyPlanner;
+        return planner == null ? trip : planner.plan(trip, drone, chargingScheduler.chargeNow(drone));
+    }
+
+    // Rounds run at most once per interval, and only as a clock event after some activity,
+    // so an idle accelerated clock still drains
+    private void requestReposition() {
+        if (!repositionPending.compareAndSet(false, true)) {
+            return;
+        }
+        long last = lastReposition;
+        long delay = last == Long.MIN_VALUE ? 0 : Math.max(0, last + repositionInterval - clock.now());
+        clock.schedule(delay, this::repositionRound);
+    }
+
+    // Moves idle drones towards forecast demand, but never while orders are waiting for them
+    private void repositionRound() {
+        repositionPending.set(false);
+        lastReposition = clock.now();
+        FleetRepositioner planner = repositioner;
+        if (repositioning != Repositioning.PREDICTIVE || planner == null || waitingCount.get() > 0) {
+            return;
+        }
+        List<Drone> idle = new ArrayList<>();
+        List<String> landing = new ArrayList<>();
+        for (Drone drone : drones) {
+            if (!drone.isAvailable()) {
+                landing.add(drone.getTargetLocation());
+            } else if (chargingScheduler == null || !chargingScheduler.hasSession(drone)) {
+                idle.add(drone);
+            }
+        }
+        for (Map.Entry<Drone, String> move : planner.plan(idle, landing, clock.now()).entrySet()) {
+            FlightPlan trip = emptyTrip(move.getKey(), move.getValue());
+            if (trip != null) {
+                startRelocation(move.getKey(), trip);
             }
-            if (visited.contains(current)) {
+        }
+    }
+
+    private void requestDispatch() {
+        if (!dispatchPending.compareAndSet(false, true)) {
+            return;
+        }
+        if (clock.isAccelerated()) {
+            clock.schedule(0, this::dispatchOnClock);
+        } else {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    private void dispatchOnClock() {
+        dispatchPending.set(false);
+        runDispatcherTasks();
+        processOrders();
+    }
+
+    // Single dispatcher thread. Packages that cannot be placed stay parked in the queue
+    // until the next signal instead of being polled and re-added.
+    private void dispatchLoop() {
+        while (running) {
+            if (!dispatchPending.getAndSet(false)) {
+                LockSupport.park(this);
                 continue;
             }
-            visited.add(current);
+            try {
+                runDispatcherTasks();
+                processOrders();
+            } catch (RuntimeException e) {
+                errorHandler.accept(e);
+            }
+        }
+    }
+
+    private static void uncaught(RuntimeException e) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
 
-            for (Map.Entry<String, Integer> neighbor : locationGraph.getOrDefault(current, Collections.emptyMap()).entrySet()) {
-                String next = neighbor.getKey();
-                int newDist = distances.get(current) + neighbor.getValue();
-                if (newDist < distances.get(next)) {
-                    distances.put(next, newDist);
-                    queue.add(next);
+    private void runDispatcherTasks() {
+        Runnable task;
+        while ((task = dispatcherTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    // Matches packages one at a time, most urgent first, to their nearest capable drone
+    public void useGreedyDispatch() {
+        dispatchMode = DispatchMode.GREEDY;
+        requestDispatch();
+    }
+
+    // Collects waiting packages until batchSize are queued or the oldest has waited
+    // windowMillis, then matches the whole batch against the free drones at once
+    public void useBatchDispatch(long windowMillis, int batchSize) {
+        if (windowMillis < 0 || batchSize < 1) {
+            throw new IllegalArgumentException("Invalid batch window " + windowMillis + "ms / size " + batchSize);
+        }
+        this.batchWindowMillis = windowMillis;
+        this.batchSize = batchSize;
+        this.dispatchMode = DispatchMode.BATCH;
+        requestDispatch();
+    }
+
+    public DispatchMode getDispatchMode() {
+        return dispatchMode;
+    }
+
+    // Lets a drone take extra waiting packages whose drop-off lies within maxDetour of its
+    // first one, up to its payload capacity and maxStops distinct stops per flight
+    public void useConsolidation(int maxStops, int maxDetour) {
+        if (maxStops < 1 || maxDetour < 0) {
+            throw new IllegalArgumentException("Invalid consolidation limits " + maxStops + " stops / " + maxDetour + " detour");
+        }
+        this.maxStops = maxStops;
+        this.maxDetour = maxDetour;
+        this.consolidation = true;
+    }
+
+    public void useSinglePackageFlights() {
+        this.consolidation = false;
+    }
+
+    // Idle drones stay where their last drop-off was, as they always have
+    public void useStayAtDropOff() {
+        repositioning = Repositioning.STAY;
+    }
+
+    // Idle drones fly back to where they started, unless orders are already waiting
+    public void useReturnToBase() {
+        repositioning = Repositioning.RETURN_TO_BASE;
+    }
+
+    // Counts orders per drop-off over the last windowMillis and moves idle drones to where
+    // orders are likely within the next horizonMillis
+    public void usePredictiveRepositioning(long windowMillis, long horizonMillis) {
+        if (horizonMillis < 1) {
+            throw new IllegalArgumentException("Invalid forecast horizon " + horizonMillis + "ms");
+        }
+        DemandForecast forecast = new DemandForecast(windowMillis);
+        repositioner = new FleetRepositioner(routeTable, forecast, horizonMillis);
+        repositionInterval = Math.max(1, horizonMillis / 4);
+        demandForecast = forecast;
+        repositioning = Repositioning.PREDICTIVE;
+    }
+
+    public Repositioning getRepositioning() {
+        return repositioning;
+    }
+
+    // Tracks battery charge for drones built with a capacity and schedules the graph's
+    // charging stations. Drones without one keep unlimited range. Call before placing orders.
+    public void useEnergyModel(EnergyModel model) {
+        ChargingScheduler scheduler = new ChargingScheduler(routeTable.getGraph(), clock, model, listeners);
+        chargingScheduler = scheduler;
+        energyPlanner = new EnergyPlanner(routeTable, model, scheduler);
+        for (Drone drone : drones) {
+            String location = drone.getCurrentLocation();
+            if (drone.isAvailable() && drone.hasLimitedRange() && drone.getCharge() < drone.getBatteryCapacity()
+                && routeTable.getGraph().isChargingStation(location)) {
+                scheduler.request(drone, location, drone.getBatteryCapacity(), false, this::requestDispatch);
+            }
+        }
+    }
+
+    private void processOrders() {
+        long start = System.nanoTime();
+        if (dispatchMode == DispatchMode.BATCH) {
+            processBatches();
+        } else {
+            processGreedy();
+        }
+        if (!rangeBlocked.isEmpty()) {
+            rechargeForBlockedOrders();
+        }
+        metrics.recordDispatchPass(System.nanoTime() - start);
+    }
+
+    // Packages left waiting only because no idle drone has the charge for them would wait
+    // forever if every drone idles above the recharge threshold, so send drones that could
+    // fly them once charged to a charger: as many as there are such packages, less those
+    // already charging or on their way to a charger.
+    private void rechargeForBlockedOrders() {
+        int wanted = rangeBlocked.size() - dronesRecharging();
+        for (Drone drone : rangeBlocked.values()) {
+            if (wanted <= 0) {
+                break;
+            }
+            FlightPlan trip = energyPlanner.planRecharge(drone);
+            if (trip != null && startRelocation(drone, trip)) {
+                wanted--;
+            }
+        }
+        rangeBlocked.clear();
+    }
+
+    private int dronesRecharging() {
+        int recharging = 0;
+        for (Drone drone : drones) {
+            if (chargingScheduler.hasSession(drone)
+                || !drone.isAvailable() && drone.getPackages().isEmpty()
+                   && routeTable.getGraph().isChargingStation(drone.getTargetLocation())) {
+                recharging++;
+            }
+        }
+        return recharging;
+    }
+
+    private void processGreedy() {
+        boolean consolidated = false;
+        Iterator<Package> waiting = packageQueue.iterator();
+        while (waiting.hasNext() && !droneIndex.isEmpty()) {
+            Package pkg = waiting.next();
+            if (!isWaiting(pkg)) {
+                waiting.remove();
+                continue;
+            }
+            if (dispatchToNearest(pkg)) {
+                waiting.remove();
+                consolidated |= consolidation;
+            } else {
+                listeners.packageRequeued(pkg);
+            }
+        }
+        if (consolidated) {
+            packageQueue.removeIf(pkg -> !isWaiting(pkg));
+        }
+    }
+
+    // Retries when another dispatcher claims the chosen drone first
+    private boolean dispatchToNearest(Package pkg) {
+        boolean late = pkg.isLate();
+        for (int attempt = 0; attempt < CLAIM_ATTEMPTS; attempt++) {
+            Drone drone = findAvailableDrone(pkg);
+            if (drone == null) {
+                return false;
+            }
+            if (!canMeetDeadline(pkg, drone)) {
+                // Re-inserted further back; this pass may still reach it after the others
+                demote(pkg);
+                return false;
+            }
+            if (dispatch(pkg, drone)) {
+                return true;
+            }
+            if (pkg.isLate() != late) {
+                // Demoted by dispatch, as above
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // Packages picked up as companions stay in the queue until they are purged after the pass
+    private boolean isWaiting(Package pkg) {
+        return pkg.getStatus() == PackageStatus.AWAITING_DISPATCH;
+    }
+
+    private boolean claim(Package pkg) {
+        if (pkg.compareAndSetStatus(PackageStatus.AWAITING_DISPATCH, PackageStatus.ON_ITS_WAY)) {
+            waitingCount.decrementAndGet();
+            if (blockedProducers.get() > 0) {
+                signalRoom();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void release(Package pkg) {
+        if (pkg.compareAndSetStatus(PackageStatus.ON_ITS_WAY, PackageStatus.AWAITING_DISPATCH)) {
+            waitingCount.incrementAndGet();
+        }
+    }
+
+    // A window opens when packages start waiting and closes after batchWindowMillis, or
+    // earlier if waiting longer would eat into the most urgent package's slack
+    private void processBatches() {
+        while (!droneIndex.isEmpty()) {
+            Package first = firstQueued();
+            if (first == null) {
+                batchOpenedAt = -1;
+                return;
+            }
+            if (!isWaiting(first)) {
+                packageQueue.remove(first);
+                continue;
+            }
+            long now = clock.now();
+            if (batchOpenedAt < 0) {
+                batchOpenedAt = now;
+            }
+            long closesAt = Math.min(batchOpenedAt + batchWindowMillis, first.getScheduleKey() - batchWindowMillis);
+            if (waitingCount.get() < batchSize && now < closesAt) {
+                scheduleBatchTimer(closesAt - now);
+                return;
+            }
+            batchOpenedAt = now;
+            if (assignBatch() == 0) {
+                return;
+            }
+        }
+    }
+
+    // The queue may briefly lose an element while it is being re-keyed, so no first()
+    private Package firstQueued() {
+        Iterator<Package> queued = packageQueue.iterator();
+        return queued.hasNext() ? queued.next() : null;
+    }
+
+    private void scheduleBatchTimer(long delayMillis) {
+        SimulationClock.Event previous = batchTimer;
+        if (previous != null) {
+            previous.cancel();
+        }
+        batchTimer = clock.schedule(delayMillis, this::requestDispatch);
+    }
+
+    // Solves the batchSize most urgent packages as one min-cost matching on drone-to-drop-off
+    // distance. Each package only needs its batchSize nearest capable drones as candidates:
+    // an optimal matching never uses a farther one while one of those is still free.
+    private int assignBatch() {
+        int batchSize = this.batchSize;
+        List<Package> batch = new ArrayList<>();
+        Set<Drone> candidates = new LinkedHashSet<>();
+        for (Package pkg : packageQueue) {
+            if (batch.size() == batchSize) {
+                break;
+            }
+            if (!isWaiting(pkg)) {
+                continue;
+            }
+            Drone nearest = findAvailableDrone(pkg);
+            if (nearest == null) {
+                listeners.packageRequeued(pkg);
+                continue;
+            }
+            if (!canMeetDeadline(pkg, nearest)) {
+                demote(pkg);
+                continue;
+            }
+            batch.add(pkg);
+            droneIndex.collectNearest(pkg.getDropOffLocation(), pkg.getWeight(), batchSize, candidates);
+        }
+
+        List<Drone> fleet = new ArrayList<>(candidates);
+        int columns = Math.max(fleet.size(), batch.size());
+        long[][] cost = new long[batch.size()][columns];
+        for (int i = 0; i < batch.size(); i++) {
+            Package pkg = batch.get(i);
+            int target = routeTable.idOf(pkg.getDropOffLocation());
+            Arrays.fill(cost[i], UNASSIGNED_COST);
+            for (int j = 0; j < fleet.size(); j++) {
+                Drone drone = fleet.get(j);
+                int origin = routeTable.idOf(drone.getCurrentLocation());
+                if (drone.getMaxPayloadCapacity() >= pkg.getWeight() && origin >= 0) {
+                    int distance = energyPlanner == null ? routeTable.distanceTo(origin, target) : poweredDistance(pkg, drone);
+                    if (distance != RouteTable.UNREACHABLE) {
+                        cost[i][j] = distance;
+                    }
                 }
             }
         }
-        return Integer.MAX_VALUE;
+
+        int[] match = AssignmentSolver.solve(cost);
+        int assigned = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Package pkg = batch.get(i);
+            if (!isWaiting(pkg)) {
+                continue;
+            }
+            int j = match[i];
+            if (cost[i][j] < UNASSIGNED_COST && dispatch(pkg, fleet.get(j))) {
+                assigned++;
+            } else {
+                listeners.packageRequeued(pkg);
+            }
+        }
+        packageQueue.removeIf(pkg -> !isWaiting(pkg));
+        return assigned;
     }
 
-    private void simulateDelivery(Package pkg, Drone drone) {
-        executorService.submit(() -> {
-            try {
-                int distance = calculateShortestDistance(drone.getCurrentLocation(), pkg.getDropOffLocation());
-                long deliveryTime = distance * 1000L;
-                
-                updateStatus("Drone " + drone.getId() + " delivering package " + pkg.getId() + 
-                            " to " + pkg.getDropOffLocation() + ". ETA: " + deliveryTime/1000 + "s");
-                
-                // Simulate movement
-                for (int i = 1; i <= distance; i++) {
-                    Thread.sleep(1000);
-                    final int progress = i;
-                    display.asyncExec(() -> {
-                        updateStatus("Drone " + drone.getId() + " in transit (" + progress + "/" + distance + ")");
-                    });
+    // Claims pkg (plus any consolidated companions) and the drone, then starts the flight.
+    // Returns false, with every claim undone, if either was taken by someone else, or if the
+    // flight, charging included, would deliver pkg after its deadline; pkg is then demoted.
+    private boolean dispatch(Package pkg, Drone drone) {
+        if (!claim(pkg)) {
+            return false;
+        }
+        String origin = drone.getCurrentLocation();
+        double charge = chargingScheduler == null ? drone.getCharge() : chargingScheduler.chargeNow(drone);
+        List<Package> consolidated = consolidate(pkg, drone);
+        FlightPlan plan = planFlight(origin, consolidated, drone, charge);
+        while (true) {
+            if (plan == null) {
+                if (consolidated.size() == 1) {
+                    release(pkg);
+                    return false;
+                }
+                // Some leg of the consolidated tour is unreachable, or the load is out of
+                // range; fly the head package alone
+                dropCompanions(pkg, consolidated);
+            } else {
+                Package late = firstLate(plan, charge);
+                if (late == null) {
+                    break;
+                }
+                if (late != pkg) {
+                    // Left for a drone that can still make it
+                    consolidated.remove(late);
+                    release(late);
+                } else if (consolidated.size() > 1) {
+                    // The tour puts it behind its companions
+                    dropCompanions(pkg, consolidated);
+                } else {
+                    // Charging on the way makes it late after all
+                    release(pkg);
+                    demote(pkg);
+                    return false;
                 }
-                
-                pkg.setStatus("delivered");
-                pkg.setCurrentLocation(pkg.getDropOffLocation());
-                drone.completeDelivery();
-                
-                display.asyncExec(() -> {
-                    updateStatus("Package " + pkg.getId() + " delivered by drone " + drone.getId());
-                    updateDroneViewer();
-                    updatePackageViewer();
-                });
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
             }
-        });
+            plan = planFlight(origin, consolidated, drone, charge);
+        }
+        List<Package> load = new ArrayList<>();
+        for (FlightPlan.Stop stop : plan.getStops()) {
+            load.addAll(stop.getPackages());
+        }
+        if (!drone.assignPackages(load, plan.getFinalLocation())) {
+            for (Package claimed : load) {
+                release(claimed);
+            }
+            return false;
+        }
+        droneIndex.remove(drone);
+        if (chargingScheduler != null) {
+            chargingScheduler.leave(drone);
+        }
+        metrics.recordAssignment(calculateShortestDistance(origin, pkg.getDropOffLocation()));
+
+        long now = clock.now();
+        for (FlightPlan.Stop stop : plan.getStops()) {
+            for (Package loaded : stop.getPackages()) {
+                loaded.setDispatchTime(now);
+                listeners.packageAssigned(loaded, drone, stop.getArrivalDistance());
+            }
+        }
+        FlightPlan flight = plan;
+        clock.schedule(0, () -> advanceFlight(drone, flight, 0));
+        return true;
     }
 
-    private void updateStatus(final String message) {
-        display.asyncExec(() -> {
-            statusText.setText(message + "\n" + statusText.getText());
-        });
+    // The flight for the load, with charging stops if the energy model is on; null if no
+    // tour reaches every drop-off or the battery cannot fly it
+    private FlightPlan planFlight(String origin, List<Package> load, Drone drone, double charge) {
+        FlightPlan plan = routePlanner.plan(origin, load);
+        EnergyPlanner planner = energyPlanner;
+        return plan == null || planner == null ? plan : planner.plan(plan, drone, charge);
+    }
+
+    private void dropCompanions(Package head, List<Package> load) {
+        for (Package companion : load) {
+            if (companion != head) {
+                release(companion);
+            }
+        }
+        load.clear();
+        load.add(head);
     }
 
-    private void updateDroneViewer() {
-        display.asyncExec(() -> {
-            droneViewer.setInput(drones.toArray());
-            droneViewer.refresh();
+    // The first package, in delivery order, that the flight would bring after its deadline.
+    // Each drop-off is reached after the flying before it plus, at every charging stop, the
+    // expected wait for a slot and the time to charge.
+    private Package firstLate(FlightPlan plan, double charge) {
+        long now = clock.now();
+        long charging = 0;
+        double energy = charge;
+        for (FlightPlan.Stop stop : plan.getStops()) {
+            energy -= stop.getEnergy();
+            if (stop.isCharging()) {
+                charging += chargingScheduler.expectedWaitMillis(routeTable.idOf(stop.getLocation()))
+                    + energyPlanner.getModel().chargeMillis(stop.getChargeTo() - energy);
+                energy = Math.max(energy, stop.getChargeTo());
+                continue;
+            }
+            long arrival = now + stop.getArrivalDistance() * MILLIS_PER_DISTANCE_UNIT + charging;
+            for (Package loaded : stop.getPackages()) {
+                if (loaded.hasDeadline() && !loaded.isLate() && arrival > loaded.getDeadline()) {
+                    return loaded;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Head package is already claimed; companions are claimed here as they are chosen. The
+    // load comes back in a list of its own, for dispatch to trim.
+    private List<Package> consolidate(Package head, Drone drone) {
+        double spare = drone.getMaxPayloadCapacity() - head.getWeight();
+        if (!consolidation || spare <= 0) {
+            List<Package> load = new ArrayList<>(1);
+            load.add(head);
+            return load;
+        }
+
+        int maxDetour = this.maxDetour;
+        payloadPacker.clear();
+        consolidationCandidates.clear();
+        int scanned = 0;
+        for (Package pkg : packageQueue) {
+            if (scanned++ == CONSOLIDATION_SCAN_LIMIT) {
+                break;
+            }
+            if (pkg == head || !isWaiting(pkg) || pkg.getWeight() > spare) {
+                continue;
+            }
+            if (calculateShortestDistance(head.getDropOffLocation(), pkg.getDropOffLocation()) > maxDetour) {
+                continue;
+            }
+            consolidationCandidates.add(pkg);
+            payloadPacker.add(pkg.getWeight(), routeTable.idOf(pkg.getDropOffLocation()));
+        }
+
+        int taken = payloadPacker.pack(spare, maxStops, routeTable.idOf(head.getDropOffLocation()));
+        List<Package> load = new ArrayList<>(taken + 1);
+        load.add(head);
+        for (int i = 0; i < taken; i++) {
+            Package companion = consolidationCandidates.get(payloadPacker.selected(i));
+            if (claim(companion)) {
+                load.add(companion);
+            }
+        }
+        consolidationCandidates.clear();
+        return load;
+    }
+
+    // With an energy model, the nearest drone whose battery covers the trip, charging
+    // stops included. The search starts with the nearest few and widens until every capable
+    // drone has been tried; a package none can reach waits, and the nearest drone that could
+    // fly it after charging is noted for rechargeForBlockedOrders.
+    private Drone findAvailableDrone(Package pkg) {
+        if (energyPlanner == null) {
+            return droneIndex.nearest(pkg.getDropOffLocation(), pkg.getWeight());
+        }
+        Drone recharge = null;
+        int checked = 0;
+        for (int limit = RANGE_CANDIDATES; ; limit *= RANGE_CANDIDATES) {
+            rangeCandidates.clear();
+            droneIndex.collectNearest(pkg.getDropOffLocation(), pkg.getWeight(), limit, rangeCandidates);
+            // Each wider search repeats the narrower one first, so only the new drones are tried
+            for (int i = checked; i < rangeCandidates.size(); i++) {
+                Drone drone = rangeCandidates.get(i);
+                if (poweredDistance(pkg, drone) != RouteTable.UNREACHABLE) {
+                    rangeCandidates.clear();
+                    return drone;
+                }
+                if (recharge == null && !rangeBlocked.containsKey(pkg) && !rangeBlocked.containsValue(drone)
+                    && canFlyAfterCharging(pkg, drone)) {
+                    recharge = drone;
+                }
+            }
+            if (rangeCandidates.size() < limit) {
+                break;
+            }
+            checked = rangeCandidates.size();
+        }
+        rangeCandidates.clear();
+        if (recharge != null) {
+            rangeBlocked.put(pkg, recharge);
+        }
+        return null;
+    }
+
+    // Whether an idle drone away from the chargers could fly the package on a full battery
+    // from the charger it would go to
+    private boolean canFlyAfterCharging(Package pkg, Drone drone) {
+        if (!drone.hasLimitedRange() || routeTable.getGraph().isChargingStation(drone.getCurrentLocation())) {
+            return false;
+        }
+        FlightPlan trip = energyPlanner.planRecharge(drone);
+        if (trip == null) {
+            return false;
+        }
+        FlightPlan plan = routePlanner.plan(trip.getFinalLocation(), Collections.singletonList(pkg));
+        return plan != null && energyPlanner.plan(plan, drone, drone.getBatteryCapacity()) != null;
+    }
+
+    // Length of the drone's single-package flight including any charging detours, or
+    // UNREACHABLE if its battery cannot make it
+    private int poweredDistance(Package pkg, Drone drone) {
+        FlightPlan plan = routePlanner.plan(drone.getCurrentLocation(), Collections.singletonList(pkg));
+        if (plan == null) {
+            return RouteTable.UNREACHABLE;
+        }
+        FlightPlan powered = energyPlanner.plan(plan, drone, chargingScheduler.chargeNow(drone));
+        return powered == null ? RouteTable.UNREACHABLE : powered.getTotalDistance();
+    }
+
+    private int calculateShortestDistance(String start, String end) {
+        return routeTable.distance(start, end);
+    }
+
+    public void updateRoute(String from, String to, int distance) {
+        routeTable.setEdge(from, to, distance);
+    }
+
+    public void removeRoute(String from, String to) {
+        routeTable.removeEdge(from, to);
+    }
+
+    // Point-to-point routing for distance lookups; large maps want A_STAR or CONTRACTION_HIERARCHY
+    public void setRouting(RouteTable.Routing routing) {
+        routeTable.setRouting(routing);
+    }
+
+    // Delivers every stop reached at this distance, then schedules the next progress tick. A
+    // charging stop pauses the flight until the scheduler has charged the drone.
+    private void advanceFlight(Drone drone, FlightPlan plan, int progress) {
+        FlightPlan.Stop stop;
+        while ((stop = plan.peekStop()) != null && stop.getArrivalDistance() <= progress) {
+            plan.pollStop();
+            if (drone.hasLimitedRange()) {
+                drone.setCharge(drone.getCharge() - stop.getEnergy());
+            }
+            if (stop.isCharging()) {
+                drone.setCurrentLocation(stop.getLocation());
+                chargingScheduler.request(drone, stop.getLocation(), stop.getChargeTo(), plan.carriesPackages(),
+                                          () -> advanceFlight(drone, plan, progress));
+                return;
+            }
+            deliverStop(drone, plan, stop, plan.peekStop() == null);
+        }
+        if (plan.peekStop() == null) {
+            return;
+        }
+
+        int total = plan.getTotalDistance();
+        clock.schedule(MILLIS_PER_DISTANCE_UNIT, () -> {
+            int next = progress + 1;
+            Package heading = drone.getCurrentPackage();
+            if (heading != null) {
+                listeners.deliveryProgress(heading, drone, next, total);
+            }
+            advanceFlight(drone, plan, next);
         });
     }
 
-    private void updatePackageViewer() {
+    private void deliverStop(Drone drone, FlightPlan plan, FlightPlan.Stop stop, boolean lastStop) {
+        long now = clock.now();
+        for (Package pkg : stop.getPackages()) {
+            pkg.setStatus(PackageStatus.DELIVERED);
+            pkg.setCurrentLocation(stop.getLocation());
+            pkg.setDeliveryTime(now);
+            drone.deliverPackage(pkg, stop.getLocation());
+        }
+        if (lastStop) {
+            if (plan.carriesPackages()) {
+                metrics.recordFlightCompleted();
+            }
+            drone.completeDelivery();
+        }
+
+        for (Package pkg : stop.getPackages()) {
+            listeners.packageDelivered(pkg, drone);
+        }
+        listeners.stopReached(drone, stop);
+    }
+
+    public void addListener(DeliveryListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(DeliveryListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Receives exceptions thrown by listeners and by dispatch passes, which are otherwise
+    // passed to the running thread's uncaught exception handler. Either way the next
+    // listener is still called and the dispatcher carries on.
+    public void setErrorHandler(Consumer<RuntimeException> handler) {
+        this.errorHandler = handler;
+        listeners.setErrorHandler(handler);
+    }
+
+    public DeliveryMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void addMetricsExporter(MetricsExporter exporter) {
+        exporter.start(metrics);
+        exporters.add(exporter);
+    }
+
+    public LocationGraph getLocationGraph() {
+        return routeTable.getGraph();
+    }
+
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    public List<Drone> getDrones() {
+        return Collections.unmodifiableList(drones);
+    }
+
+    // Packages currently held by a drone followed by those still waiting in the queue
+    public List<Package> getPackages() {
         List<Package> allPackages = new ArrayList<>();
         for (Drone drone : drones) {
-            if (drone.getCurrentPackage() != null) {
-                allPackages.add(drone.getCurrentPackage());
+            allPackages.addAll(drone.getPackages());
+        }
+        for (Package pkg : packageQueue) {
+            if (isWaiting(pkg)) {
+                allPackages.add(pkg);
             }
         }
-        allPackages.addAll(packageQueue);
-        
-        display.asyncExec(() -> {
-            packageViewer.setInput(allPackages.toArray());
-            packageViewer.refresh();
-        });
+        return allPackages;
     }
 
+    // Stops at once. Flights still in the air are cancelled where they are and their packages
+    // are left undelivered; with a journal they are recovered on the next start.
     public void shutdown() {
-        executorService.shutdown();
+        stopDispatcher();
+        clock.cancel();
+        stopExporters();
+    }
+
+    // Lets flights and other scheduled events run for up to the timeout first
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
         try {
-            if (!executorService.awaitTermination(60, TimeUnit.SECONDS)) {
-                executorService.shutdownNow();
-            }
+            clock.shutdown(timeout, unit);
+        } finally {
+            stopDispatcher();
+            stopExporters();
+        }
+    }
+
+    private void stopDispatcher() {
+        running = false;
+        if (dispatcher == null) {
+            return;
+        }
+        LockSupport.unpark(dispatcher);
+        try {
+            // At most the end of the pass it is in
+            dispatcher.join(DISPATCHER_STOP_MILLIS);
         } catch (InterruptedException e) {
-            executorService.shutdownNow();
             Thread.currentThread().interrupt();
         }
     }
-}
\ No newline at end of file
+
+    private void stopExporters() {
+        for (MetricsExporter exporter : exporters) {
+            exporter.stop();
+        }
+    }
+}
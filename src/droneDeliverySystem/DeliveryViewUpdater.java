@@ -0,0 +1,172 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import org.eclipse.swt.widgets.*;
+import org.eclipse.jface.viewers.*;
+
+// Mirrors DeliverySystem events into the SWT viewers and status log. Engine threads only
+// record what changed; a fixed-rate frame on the UI thread then adds and removes package
+// rows and updates just the dirty elements, so the UI does bounded work however many
+// events arrive between frames.
+class DeliveryViewUpdater implements DeliveryListener {
+    private static final int FRAME_MILLIS = 50;
+    private static final int LOG_CAPACITY = 500;
+
+    private DeliverySystem deliverySystem;
+    private Display display;
+    private TableViewer droneViewer;
+    private TableViewer packageViewer;
+    private Text statusText;
+    private final StatusLog log = new StatusLog(LOG_CAPACITY);
+    private final Queue<Package> addedPackages = new ConcurrentLinkedQueue<>();
+    private final Queue<Package> removedPackages = new ConcurrentLinkedQueue<>();
+    private final Set<Package> dirtyPackages = ConcurrentHashMap.newKeySet();
+    private final Set<Drone> dirtyDrones = ConcurrentHashMap.newKeySet();
+    // Rows currently shown in the package table; only touched on the UI thread
+    private final Set<Package> packageRows = new LinkedHashSet<>();
+    private long renderedLogVersion;
+
+    public DeliveryViewUpdater(DeliverySystem deliverySystem, Display display, TableViewer droneViewer, TableViewer packageViewer, Text statusText) {
+        this.deliverySystem = deliverySystem;
+        this.display = display;
+        this.droneViewer = droneViewer;
+        this.packageViewer = packageViewer;
+        this.statusText = statusText;
+    }
+
+    // Must be called on the UI thread; frames keep running until the tables are disposed
+    public void start() {
+        packageRows.addAll(deliverySystem.getPackages());
+        droneViewer.setInput(deliverySystem.getDrones());
+        packageViewer.setInput(packageRows);
+        display.timerExec(FRAME_MILLIS, this::renderFrame);
+    }
+
+    public void log(String message) {
+        log.add(message);
+    }
+
+    @Override
+    public void packageQueued(Package pkg) {
+        log("Package " + pkg.getId() + " added to queue");
+        addedPackages.add(pkg);
+    }
+
+    @Override
+    public void packageRequeued(Package pkg) {
+        log("No available drones for package " + pkg.getId() + ". Requeuing.");
+    }
+
+    @Override
+    public void packageAssigned(Package pkg, Drone drone, int distance) {
+        log("Assigning package " + pkg.getId() + " to drone " + drone.getId());
+        dirtyDrones.add(drone);
+        dirtyPackages.add(pkg);
+        log("Drone " + drone.getId() + " delivering package " + pkg.getId() + 
+            " to " + pkg.getDropOffLocation() + ". ETA: " + distance + "s");
+    }
+
+    @Override
+    public void deliveryProgress(Package pkg, Drone drone, int progress, int distance) {
+        log("Drone " + drone.getId() + " in transit (" + progress + "/" + distance + ")");
+    }
+
+    @Override
+    public void packageDelivered(Package pkg, Drone drone) {
+        log("Package " + pkg.getId() + " delivered by drone " + drone.getId());
+        dirtyDrones.add(drone);
+        removedPackages.add(pkg);
+    }
+
+    @Override
+    public void stopReached(Drone drone, FlightPlan.Stop stop) {
+        dirtyDrones.add(drone);
+    }
+
+    @Override
+    public void droneRelocating(Drone drone, FlightPlan trip) {
+        log("Drone " + drone.getId() + " relocating to " + trip.getFinalLocation() + ". ETA: " + trip.getTotalDistance() + "s");
+        dirtyDrones.add(drone);
+    }
+
+    @Override
+    public void chargingStarted(Drone drone, String station, long waitedMillis) {
+        log("Drone " + drone.getId() + " charging at " + station + (waitedMillis > 0 ? " after waiting " + waitedMillis / 1000 + "s" : ""));
+        dirtyDrones.add(drone);
+    }
+
+    @Override
+    public void chargingFinished(Drone drone, String station) {
+        log("Drone " + drone.getId() + " left the charger at " + station
+            + " (" + Math.round(100 * drone.getCharge() / drone.getBatteryCapacity()) + "%)");
+        dirtyDrones.add(drone);
+    }
+
+    private void renderFrame() {
+        if (packageViewer.getTable().isDisposed() || droneViewer.getTable().isDisposed()) {
+            return;
+        }
+        renderPackages();
+        renderDrones();
+        renderLog();
+        display.timerExec(FRAME_MILLIS, this::renderFrame);
+    }
+
+    // Delivered packages leave the table, as before. One queued and delivered within the
+    // same frame is skipped on add, since its removal may already have been drained.
+    private void renderPackages() {
+        List<Package> added = new ArrayList<>();
+        Package pkg;
+        while ((pkg = addedPackages.poll()) != null) {
+            if (pkg.getStatus() != PackageStatus.DELIVERED && packageRows.add(pkg)) {
+                added.add(pkg);
+            }
+        }
+        if (!added.isEmpty()) {
+            packageViewer.add(added.toArray());
+        }
+
+        List<Package> removed = new ArrayList<>();
+        while ((pkg = removedPackages.poll()) != null) {
+            if (packageRows.remove(pkg)) {
+                removed.add(pkg);
+            }
+        }
+        if (!removed.isEmpty()) {
+            packageViewer.remove(removed.toArray());
+        }
+
+        List<Package> changed = new ArrayList<>();
+        for (Iterator<Package> dirty = dirtyPackages.iterator(); dirty.hasNext(); ) {
+            pkg = dirty.next();
+            dirty.remove();
+            if (packageRows.contains(pkg)) {
+                changed.add(pkg);
+            }
+        }
+        if (!changed.isEmpty()) {
+            packageViewer.update(changed.toArray(), null);
+        }
+    }
+
+    private void renderDrones() {
+        List<Drone> changed = new ArrayList<>();
+        for (Iterator<Drone> dirty = dirtyDrones.iterator(); dirty.hasNext(); ) {
+            changed.add(dirty.next());
+            dirty.remove();
+        }
+        if (!changed.isEmpty()) {
+            droneViewer.update(changed.toArray(), null);
+        }
+    }
+
+    private void renderLog() {
+        long version = log.getVersion();
+        if (version != renderedLogVersion) {
+            renderedLogVersion = version;
+            statusText.setText(log.text());
+        }
+    }
+}
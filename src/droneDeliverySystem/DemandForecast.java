@@ -0,0 +1,110 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+// Order arrivals per drop-off location over a sliding window of equal buckets. A location's
+// forecast rate weights each bucket by how recent it is (halving every half window), so a
+// hotspot that has cooled off fades before it drops out of the window entirely. Only
+// locations that have seen orders take any memory.
+class DemandForecast {
+    private static final int BUCKETS = 12;
+
+    private final long bucketMillis;
+    private final double[] weights = new double[BUCKETS];
+    private final double weightSum;
+    // Ring of counts per location, indexed by bucket number modulo BUCKETS
+    private final Map<Integer, int[]> counts = new HashMap<>();
+    private long currentBucket = Long.MIN_VALUE;
+
+    public DemandForecast(long windowMillis) {
+        if (windowMillis < BUCKETS) {
+            throw new IllegalArgumentException("Forecast window too short: " + windowMillis + "ms");
+        }
+        this.bucketMillis = windowMillis / BUCKETS;
+        double sum = 0;
+        for (int age = 0; age < BUCKETS; age++) {
+            weights[age] = Math.pow(0.5, age / (BUCKETS / 2.0));
+            sum += weights[age];
+        }
+        this.weightSum = sum;
+    }
+
+    public long getWindowMillis() {
+        return bucketMillis * BUCKETS;
+    }
+
+    public synchronized void record(int location, long now) {
+        advance(now);
+        counts.computeIfAbsent(location, k -> new int[BUCKETS])[index(currentBucket)]++;
+    }
+
+    // Up to limit locations with the highest expected orders per millisecond, busiest first
+    public synchronized List<Hotspot> hotspots(long now, int limit) {
+        advance(now);
+        PriorityQueue<Hotspot> top = new PriorityQueue<>(Comparator.comparingDouble(Hotspot::getRate));
+        for (Map.Entry<Integer, int[]> entry : counts.entrySet()) {
+            double rate = rate(entry.getValue());
+            if (rate <= 0) {
+                continue;
+            }
+            if (top.size() < limit) {
+                top.add(new Hotspot(entry.getKey(), rate));
+            } else if (rate > top.peek().getRate()) {
+                top.poll();
+                top.add(new Hotspot(entry.getKey(), rate));
+            }
+        }
+        List<Hotspot> busiest = new ArrayList<>(top);
+        busiest.sort(Comparator.comparingDouble(Hotspot::getRate).reversed());
+        return busiest;
+    }
+
+    // Weighted mean arrivals per bucket, as orders per millisecond
+    private double rate(int[] ring) {
+        double weighted = 0;
+        for (int age = 0; age < BUCKETS; age++) {
+            weighted += weights[age] * ring[index(currentBucket - age)];
+        }
+        return weighted / weightSum / bucketMillis;
+    }
+
+    // Clears buckets that have slid out of the window, dropping locations left with no orders
+    private void advance(long now) {
+        long bucket = now / bucketMillis;
+        if (bucket <= currentBucket) {
+            return;
+        }
+        long expired = currentBucket == Long.MIN_VALUE ? BUCKETS : Math.min(BUCKETS, bucket - currentBucket);
+        for (Iterator<int[]> rings = counts.values().iterator(); rings.hasNext(); ) {
+            int[] ring = rings.next();
+            int total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                if (i < expired) {
+                    ring[index(bucket - i)] = 0;
+                }
+                total += ring[i];
+            }
+            if (total == 0) {
+                rings.remove();
+            }
+        }
+        currentBucket = bucket;
+    }
+
+    private static int index(long bucket) {
+        return (int) Math.floorMod(bucket, (long) BUCKETS);
+    }
+
+    static class Hotspot {
+        private final int location;
+        private final double rate;
+
+        Hotspot(int location, double rate) {
+            this.location = location;
+            this.rate = rate;
+        }
+
+        public int getLocation() { return location; }
+        public double getRate() { return rate; }
+    }
+}
@@ -1,63 +1,123 @@
 package droneDeliverySystem;
 
-import java.util.concurrent.locks.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
+// Availability is a CAS-claimed flag: whoever flips it from true to false owns the drone
+// until completeDelivery releases it. Only the owner writes the other fields, and readers
+// see the payload as an immutable snapshot.
+//
+// Battery charge is in watt-hours. A drone built without a battery capacity has unlimited
+// range, as every drone had before energy was modelled.
 class Drone {
     private String id;
     private double maxPayloadCapacity;
-    private String currentLocation;
-    private String targetLocation;
-    private boolean available;
-    private final Lock lock = new ReentrantLock();
-    private Package currentPackage;
+    private final double batteryCapacity;
+    private volatile double charge;
+    private volatile String currentLocation;
+    private volatile String targetLocation;
+    private final AtomicBoolean available = new AtomicBoolean(true);
+    private volatile List<Package> payload = Collections.emptyList();
+    private volatile Consumer<Drone> availabilityListener;
 
     public Drone(String id, double maxPayloadCapacity, String initialLocation) {
+        this(id, maxPayloadCapacity, initialLocation, Double.POSITIVE_INFINITY);
+    }
+
+    // Starts fully charged
+    public Drone(String id, double maxPayloadCapacity, String initialLocation, double batteryCapacity) {
+        if (!(batteryCapacity > 0)) {
+            throw new IllegalArgumentException("Invalid battery capacity " + batteryCapacity + " for drone " + id);
+        }
         this.id = id;
         this.maxPayloadCapacity = maxPayloadCapacity;
         this.currentLocation = initialLocation;
         this.targetLocation = initialLocation;
-        this.available = true;
+        this.batteryCapacity = batteryCapacity;
+        this.charge = batteryCapacity;
     }
 
     public String getId() { return id; }
     public double getMaxPayloadCapacity() { return maxPayloadCapacity; }
     public String getCurrentLocation() { return currentLocation; }
     public String getTargetLocation() { return targetLocation; }
-    public boolean isAvailable() { return available; }
-    public Package getCurrentPackage() { return currentPackage; }
+    public boolean isAvailable() { return available.get(); }
+    public List<Package> getPackages() { return payload; }
+    public double getBatteryCapacity() { return batteryCapacity; }
+    public double getCharge() { return charge; }
+    public boolean hasLimitedRange() { return batteryCapacity != Double.POSITIVE_INFINITY; }
 
     public void setCurrentLocation(String location) { this.currentLocation = location; }
     public void setTargetLocation(String location) { this.targetLocation = location; }
+    public void setCharge(double charge) { this.charge = Math.max(0, Math.min(batteryCapacity, charge)); }
+    public void setAvailabilityListener(Consumer<Drone> listener) { this.availabilityListener = listener; }
+
+    // Next package still on board, or null when idle
+    public Package getCurrentPackage() {
+        List<Package> onBoard = payload;
+        return onBoard.isEmpty() ? null : onBoard.get(0);
+    }
+
+    public double getPayloadWeight() {
+        double weight = 0;
+        for (Package pkg : payload) {
+            weight += pkg.getWeight();
+        }
+        return weight;
+    }
 
     public boolean assignPackage(Package pkg) {
-        lock.lock();
-        try {
-            if (available && pkg.getWeight() <= maxPayloadCapacity) {
-                available = false;
-                targetLocation = pkg.getDropOffLocation();
-                currentPackage = pkg;
-                return true;
-            }
+        return assignPackages(Collections.singletonList(pkg), pkg.getDropOffLocation());
+    }
+
+    // Claims the drone and loads packages in delivery order for a flight ending at finalLocation
+    public boolean assignPackages(List<Package> packages, String finalLocation) {
+        double weight = 0;
+        for (Package pkg : packages) {
+            weight += pkg.getWeight();
+        }
+        if (packages.isEmpty() || weight > maxPayloadCapacity || !available.compareAndSet(true, false)) {
+            return false;
+        }
+        targetLocation = finalLocation;
+        payload = Collections.unmodifiableList(new ArrayList<>(packages));
+        return true;
+    }
+
+    // Claims the drone for an empty flight, such as to a charger; completeDelivery releases it
+    public boolean relocate(String destination) {
+        if (!available.compareAndSet(true, false)) {
             return false;
-        } finally {
-            lock.unlock();
         }
+        targetLocation = destination;
+        payload = Collections.emptyList();
+        return true;
+    }
+
+    // Drops one package at an intermediate stop
+    public void deliverPackage(Package pkg, String location) {
+        List<Package> remaining = new ArrayList<>(payload);
+        remaining.remove(pkg);
+        payload = Collections.unmodifiableList(remaining);
+        currentLocation = location;
     }
 
     public void completeDelivery() {
-        lock.lock();
-        try {
-            currentLocation = targetLocation;
-            available = true;
-            currentPackage = null;
-        } finally {
-            lock.unlock();
+        currentLocation = targetLocation;
+        payload = Collections.emptyList();
+        available.set(true);
+        Consumer<Drone> listener = availabilityListener;
+        if (listener != null) {
+            listener.accept(this);
         }
     }
 
     @Override
     public String toString() {
-        return id + " (" + maxPayloadCapacity + "kg cap) at " + currentLocation + 
-               (available ? " - Available" : " - Delivering " + currentPackage.getId() + " to " + targetLocation);
+        Package next = getCurrentPackage();
+        String battery = hasLimitedRange() ? ", " + Math.round(100 * charge / batteryCapacity) + "% battery" : "";
+        return id + " (" + maxPayloadCapacity + "kg cap" + battery + ") at " + currentLocation + 
+               (isAvailable() || next == null ? " - Available" : " - Delivering " + next.getId() + " to " + targetLocation);
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,8 @@ package droneDeliverySystem;
 
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
 import org.eclipse.swt.SWT;
@@ -16,7 +18,12 @@ public class DroneDeliverySystemGUI {
     private TableViewer droneViewer;
     private TableViewer packageViewer;
     private Text statusText;
-    private int packageCounter = 1;
+    private DeliveryViewUpdater viewUpdater;
+    private DeliveryJournal journal;
+    private LocationGraph locationGraph;
+    private final PackageIdSequence packageIds = new PackageIdSequence("PKG-");
+    private OrderStream orderStream;
+    private OrderLog orderLog;
 
     public static void main(String[] args) {
         try {
@@ -27,22 +34,79 @@ public class DroneDeliverySystemGUI {
         }
     }
 
-    public void open() {
+    public void open() throws IOException {
         Display display = Display.getDefault();
+        
+        // City map: a CSV or binary graph file if one is given, else the built-in demo city
+        String graphFile = System.getProperty("droneDelivery.graph");
+        locationGraph = graphFile == null ? LocationGraph.defaultCity() : LocationGraph.load(Paths.get(graphFile));
+        String coordinatesFile = System.getProperty("droneDelivery.coordinates");
+        if (coordinatesFile != null) {
+            locationGraph = locationGraph.withCoordinates(Paths.get(coordinatesFile));
+        }
+        String chargersFile = System.getProperty("droneDelivery.chargers");
+        if (chargersFile != null) {
+            locationGraph = locationGraph.withChargingStations(Paths.get(chargersFile));
+        }
         createContents();
         
         // Initialise drones
+        String depot = locationGraph.idOf(LocationGraph.WAREHOUSE) >= 0 ? LocationGraph.WAREHOUSE : locationGraph.nameOf(0);
         List<Drone> drones = new ArrayList<>();
-        drones.add(new Drone("DR-001", 5.0, "Warehouse"));
-        drones.add(new Drone("DR-002", 3.0, "Warehouse"));
-        drones.add(new Drone("DR-003", 7.0, "Warehouse"));
+        drones.add(new Drone("DR-001", 5.0, depot, 200));
+        drones.add(new Drone("DR-002", 3.0, depot, 200));
+        drones.add(new Drone("DR-003", 7.0, depot, 200));
         
-        // Create delivery system
-        deliverySystem = new DeliverySystem(drones, display, droneViewer, packageViewer, statusText);
+        // Create delivery system, picking up any orders left over from the last run
+        journal = DeliveryJournal.open(Paths.get(System.getProperty("droneDelivery.journal", "journal")));
+        // Flight callbacks on the clock thread by default; VIRTUAL_THREADS needs Java 21
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.REAL_TIME);
+        ExecutionBackend execution = ExecutionBackend.valueOf(System.getProperty("droneDelivery.execution", "CLOCK_THREAD"));
+        if (execution.isSupported()) {
+            clock.useExecution(execution);
+        }
+        deliverySystem = new DeliverySystem(drones, clock, locationGraph);
+        deliverySystem.setRouting(RouteTable.Routing.valueOf(System.getProperty("droneDelivery.routing", "ROWS")));
+        // Batteries only matter where there is somewhere to charge them
+        if (locationGraph.hasChargingStations()) {
+            deliverySystem.useEnergyModel(EnergyModel.defaultModel());
+        }
+        viewUpdater = new DeliveryViewUpdater(deliverySystem, display, droneViewer, packageViewer, statusText);
+        deliverySystem.addListener(viewUpdater);
+        clock.setErrorHandler(e -> viewUpdater.log("Simulation error: " + e));
+        deliverySystem.setErrorHandler(e -> viewUpdater.log("Delivery error: " + e));
+        if (!execution.isSupported()) {
+            viewUpdater.log(execution + " is not available on this Java version; using " + clock.getExecution());
+        }
+        deliverySystem.restore(journal.getRecovery());
+        deliverySystem.addListener(journal);
+        journal.setErrorHandler(e -> viewUpdater.log("Journal stopped: " + e));
+        if (journal.getRecovery().getPendingCount() > 0) {
+            viewUpdater.log("Recovered " + journal.getRecovery().getPendingCount() + " undelivered packages");
+        }
+        for (Package pkg : journal.getRecovery().getPendingPackages()) {
+            packageIds.skipPast(pkg.getId());
+        }
+        
+        // Orders placed from here on can be recorded for replay
+        String orderLogFile = System.getProperty("droneDelivery.orderLog");
+        if (orderLogFile != null) {
+            orderLog = OrderLog.create(Paths.get(orderLogFile));
+            orderLog.setErrorHandler(e -> viewUpdater.log("Order log stopped: " + e));
+            deliverySystem.addListener(orderLog);
+        }
         
-        // Initial viewer updates
-        droneViewer.setInput(drones.toArray());
-        packageViewer.setInput(new Package[0]);
+        // Upstream systems can stream orders in over a socket, held back while the queue is full
+        deliverySystem.useOrderLimit(Integer.getInteger("droneDelivery.orderLimit", Integer.MAX_VALUE));
+        Integer orderPort = Integer.getInteger("droneDelivery.orderPort");
+        if (orderPort != null) {
+            orderStream = new OrderStream(deliverySystem, packageIds, 1000);
+            orderStream.listen(orderPort);
+            viewUpdater.log("Accepting orders on port " + orderStream.getPort());
+        }
+        
+        // Initial viewer contents; the updater refreshes them at a fixed frame rate from here on
+        viewUpdater.start();
         
         shell.open();
         shell.layout();
@@ -52,7 +116,17 @@ public class DroneDeliverySystemGUI {
             }
         }
         
+        if (orderStream != null) {
+            orderStream.close();
+        }
         deliverySystem.shutdown();
+        try {
+            journal.close();
+        } finally {
+            if (orderLog != null) {
+                orderLog.close();
+            }
+        }
     }
 
     protected void createContents() {
@@ -88,6 +162,10 @@ public class DroneDeliverySystemGUI {
         droneStatusCol.setText("Status");
         droneStatusCol.setWidth(200);
         
+        TableColumn droneBatteryCol = new TableColumn(droneTable, SWT.NONE);
+        droneBatteryCol.setText("Battery");
+        droneBatteryCol.setWidth(70);
+        
         droneViewer.setContentProvider(new ArrayContentProvider());
         droneViewer.setLabelProvider(new StyledCellLabelProvider() {
             @Override
@@ -102,10 +180,15 @@ public class DroneDeliverySystemGUI {
                             cell.setText("Available");
                             cell.setForeground(cell.getControl().getDisplay().getSystemColor(SWT.COLOR_DARK_GREEN));
                         } else {
-                            cell.setText("Delivering " + drone.getCurrentPackage().getId());
+                            List<Package> onBoard = drone.getPackages();
+                            cell.setText(onBoard.isEmpty() ? "Returning" :
+                                         "Delivering " + onBoard.get(0).getId() + (onBoard.size() > 1 ? " +" + (onBoard.size() - 1) : ""));
                             cell.setForeground(cell.getControl().getDisplay().getSystemColor(SWT.COLOR_DARK_RED));
                         }
                         break;
+                    case 4:
+                        cell.setText(drone.hasLimitedRange() ? Math.round(100 * drone.getCharge() / drone.getBatteryCapacity()) + "%" : "-");
+                        break;
                 }
             }
         });
@@ -133,6 +216,10 @@ public class DroneDeliverySystemGUI {
         pkgDestCol.setText("Destination");
         pkgDestCol.setWidth(100);
         
+        TableColumn pkgPriorityCol = new TableColumn(packageTable, SWT.NONE);
+        pkgPriorityCol.setText("Priority");
+        pkgPriorityCol.setWidth(80);
+        
         TableColumn pkgStatusCol = new TableColumn(packageTable, SWT.NONE);
         pkgStatusCol.setText("Status");
         pkgStatusCol.setWidth(200);
@@ -146,11 +233,12 @@ public class DroneDeliverySystemGUI {
                     case 0: cell.setText(pkg.getId()); break;
                     case 1: cell.setText(pkg.getWeight() + " kg"); break;
                     case 2: cell.setText(pkg.getDropOffLocation()); break;
-                    case 3: 
-                        cell.setText(pkg.getStatus());
-                        if ("delivered".equals(pkg.getStatus())) {
+                    case 3: cell.setText(pkg.getPriority().toString()); break;
+                    case 4: 
+                        cell.setText(pkg.getStatus().toString());
+                        if (pkg.getStatus() == PackageStatus.DELIVERED) {
                             cell.setForeground(cell.getControl().getDisplay().getSystemColor(SWT.COLOR_DARK_GREEN));
-                        } else if ("on its way".equals(pkg.getStatus())) {
+                        } else if (pkg.getStatus() == PackageStatus.ON_ITS_WAY) {
                             cell.setForeground(cell.getControl().getDisplay().getSystemColor(SWT.COLOR_DARK_BLUE));
                         } else {
                             cell.setForeground(cell.getControl().getDisplay().getSystemColor(SWT.COLOR_DARK_YELLOW));
@@ -168,7 +256,7 @@ public class DroneDeliverySystemGUI {
         // Package creation controls
         Composite createPanel = new Composite(controlPanel, SWT.BORDER);
         createPanel.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
-        createPanel.setLayout(new GridLayout(3, false));
+        createPanel.setLayout(new GridLayout(4, false));
         
         Label weightLabel = new Label(createPanel, SWT.NONE);
         weightLabel.setText("Weight (kg):");
@@ -177,11 +265,21 @@ public class DroneDeliverySystemGUI {
         weightText.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
         
         Combo locationCombo = new Combo(createPanel, SWT.DROP_DOWN | SWT.READ_ONLY);
-        locationCombo.setItems(new String[] {"Downtown", "Uptown", "Airport"});
+        for (String location : locationGraph.getLocations()) {
+            if (!location.equals(LocationGraph.WAREHOUSE)) {
+                locationCombo.add(location);
+            }
+        }
         locationCombo.select(0);
         
+        Combo priorityCombo = new Combo(createPanel, SWT.DROP_DOWN | SWT.READ_ONLY);
+        for (PackagePriority priority : PackagePriority.values()) {
+            priorityCombo.add(priority.toString());
+        }
+        priorityCombo.select(PackagePriority.STANDARD.ordinal());
+        
         Button createButton = new Button(createPanel, SWT.PUSH);
-        createButton.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, false, false, 3, 1));
+        createButton.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, false, false, 4, 1));
         createButton.setText("Create Package");
         createButton.addSelectionListener(new SelectionAdapter() {
             @Override
@@ -189,15 +287,19 @@ public class DroneDeliverySystemGUI {
                 try {
                     double weight = Double.parseDouble(weightText.getText());
                     if (weight <= 0) {
-                        statusText.setText("Weight must be positive\n" + statusText.getText());
+                        viewUpdater.log("Weight must be positive");
                         return;
                     }
                     String destination = locationCombo.getText();
-                    Package pkg = new Package("PKG-" + packageCounter++, weight, destination);
-                    deliverySystem.placeOrder(pkg);
+                    PackagePriority priority = PackagePriority.values()[priorityCombo.getSelectionIndex()];
+                    Package pkg = new Package(packageIds.next(), weight, destination, priority, Package.NO_DEADLINE);
+                    if (!deliverySystem.offerOrder(pkg)) {
+                        viewUpdater.log("Queue full, " + pkg.getId() + " rejected");
+                        return;
+                    }
                     weightText.setText("");
                 } catch (NumberFormatException ex) {
-                    statusText.setText("Invalid weight format\n" + statusText.getText());
+                    viewUpdater.log("Invalid weight format");
                 }
             }
         });
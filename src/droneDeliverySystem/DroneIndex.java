@@ -0,0 +1,129 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Available drones bucketed by location id and then by payload capacity. Lookups walk
+// outward from the drop-off in shortest-path order and stop at the first node holding a
+// drone that can lift the package, so only drones near the target are ever looked at.
+// Each location is its own lock stripe; a returned drone still has to be claimed with
+// Drone.assignPackages, which fails if another dispatcher got there first.
+class DroneIndex {
+    private final RouteTable routeTable;
+    private final ConcurrentMap<Integer, TreeMap<Double, Deque<Drone>>> byLocation = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public DroneIndex(RouteTable routeTable) {
+        this.routeTable = routeTable;
+    }
+
+    public int size() { return size.get(); }
+    public boolean isEmpty() { return size.get() == 0; }
+
+    // A drone becomes available before it is indexed, so a flight or relocation may claim it
+    // in between. Claimants remove the drone after claiming it, under the same stripe lock,
+    // so checking availability under the lock means a claimed drone is either never added or
+    // removed again by its claimant. False if the drone was claimed or is already indexed.
+    public boolean add(Drone drone) {
+        int location = routeTable.idOf(drone.getCurrentLocation());
+        while (true) {
+            TreeMap<Double, Deque<Drone>> byCapacity = byLocation.computeIfAbsent(location, k -> new TreeMap<>());
+            synchronized (byCapacity) {
+                // A stripe emptied and unlinked by remove() must not be reused
+                if (byLocation.get(location) != byCapacity) {
+                    continue;
+                }
+                Deque<Drone> bucket = byCapacity.get(drone.getMaxPayloadCapacity());
+                if (!drone.isAvailable() || bucket != null && bucket.contains(drone)) {
+                    if (byCapacity.isEmpty()) {
+                        byLocation.remove(location, byCapacity);
+                    }
+                    return false;
+                }
+                byCapacity.computeIfAbsent(drone.getMaxPayloadCapacity(), k -> new ArrayDeque<>()).add(drone);
+                size.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    public boolean remove(Drone drone) {
+        int location = routeTable.idOf(drone.getCurrentLocation());
+        TreeMap<Double, Deque<Drone>> byCapacity = byLocation.get(location);
+        if (byCapacity == null) {
+            return false;
+        }
+        synchronized (byCapacity) {
+            Deque<Drone> bucket = byCapacity.get(drone.getMaxPayloadCapacity());
+            if (bucket == null || !bucket.remove(drone)) {
+                return false;
+            }
+            if (bucket.isEmpty()) {
+                byCapacity.remove(drone.getMaxPayloadCapacity());
+                if (byCapacity.isEmpty()) {
+                    byLocation.remove(location, byCapacity);
+                }
+            }
+            size.decrementAndGet();
+            return true;
+        }
+    }
+
+    // Nearest available drone able to carry weight to the target, preferring the smallest
+    // sufficient capacity at that distance so large drones stay free for heavy packages
+    public Drone nearest(String dropOffLocation, double weight) {
+        int target = routeTable.idOf(dropOffLocation);
+        if (target < 0 || isEmpty()) {
+            return null;
+        }
+        int visited = 0;
+        for (int node : routeTable.nodesByDistanceTo(target)) {
+            if (visited == byLocation.size()) {
+                break;
+            }
+            TreeMap<Double, Deque<Drone>> byCapacity = byLocation.get(node);
+            if (byCapacity == null) {
+                continue;
+            }
+            visited++;
+            synchronized (byCapacity) {
+                Map.Entry<Double, Deque<Drone>> fit = byCapacity.ceilingEntry(weight);
+                if (fit != null) {
+                    return fit.getValue().peekFirst();
+                }
+            }
+        }
+        return null;
+    }
+
+    // Adds up to limit drones able to carry weight, nearest to the target first
+    public void collectNearest(String dropOffLocation, double weight, int limit, Collection<Drone> into) {
+        int target = routeTable.idOf(dropOffLocation);
+        if (target < 0 || isEmpty()) {
+            return;
+        }
+        int found = 0;
+        int visited = 0;
+        for (int node : routeTable.nodesByDistanceTo(target)) {
+            if (found >= limit || visited == byLocation.size()) {
+                break;
+            }
+            TreeMap<Double, Deque<Drone>> byCapacity = byLocation.get(node);
+            if (byCapacity == null) {
+                continue;
+            }
+            visited++;
+            synchronized (byCapacity) {
+                for (Deque<Drone> bucket : byCapacity.tailMap(weight, true).values()) {
+                    for (Drone drone : bucket) {
+                        if (found++ >= limit) {
+                            return;
+                        }
+                        into.add(drone);
+                    }
+                }
+            }
+        }
+    }
+}
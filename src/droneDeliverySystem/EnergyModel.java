@@ -0,0 +1,46 @@
+package droneDeliverySystem;
+
+// Linear battery model. Flying one distance unit costs a fixed amount plus a share per kg
+// of payload, and a charger slot puts energy back at a fixed rate. Energy is in watt-hours,
+// distance in the route table's units and time in virtual milliseconds.
+class EnergyModel {
+    private final double whPerUnit;
+    private final double whPerKgUnit;
+    private final double chargeWhPerSecond;
+    private final double rechargeBelow;
+
+    // rechargeBelow is the share of battery capacity under which an idle drone flies to a
+    // charger instead of waiting for work where it landed
+    public EnergyModel(double whPerUnit, double whPerKgUnit, double chargeWhPerSecond, double rechargeBelow) {
+        if (whPerUnit < 0 || whPerKgUnit < 0 || chargeWhPerSecond <= 0 || rechargeBelow < 0 || rechargeBelow > 1) {
+            throw new IllegalArgumentException("Invalid energy model " + whPerUnit + " Wh/unit, " + whPerKgUnit
+                                               + " Wh/kg/unit, " + chargeWhPerSecond + " Wh/s, recharge below " + rechargeBelow);
+        }
+        this.whPerUnit = whPerUnit;
+        this.whPerKgUnit = whPerKgUnit;
+        this.chargeWhPerSecond = chargeWhPerSecond;
+        this.rechargeBelow = rechargeBelow;
+    }
+
+    // Small multirotor figures, scaled so the demo city's trips are a real share of a battery
+    public static EnergyModel defaultModel() {
+        return new EnergyModel(8, 1.5, 4, 0.3);
+    }
+
+    public double getWhPerUnit() { return whPerUnit; }
+    public double getWhPerKgUnit() { return whPerKgUnit; }
+    public double getChargeWhPerSecond() { return chargeWhPerSecond; }
+    public double getRechargeBelow() { return rechargeBelow; }
+
+    public double consumption(int distance, double payloadKg) {
+        return distance * (whPerUnit + whPerKgUnit * payloadKg);
+    }
+
+    public long chargeMillis(double energy) {
+        return energy <= 0 ? 0 : (long) Math.ceil(energy / chargeWhPerSecond * 1000);
+    }
+
+    public double energyCharged(long millis) {
+        return millis * chargeWhPerSecond / 1000;
+    }
+}
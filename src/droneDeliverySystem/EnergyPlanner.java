@@ -0,0 +1,189 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+// Makes flight plans fit a drone's battery. Each leg must leave enough charge to reach the
+// nearest charging station afterwards, so a drone is never stranded; where it would not,
+// a charging stop is inserted before the leg, at the station that adds the least detour
+// plus expected wait, and the drone charges just enough for as many of the remaining legs
+// as one battery covers. A graph without stations has no reserve and no stops to insert.
+class EnergyPlanner {
+    private final RouteTable routeTable;
+    private final EnergyModel model;
+    private final ChargingScheduler scheduler;
+    private final int[] stations;
+
+    public EnergyPlanner(RouteTable routeTable, EnergyModel model, ChargingScheduler scheduler) {
+        this.routeTable = routeTable;
+        this.model = model;
+        this.scheduler = scheduler;
+        this.stations = routeTable.getGraph().chargingStations();
+    }
+
+    public EnergyModel getModel() {
+        return model;
+    }
+
+    // The plan with charging stops and leg energy filled in, or null if the drone cannot fly
+    // it even with charging. Drones with unlimited range get the plan back unchanged.
+    public FlightPlan plan(FlightPlan plan, Drone drone, double charge) {
+        if (!drone.hasLimitedRange()) {
+            return plan;
+        }
+        List<FlightPlan.Stop> legs = plan.getStops();
+        double weight = 0;
+        for (FlightPlan.Stop leg : legs) {
+            weight += weightOf(leg);
+        }
+
+        List<FlightPlan.Stop> stops = new ArrayList<>(legs.size());
+        String position = plan.getOrigin();
+        double energy = charge;
+        int travelled = 0;
+        boolean charged = false;
+        int i = 0;
+        while (i < legs.size()) {
+            FlightPlan.Stop leg = legs.get(i);
+            int distance = routeTable.distance(position, leg.getLocation());
+            if (distance == RouteTable.UNREACHABLE) {
+                return null;
+            }
+            double need = model.consumption(distance, weight);
+            double remaining = weight - weightOf(leg);
+            if (energy - need >= reserve(leg.getLocation(), remaining)) {
+                energy -= need;
+                travelled += distance;
+                stops.add(new FlightPlan.Stop(leg.getLocation(), travelled, leg.getPackages(), need, -1));
+                weight = remaining;
+                position = leg.getLocation();
+                charged = false;
+                i++;
+                continue;
+            }
+            if (charged) {
+                // A full battery from the best station still does not cover this leg
+                return null;
+            }
+
+            int station = bestStation(position, leg.getLocation(), energy, weight, drone.getBatteryCapacity());
+            if (station < 0) {
+                return null;
+            }
+            String stationName = routeTable.nameOf(station);
+            int detour = routeTable.distance(position, stationName);
+            double spent = model.consumption(detour, weight);
+            energy -= spent;
+            travelled += detour;
+            double target = Math.min(drone.getBatteryCapacity(), chargeTarget(stationName, legs, i, weight));
+            // Already holding enough once there: fly through without stopping to charge
+            boolean charging = target > energy;
+            stops.add(new FlightPlan.Stop(stationName, travelled, Collections.emptyList(), spent, charging ? target : -1));
+            energy = Math.max(energy, target);
+            position = stationName;
+            charged = true;
+        }
+        return new FlightPlan(plan.getOrigin(), stops);
+    }
+
+    // An empty flight to the station the drone can reach soonest, counting the wait there, or
+    // null if none is in range or the drone is already standing on one
+    public FlightPlan planRecharge(Drone drone) {
+        String position = drone.getCurrentLocation();
+        int from = routeTable.idOf(position);
+        if (from < 0) {
+            return null;
+        }
+        int best = -1;
+        long bestCost = Long.MAX_VALUE;
+        for (int station : stations) {
+            int distance = routeTable.distanceTo(from, station);
+            if (distance == RouteTable.UNREACHABLE || model.consumption(distance, 0) > drone.getCharge()) {
+                continue;
+            }
+            long cost = distance + waitInDistanceUnits(station);
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = station;
+            }
+        }
+        if (best < 0 || best == from) {
+            return null;
+        }
+        int distance = routeTable.distanceTo(from, best);
+        FlightPlan.Stop stop = new FlightPlan.Stop(routeTable.nameOf(best), distance, Collections.emptyList(),
+                                                   model.consumption(distance, 0), -1);
+        return new FlightPlan(position, Collections.singletonList(stop));
+    }
+
+    // Energy to carry what is still on board from the location to its nearest station; zero
+    // when the graph has no stations at all
+    private double reserve(String location, double payloadKg) {
+        int from = routeTable.idOf(location);
+        int nearest = RouteTable.UNREACHABLE;
+        for (int station : stations) {
+            nearest = Math.min(nearest, routeTable.distanceTo(from, station));
+        }
+        if (nearest == RouteTable.UNREACHABLE) {
+            return stations.length > 0 ? Double.POSITIVE_INFINITY : 0;
+        }
+        return model.consumption(nearest, payloadKg);
+    }
+
+    // Station in range now that minimises detour plus expected wait on the way to next. One
+    // the drone would reach with a full battery anyway is skipped: charging there adds nothing.
+    private int bestStation(String position, String next, double energy, double weight, double capacity) {
+        int from = routeTable.idOf(position);
+        int best = -1;
+        long bestCost = Long.MAX_VALUE;
+        for (int station : stations) {
+            int in = routeTable.distanceTo(from, station);
+            if (in == RouteTable.UNREACHABLE || model.consumption(in, weight) > energy
+                || energy - model.consumption(in, weight) >= capacity) {
+                continue;
+            }
+            int out = routeTable.distance(routeTable.nameOf(station), next);
+            if (out == RouteTable.UNREACHABLE) {
+                continue;
+            }
+            long cost = (long) in + out + waitInDistanceUnits(station);
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = station;
+            }
+        }
+        return best;
+    }
+
+    // Enough for every remaining leg plus the reserve after it, so the drone stops no more
+    // often than it has to; capped at a full battery by the caller
+    private double chargeTarget(String station, List<FlightPlan.Stop> legs, int from, double weight) {
+        double needed = 0;
+        double cumulative = 0;
+        String position = station;
+        for (int i = from; i < legs.size(); i++) {
+            FlightPlan.Stop leg = legs.get(i);
+            int distance = routeTable.distance(position, leg.getLocation());
+            if (distance == RouteTable.UNREACHABLE) {
+                break;
+            }
+            cumulative += model.consumption(distance, weight);
+            weight -= weightOf(leg);
+            needed = Math.max(needed, cumulative + reserve(leg.getLocation(), weight));
+            position = leg.getLocation();
+        }
+        return needed;
+    }
+
+    private long waitInDistanceUnits(int station) {
+        long wait = scheduler.expectedWaitMillis(station);
+        return wait == Long.MAX_VALUE ? Integer.MAX_VALUE : wait / DeliverySystem.MILLIS_PER_DISTANCE_UNIT;
+    }
+
+    private static double weightOf(FlightPlan.Stop stop) {
+        double weight = 0;
+        for (Package pkg : stop.getPackages()) {
+            weight += pkg.getWeight();
+        }
+        return weight;
+    }
+}
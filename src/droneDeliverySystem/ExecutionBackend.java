@@ -0,0 +1,76 @@
+package droneDeliverySystem;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Where a REAL_TIME clock runs its event callbacks. CLOCK_THREAD runs them one at a time on
+// the clock thread; the others give each due event a thread of its own, so a callback that
+// blocks, such as a slow listener, holds up only its own drone's flight. An ACCELERATED clock
+// always runs callbacks on the clock thread, in order.
+enum ExecutionBackend {
+    CLOCK_THREAD,
+    // Cached pool of daemon platform threads
+    PLATFORM_THREADS,
+    // A virtual thread per event; needs Java 21 or later
+    VIRTUAL_THREADS;
+
+    // Looked up reflectively so the engine still builds and runs on Java 8
+    private static final Method VIRTUAL_EXECUTOR = virtualExecutorFactory();
+    // Java 19 and 20 have the factory as a preview API that throws unless previews are
+    // enabled, so support is decided by creating an executor once
+    private static final boolean VIRTUAL_SUPPORTED = canCreateVirtualExecutor();
+
+    public boolean isSupported() {
+        return this != VIRTUAL_THREADS || VIRTUAL_SUPPORTED;
+    }
+
+    // Executor for the callbacks, or null if they run on the clock thread
+    ExecutorService newExecutor() {
+        switch (this) {
+            case PLATFORM_THREADS:
+                AtomicInteger count = new AtomicInteger();
+                return Executors.newCachedThreadPool(task -> {
+                    Thread thread = new Thread(task, "simulation-event-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            case VIRTUAL_THREADS:
+                if (!VIRTUAL_SUPPORTED) {
+                    throw new UnsupportedOperationException("Virtual threads need Java 21 or later, running on " + System.getProperty("java.version"));
+                }
+                try {
+                    return (ExecutorService) VIRTUAL_EXECUTOR.invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Could not create a virtual thread executor", e);
+                }
+            default:
+                return null;
+        }
+    }
+
+    private static boolean canCreateVirtualExecutor() {
+        if (VIRTUAL_EXECUTOR == null) {
+            return false;
+        }
+        try {
+            ((ExecutorService) VIRTUAL_EXECUTOR.invoke(null)).shutdown();
+            return true;
+        } catch (InvocationTargetException e) {
+            // The preview API throws UnsupportedOperationException; anything else it throws
+            // means no usable executor either
+            return false;
+        } catch (IllegalAccessException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    private static Method virtualExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
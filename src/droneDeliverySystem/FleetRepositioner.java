@@ -0,0 +1,205 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+// Chooses where idle drones should wait. Counting arrivals at the busiest locations as one
+// Poisson stream, the k-th order of the horizon arrives with probability P(N >= k), lands at
+// each hotspot in proportion to its forecast rate, and is charged the distance from the
+// k-th nearest drone that will be free there: an idle one, or a busy one where it is due to
+// land. Demand spread over many neighbouring locations therefore still calls for as many
+// drones nearby as it is likely to need. A move is worth making when the expected distance
+// it saves exceeds a share of the empty flight it costs. Moves are picked greedily, best saving first;
+// each hotspot keeps its DEPTH nearest drones so a candidate move is scored without
+// rescanning the fleet.
+class FleetRepositioner {
+    private static final int HOTSPOTS = 32;
+    private static final int DESTINATIONS = 16;
+    private static final int DEPTH = 4;
+    private static final int MAX_MOVES = 8;
+    // An empty flight happens while the drone would be idle anyway, and often replaces the
+    // deadhead it would fly for the next order; a unit saved at pickup is a customer waiting
+    private static final double TRIP_WEIGHT = 0.25;
+
+    private final RouteTable routeTable;
+    private final DemandForecast forecast;
+    private final long horizonMillis;
+
+    public FleetRepositioner(RouteTable routeTable, DemandForecast forecast, long horizonMillis) {
+        this.routeTable = routeTable;
+        this.forecast = forecast;
+        this.horizonMillis = horizonMillis;
+    }
+
+    // Destination for each idle drone worth moving; landing holds where busy drones will
+    // end up. Empty when there is no demand to chase.
+    public Map<Drone, String> plan(List<Drone> idle, List<String> landing, long now) {
+        List<DemandForecast.Hotspot> hotspots = forecast.hotspots(now, HOTSPOTS);
+        if (hotspots.isEmpty() || idle.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        int h = hotspots.size();
+        int[] target = new int[h];
+        double[] share = new double[h];
+        double total = 0;
+        for (int i = 0; i < h; i++) {
+            target[i] = hotspots.get(i).getLocation();
+            share[i] = hotspots.get(i).getRate();
+            total += share[i];
+        }
+        for (int i = 0; i < h; i++) {
+            share[i] /= total;
+        }
+        double[] likely = atLeast(total * horizonMillis);
+
+        // Idle drones first, then the fixed positions of busy ones
+        int d = idle.size();
+        long[][] distance = new long[d + landing.size()][];
+        for (int j = 0; j < distance.length; j++) {
+            String location = j < d ? idle.get(j).getCurrentLocation() : landing.get(j - d);
+            distance[j] = distancesTo(routeTable.idOf(location), target);
+        }
+        int destinations = Math.min(h, DESTINATIONS);
+        long[][] between = new long[destinations][];
+        for (int c = 0; c < destinations; c++) {
+            between[c] = distancesTo(target[c], target);
+        }
+        long penalty = 2 * Math.max(farthest(distance), farthest(between));
+
+        Map<Drone, String> moves = new LinkedHashMap<>();
+        boolean[] moved = new boolean[d];
+        long[][] nearest = new long[h][DEPTH];
+        int[][] nearestDrone = new int[h][DEPTH];
+        long[] scratch = new long[DEPTH];
+        for (int round = 0; round < MAX_MOVES && moves.size() < d; round++) {
+            rank(distance, nearest, nearestDrone, penalty);
+            double bestGain = 0;
+            int bestDrone = -1;
+            int bestSpot = -1;
+            for (int j = 0; j < d; j++) {
+                if (moved[j]) {
+                    continue;
+                }
+                for (int c = 0; c < destinations; c++) {
+                    long trip = distance[j][c];
+                    if (trip == 0 || trip == RouteTable.UNREACHABLE) {
+                        continue;
+                    }
+                    double gain = -TRIP_WEIGHT * trip;
+                    for (int i = 0; i < h; i++) {
+                        long[] after = moveInto(nearest[i], nearestDrone[i], j, cost(between[c][i], penalty), penalty, scratch);
+                        gain += share[i] * (expectedCost(likely, nearest[i]) - expectedCost(likely, after));
+                    }
+                    if (gain > bestGain) {
+                        bestGain = gain;
+                        bestDrone = j;
+                        bestSpot = c;
+                    }
+                }
+            }
+            if (bestDrone < 0) {
+                break;
+            }
+            moved[bestDrone] = true;
+            moves.put(idle.get(bestDrone), routeTable.nameOf(target[bestSpot]));
+            distance[bestDrone] = between[bestSpot];
+        }
+        return moves;
+    }
+
+    // P(N >= k) for k = 1 .. DEPTH, N Poisson with the given mean
+    private static double[] atLeast(double mean) {
+        double[] probability = new double[DEPTH];
+        double term = Math.exp(-mean);
+        double below = term;
+        for (int k = 1; k <= DEPTH; k++) {
+            probability[k - 1] = Math.max(0, 1 - below);
+            term *= mean / k;
+            below += term;
+        }
+        return probability;
+    }
+
+    private static double expectedCost(double[] likely, long[] nearest) {
+        double cost = 0;
+        for (int k = 0; k < DEPTH; k++) {
+            cost += likely[k] * nearest[k];
+        }
+        return cost;
+    }
+
+    // The hotspot's nearest distances with drone j moved to the given distance
+    private static long[] moveInto(long[] nearest, int[] nearestDrone, int j, long moved, long penalty, long[] into) {
+        int n = 0;
+        boolean placed = false;
+        for (int k = 0; k < DEPTH && n < DEPTH; k++) {
+            if (nearestDrone[k] == j) {
+                continue;
+            }
+            if (!placed && moved < nearest[k]) {
+                into[n++] = moved;
+                placed = true;
+                if (n == DEPTH) {
+                    break;
+                }
+            }
+            into[n++] = nearest[k];
+        }
+        if (!placed && n < DEPTH) {
+            into[n++] = moved;
+        }
+        while (n < DEPTH) {
+            into[n++] = penalty;
+        }
+        return into;
+    }
+
+    // DEPTH nearest drones per hotspot, padded with the penalty when there are fewer
+    private static void rank(long[][] distance, long[][] nearest, int[][] nearestDrone, long penalty) {
+        for (int i = 0; i < nearest.length; i++) {
+            Arrays.fill(nearest[i], penalty);
+            Arrays.fill(nearestDrone[i], -1);
+        }
+        for (int j = 0; j < distance.length; j++) {
+            for (int i = 0; i < nearest.length; i++) {
+                long value = cost(distance[j][i], penalty);
+                if (value >= nearest[i][DEPTH - 1]) {
+                    continue;
+                }
+                int k = DEPTH - 1;
+                while (k > 0 && nearest[i][k - 1] > value) {
+                    nearest[i][k] = nearest[i][k - 1];
+                    nearestDrone[i][k] = nearestDrone[i][k - 1];
+                    k--;
+                }
+                nearest[i][k] = value;
+                nearestDrone[i][k] = j;
+            }
+        }
+    }
+
+    private long[] distancesTo(int from, int[] targets) {
+        long[] distances = new long[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            distances[i] = from < 0 ? RouteTable.UNREACHABLE : routeTable.distanceTo(from, targets[i]);
+        }
+        return distances;
+    }
+
+    // An order no drone can reach is charged twice the farthest reachable distance, enough
+    // to make covering it worth a move without swamping the sum
+    private static long cost(long distance, long penalty) {
+        return distance == RouteTable.UNREACHABLE ? penalty : distance;
+    }
+
+    private static long farthest(long[][] distances) {
+        long farthest = 0;
+        for (long[] row : distances) {
+            for (long value : row) {
+                if (value != RouteTable.UNREACHABLE) {
+                    farthest = Math.max(farthest, value);
+                }
+            }
+        }
+        return farthest;
+    }
+}
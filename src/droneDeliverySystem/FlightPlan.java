@@ -0,0 +1,75 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+// Ordered drop-off stops for one flight, with the cumulative distance at which each is reached.
+// With an energy model, stops also carry the energy used to reach them, and charging stops
+// (no packages, a target charge) may sit between drop-offs.
+class FlightPlan {
+    private final String origin;
+    private final List<Stop> stops;
+    private int nextStop;
+
+    public FlightPlan(String origin, List<Stop> stops) {
+        this.origin = origin;
+        this.stops = stops;
+    }
+
+    public String getOrigin() { return origin; }
+    public List<Stop> getStops() { return Collections.unmodifiableList(stops); }
+
+    public int getTotalDistance() {
+        return stops.isEmpty() ? 0 : stops.get(stops.size() - 1).getArrivalDistance();
+    }
+
+    public String getFinalLocation() {
+        return stops.isEmpty() ? origin : stops.get(stops.size() - 1).getLocation();
+    }
+
+    public boolean carriesPackages() {
+        for (Stop stop : stops) {
+            if (!stop.getPackages().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Stop the drone is flying towards, or null once all are done
+    public Stop peekStop() {
+        return nextStop < stops.size() ? stops.get(nextStop) : null;
+    }
+
+    public Stop pollStop() {
+        return nextStop < stops.size() ? stops.get(nextStop++) : null;
+    }
+
+    static class Stop {
+        private final String location;
+        private final int arrivalDistance;
+        private final List<Package> packages;
+        private final double energy;
+        private final double chargeTo;
+
+        public Stop(String location, int arrivalDistance, List<Package> packages) {
+            this(location, arrivalDistance, packages, 0, -1);
+        }
+
+        // energy is spent on the leg into this stop; chargeTo is negative unless the drone
+        // charges here, to that many watt-hours, before flying on
+        public Stop(String location, int arrivalDistance, List<Package> packages, double energy, double chargeTo) {
+            this.location = location;
+            this.arrivalDistance = arrivalDistance;
+            this.packages = packages;
+            this.energy = energy;
+            this.chargeTo = chargeTo;
+        }
+
+        public String getLocation() { return location; }
+        public int getArrivalDistance() { return arrivalDistance; }
+        public List<Package> getPackages() { return packages; }
+        public double getEnergy() { return energy; }
+        public double getChargeTo() { return chargeTo; }
+        public boolean isCharging() { return chargeTo >= 0; }
+    }
+}
@@ -0,0 +1,100 @@
+package droneDeliverySystem;
+
+import java.util.Arrays;
+
+// Binary min-heap of node ids with decrease-key. Pushing a node already in the heap moves
+// it to its new key in either direction.
+class IntHeap {
+    private final int[] nodes;
+    private final int[] keys;
+    private final int[] position;
+    private int size;
+
+    IntHeap(int capacity) {
+        nodes = new int[capacity];
+        keys = new int[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    boolean isEmpty() { return size == 0; }
+    int peekKey() { return keys[0]; }
+
+    void push(int node, int key) {
+        int i = position[node];
+        if (i < 0) {
+            i = size++;
+            nodes[i] = node;
+            position[node] = i;
+        } else if (key > keys[i]) {
+            keys[i] = key;
+            siftDown(i);
+            return;
+        }
+        keys[i] = key;
+        siftUp(i);
+    }
+
+    int pop() {
+        int top = nodes[0];
+        position[top] = -1;
+        size--;
+        if (size > 0) {
+            move(size, 0);
+            siftDown(0);
+        }
+        return top;
+    }
+
+    // Empties the heap in time proportional to its size, so it can be reused across searches
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            position[nodes[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        int node = nodes[i];
+        int key = keys[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            move(parent, i);
+            i = parent;
+        }
+        nodes[i] = node;
+        keys[i] = key;
+        position[node] = i;
+    }
+
+    private void siftDown(int i) {
+        int node = nodes[i];
+        int key = keys[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (keys[child] >= key) {
+                break;
+            }
+            move(child, i);
+            i = child;
+        }
+        nodes[i] = node;
+        keys[i] = key;
+        position[node] = i;
+    }
+
+    private void move(int from, int to) {
+        nodes[to] = nodes[from];
+        keys[to] = keys[from];
+        position[nodes[to]] = to;
+    }
+}
@@ -0,0 +1,98 @@
+package droneDeliverySystem;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import javax.management.*;
+
+// Registers the metrics as read-only attributes of one MBean, e.g. for JConsole
+class JmxMetricsExporter implements MetricsExporter {
+    private final ObjectName name;
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    public JmxMetricsExporter() {
+        this("droneDeliverySystem:type=DeliveryMetrics");
+    }
+
+    public JmxMetricsExporter(String objectName) {
+        try {
+            this.name = new ObjectName(objectName);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Invalid MBean name " + objectName, e);
+        }
+    }
+
+    @Override
+    public void start(DeliveryMetrics metrics) {
+        try {
+            server.registerMBean(new MetricsBean(metrics), name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register " + name, e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister " + name, e);
+        }
+    }
+
+    private static class MetricsBean implements DynamicMBean {
+        private final DeliveryMetrics metrics;
+
+        MetricsBean(DeliveryMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Number value = metrics.snapshot().get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Number> snapshot = metrics.snapshot();
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                if (snapshot.containsKey(attribute)) {
+                    list.add(new Attribute(attribute, snapshot.get(attribute)));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (Map.Entry<String, Number> metric : metrics.snapshot().entrySet()) {
+                attributes.add(new MBeanAttributeInfo(metric.getKey(), metric.getValue().getClass().getName(),
+                                                      metric.getKey(), true, false, false));
+            }
+            return new MBeanInfo(DeliveryMetrics.class.getName(), "Drone delivery metrics",
+                                 attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+    }
+}
@@ -0,0 +1,724 @@
+package droneDeliverySystem;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Road network between named locations, stored as compressed sparse rows: the outgoing
+// edges of node u are edgeTarget/edgeWeight[edgeStart[u] .. edgeStart[u + 1]). Each
+// name is interned to an int id once, at load time.
+//
+// Graphs load from CSV lines "from,to,distance" (one directed edge per line; blank lines,
+// '#' comments and a non-numeric header row are skipped) or from the binary form written
+// by writeBinary. Both are read through a memory mapping.
+//
+// Locations may carry planar coordinates, in the same units as edge distances, for
+// goal-directed routing; a graph without them, or a node whose coordinates are NaN, simply
+// gets no straight-line estimate. They come from the builder, the binary form, or a separate
+// CSV of "name,x,y" lines read by withCoordinates(Path).
+//
+// Some locations are charging stations with a fixed number of slots. They are few, so they
+// are kept as a sorted id list rather than a per-node array, and come from the builder, the
+// binary form, or a CSV of "name,slots" lines read by withChargingStations(Path).
+//
+// Topology is fixed once built; RouteTable may patch edge weights in place.
+class LocationGraph {
+    static final String WAREHOUSE = "Warehouse";
+
+    private static final int BINARY_MAGIC = 0x4c475231;
+
+    private final String[] names;
+    private final Map<String, Integer> ids;
+    private final int[] edgeStart;
+    private final int[] edgeTarget;
+    private final int[] edgeWeight;
+    // Both null when the graph has no coordinates
+    private final float[] x;
+    private final float[] y;
+    // Station ids in ascending order, and the slots at each
+    private final int[] chargers;
+    private final int[] chargerSlots;
+
+    private LocationGraph(String[] names, Map<String, Integer> ids, int[] edgeStart, int[] edgeTarget, int[] edgeWeight,
+                          float[] x, float[] y, int[] chargers, int[] chargerSlots) {
+        this.names = names;
+        this.ids = ids;
+        this.edgeStart = edgeStart;
+        this.edgeTarget = edgeTarget;
+        this.edgeWeight = edgeWeight;
+        this.x = x;
+        this.y = y;
+        this.chargers = chargers;
+        this.chargerSlots = chargerSlots;
+    }
+
+    // The small demo city the system has always shipped with
+    public static LocationGraph defaultCity() {
+        Builder builder = new Builder();
+        builder.addRoad(WAREHOUSE, "Downtown", 5);
+        builder.addRoad(WAREHOUSE, "Uptown", 3);
+        builder.addRoad("Downtown", "Airport", 2);
+        builder.addRoad("Uptown", "Airport", 6);
+        builder.setCoordinates(WAREHOUSE, 0, 0);
+        builder.setCoordinates("Uptown", 0, 3);
+        builder.setCoordinates("Downtown", 4, 3);
+        builder.setCoordinates("Airport", 6, 3);
+        builder.addChargingStation(WAREHOUSE, 2);
+        return builder.build();
+    }
+
+    public static LocationGraph fromMap(Map<String, Map<String, Integer>> graph) {
+        Builder builder = new Builder();
+        for (Map.Entry<String, Map<String, Integer>> entry : graph.entrySet()) {
+            builder.intern(entry.getKey());
+            for (Map.Entry<String, Integer> neighbor : entry.getValue().entrySet()) {
+                builder.addEdge(entry.getKey(), neighbor.getKey(), neighbor.getValue());
+            }
+        }
+        return builder.build();
+    }
+
+    // Picks the format by extension: ".bin" is binary, anything else CSV
+    public static LocationGraph load(Path file) throws IOException {
+        return file.getFileName().toString().endsWith(".bin") ? loadBinary(file) : loadCsv(file);
+    }
+
+    // The mapping is copied to the heap in one bulk transfer; parsing byte by byte through
+    // the buffer's bounds-checked accessors is several times slower
+    public static LocationGraph loadCsv(Path file) throws IOException {
+        ByteBuffer mapped = map(file);
+        byte[] data = new byte[mapped.remaining()];
+        mapped.get(data);
+        Builder builder = new Builder();
+        int[] field = new int[6];
+        int line = 0;
+        boolean firstRow = true;
+        NameTable nameTable = new NameTable(builder);
+
+        int position = 0;
+        while (position < data.length) {
+            line++;
+            int start = position;
+            int end = start;
+            while (end < data.length && data[end] != '\n') {
+                end++;
+            }
+            position = end + 1;
+            if (end > start && data[end - 1] == '\r') {
+                end--;
+            }
+            if (end == start || data[start] == '#') {
+                continue;
+            }
+            if (!splitFields(data, start, end, field)) {
+                throw new IOException(file + ":" + line + ": expected from,to,distance");
+            }
+            int distance = parseDistance(data, field[4], field[5]);
+            boolean header = firstRow;
+            firstRow = false;
+            if (distance < 0) {
+                if (header) {
+                    continue;
+                }
+                throw new IOException(file + ":" + line + ": invalid distance");
+            }
+
+            int from = nameTable.intern(data, field[0], field[1]);
+            int to = nameTable.intern(data, field[2], field[3]);
+            builder.addEdge(from, to, distance);
+        }
+        return builder.build();
+    }
+
+    public static LocationGraph loadBinary(Path file) throws IOException {
+        ByteBuffer data = map(file);
+        try {
+            if (data.getInt() != BINARY_MAGIC) {
+                throw new IOException(file + ": not a location graph");
+            }
+            int nodeCount = data.getInt();
+            int edgeCount = data.getInt();
+            if (nodeCount < 0) {
+                throw corrupt(file, 4, "node count " + nodeCount);
+            }
+            if (edgeCount < 0) {
+                throw corrupt(file, 8, "edge count " + edgeCount);
+            }
+            // Every name takes at least two bytes; checked before allocating for them
+            if (nodeCount > data.remaining() / 2) {
+                throw new BufferUnderflowException();
+            }
+            String[] names = new String[nodeCount];
+            Map<String, Integer> ids = new HashMap<>(nodeCount * 2);
+            byte[] bytes = new byte[256];
+            for (int i = 0; i < nodeCount; i++) {
+                int length = data.getShort() & 0xffff;
+                if (bytes.length < length) {
+                    bytes = new byte[length];
+                }
+                data.get(bytes, 0, length);
+                names[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+                ids.put(names[i], i);
+            }
+            if (4L * (nodeCount + 1) + 8L * edgeCount > data.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            int[] edgeStart = new int[nodeCount + 1];
+            int[] edgeTarget = new int[edgeCount];
+            int[] edgeWeight = new int[edgeCount];
+            int arrays = data.position();
+            IntBuffer ints = data.slice().asIntBuffer();
+            ints.get(edgeStart);
+            ints.get(edgeTarget);
+            ints.get(edgeWeight);
+            // Routing indexes straight through these arrays, so a bad value has to be caught
+            // here rather than as an ArrayIndexOutOfBoundsException in some later query
+            for (int u = 0; u <= nodeCount; u++) {
+                // Non-decreasing from 0 up to edgeCount, with every edge in some node's row
+                int low = u == 0 ? 0 : edgeStart[u - 1];
+                if (edgeStart[u] < low || edgeStart[u] > edgeCount
+                        || (u == 0 && edgeStart[u] != 0) || (u == nodeCount && edgeStart[u] != edgeCount)) {
+                    throw corrupt(file, arrays + 4L * u, "edge start " + edgeStart[u] + " of node " + u);
+                }
+            }
+            for (int e = 0; e < edgeCount; e++) {
+                if (edgeTarget[e] < 0 || edgeTarget[e] >= nodeCount) {
+                    throw corrupt(file, arrays + 4L * (nodeCount + 1 + e), "edge target " + edgeTarget[e]);
+                }
+                if (edgeWeight[e] < 0) {
+                    throw corrupt(file, arrays + 4L * (nodeCount + 1 + edgeCount + e), "edge weight " + edgeWeight[e]);
+                }
+            }
+            // Coordinates were added to the format later and are optional
+            float[] x = null;
+            float[] y = null;
+            if (ints.hasRemaining() && ints.get() != 0) {
+                FloatBuffer floats = data.slice().asFloatBuffer();
+                floats.position(ints.position());
+                x = new float[nodeCount];
+                y = new float[nodeCount];
+                floats.get(x);
+                floats.get(y);
+                ints.position(floats.position());
+            }
+            // So were charging stations
+            int[] chargers = new int[0];
+            int[] chargerSlots = new int[0];
+            if (ints.hasRemaining()) {
+                int count = ints.get();
+                if (count < 0 || count > nodeCount) {
+                    throw corrupt(file, arrays + 4L * (ints.position() - 1), "charging station count " + count);
+                }
+                int stations = ints.position();
+                chargers = new int[count];
+                chargerSlots = new int[count];
+                ints.get(chargers);
+                ints.get(chargerSlots);
+                for (int i = 0; i < count; i++) {
+                    if (chargers[i] < 0 || chargers[i] >= nodeCount || (i > 0 && chargers[i] <= chargers[i - 1])) {
+                        throw corrupt(file, arrays + 4L * (stations + i), "charging station " + chargers[i]);
+                    }
+                    if (chargerSlots[i] < 1) {
+                        throw corrupt(file, arrays + 4L * (stations + count + i), "charging slots " + chargerSlots[i]);
+                    }
+                }
+            }
+            return new LocationGraph(names, ids, edgeStart, edgeTarget, edgeWeight, x, y, chargers, chargerSlots);
+        } catch (BufferUnderflowException e) {
+            throw new IOException(file + ": truncated location graph", e);
+        }
+    }
+
+    public void writeBinary(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(BINARY_MAGIC);
+            out.writeInt(names.length);
+            out.writeInt(edgeTarget.length);
+            for (String name : names) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > 0xffff) {
+                    throw new IOException("Location name too long: " + name.substring(0, 32) + "...");
+                }
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+            for (int value : edgeStart) {
+                out.writeInt(value);
+            }
+            for (int value : edgeTarget) {
+                out.writeInt(value);
+            }
+            for (int value : edgeWeight) {
+                out.writeInt(value);
+            }
+            out.writeInt(x == null ? 0 : 1);
+            if (x != null) {
+                for (float value : x) {
+                    out.writeFloat(value);
+                }
+                for (float value : y) {
+                    out.writeFloat(value);
+                }
+            }
+            out.writeInt(chargers.length);
+            for (int value : chargers) {
+                out.writeInt(value);
+            }
+            for (int value : chargerSlots) {
+                out.writeInt(value);
+            }
+        }
+    }
+
+    public int size() { return names.length; }
+    public int edgeCount() { return edgeTarget.length; }
+
+    public int idOf(String location) {
+        Integer id = ids.get(location);
+        return id == null ? -1 : id;
+    }
+
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    // The graph's own instance of a location name, so equal names share one String
+    public String canonical(String location) {
+        int id = idOf(location);
+        return id < 0 ? location : names[id];
+    }
+
+    public List<String> getLocations() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    public boolean hasCoordinates() { return x != null; }
+    public boolean hasChargingStations() { return chargers.length > 0; }
+
+    // Ids of every charging station, in ascending order
+    public int[] chargingStations() {
+        return chargers.clone();
+    }
+
+    // Slots at the location, or 0 if it is not a charging station
+    public int chargingSlots(int id) {
+        int i = Arrays.binarySearch(chargers, id);
+        return i < 0 ? 0 : chargerSlots[i];
+    }
+
+    public boolean isChargingStation(String location) {
+        int id = idOf(location);
+        return id >= 0 && chargingSlots(id) > 0;
+    }
+
+    // Shared with RouteTable, which owns them once it is built on this graph
+    int[] edgeStart() { return edgeStart; }
+    int[] edgeTarget() { return edgeTarget; }
+    int[] edgeWeight() { return edgeWeight; }
+    float[] coordinateX() { return x; }
+    float[] coordinateY() { return y; }
+
+    // The same graph with coordinates indexed by id; NaN marks a location without any
+    public LocationGraph withCoordinates(float[] x, float[] y) {
+        if (x.length != names.length || y.length != names.length) {
+            throw new IllegalArgumentException("Expected " + names.length + " coordinates, got " + x.length + " and " + y.length);
+        }
+        return new LocationGraph(names, ids, edgeStart, edgeTarget, edgeWeight, x, y, chargers, chargerSlots);
+    }
+
+    // The same graph over a copy of the weights, which patches to this one's do not reach
+    LocationGraph withOwnWeights() {
+        return new LocationGraph(names, ids, edgeStart, edgeTarget, edgeWeight.clone(), x, y, chargers, chargerSlots);
+    }
+
+    // Reads "name,x,y" lines; names the graph does not know are skipped, as are blank lines,
+    // '#' comments and a non-numeric header row
+    public LocationGraph withCoordinates(Path file) throws IOException {
+        float[] x = new float[names.length];
+        float[] y = new float[names.length];
+        Arrays.fill(x, Float.NaN);
+        Arrays.fill(y, Float.NaN);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String text;
+            int line = 0;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                text = text.trim();
+                if (text.isEmpty() || text.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = text.split(",");
+                if (fields.length != 3) {
+                    throw new IOException(file + ":" + line + ": expected name,x,y");
+                }
+                float px;
+                float py;
+                try {
+                    px = Float.parseFloat(fields[1].trim());
+                    py = Float.parseFloat(fields[2].trim());
+                } catch (NumberFormatException e) {
+                    if (line == 1) {
+                        continue;
+                    }
+                    throw new IOException(file + ":" + line + ": invalid coordinate", e);
+                }
+                int id = idOf(fields[0].trim());
+                if (id >= 0) {
+                    x[id] = px;
+                    y[id] = py;
+                }
+            }
+        }
+        return withCoordinates(x, y);
+    }
+
+    // Reads "name,slots" lines, replacing any stations the graph already had. Names the graph
+    // does not know are skipped, as are blank lines, '#' comments and a non-numeric header row.
+    public LocationGraph withChargingStations(Path file) throws IOException {
+        TreeMap<Integer, Integer> slots = new TreeMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String text;
+            int line = 0;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                text = text.trim();
+                if (text.isEmpty() || text.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = text.split(",");
+                if (fields.length != 2) {
+                    throw new IOException(file + ":" + line + ": expected name,slots");
+                }
+                int count;
+                try {
+                    count = Integer.parseInt(fields[1].trim());
+                } catch (NumberFormatException e) {
+                    if (line == 1) {
+                        continue;
+                    }
+                    throw new IOException(file + ":" + line + ": invalid slot count", e);
+                }
+                if (count < 1) {
+                    throw new IOException(file + ":" + line + ": a charging station needs at least one slot");
+                }
+                int id = idOf(fields[0].trim());
+                if (id >= 0) {
+                    slots.put(id, count);
+                }
+            }
+        }
+        int[] chargers = new int[slots.size()];
+        int[] chargerSlots = new int[slots.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> station : slots.entrySet()) {
+            chargers[i] = station.getKey();
+            chargerSlots[i++] = station.getValue();
+        }
+        return new LocationGraph(names, ids, edgeStart, edgeTarget, edgeWeight, x, y, chargers, chargerSlots);
+    }
+
+    // A copy with one more directed edge, keeping every existing id. Current weights,
+    // including ones patched in place, carry over.
+    public LocationGraph withEdge(String from, String to, int distance) {
+        Builder builder = new Builder();
+        for (String name : names) {
+            builder.intern(name);
+        }
+        for (int u = 0; u < names.length; u++) {
+            for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+                builder.addEdge(u, edgeTarget[e], edgeWeight[e]);
+            }
+        }
+        builder.addEdge(from, to, distance);
+        if (x != null) {
+            for (int id = 0; id < names.length; id++) {
+                builder.setCoordinates(id, x[id], y[id]);
+            }
+        }
+        for (int i = 0; i < chargers.length; i++) {
+            builder.addChargingStation(chargers[i], chargerSlots[i]);
+        }
+        return builder.build();
+    }
+
+    private static IOException corrupt(Path file, long offset, String what) {
+        return new IOException(file + ": corrupt location graph at byte " + offset + ": " + what);
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + ": graphs over 2 GB are not supported");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    // Fills field with start/end offsets of the three comma-separated fields, trimmed
+    private static boolean splitFields(byte[] data, int start, int end, int[] field) {
+        int f = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end && f < 6; i++) {
+            if (i == end || data[i] == ',') {
+                int s = fieldStart;
+                int e = i;
+                while (s < e && data[s] == ' ') {
+                    s++;
+                }
+                while (e > s && data[e - 1] == ' ') {
+                    e--;
+                }
+                field[f++] = s;
+                field[f++] = e;
+                fieldStart = i + 1;
+            }
+        }
+        return f == 6 && field[1] > field[0] && field[3] > field[2];
+    }
+
+    // Non-negative integer distance, or -1 if the field is not one
+    private static int parseDistance(byte[] data, int start, int end) {
+        if (start == end || end - start > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // Open-addressing table from raw name bytes to ids, so each distinct name is decoded
+    // to a String once rather than once per edge
+    private static class NameTable {
+        private final Builder builder;
+        private int[] slots = new int[1024];
+        private byte[][] bytesById = new byte[512][];
+        private int count;
+
+        NameTable(Builder builder) {
+            this.builder = builder;
+        }
+
+        int intern(byte[] data, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + data[i];
+            }
+            int mask = slots.length - 1;
+            for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+                int id = slots[slot] - 1;
+                if (id < 0) {
+                    byte[] bytes = Arrays.copyOfRange(data, start, end);
+                    id = builder.intern(new String(bytes, StandardCharsets.UTF_8));
+                    add(id, bytes, slot);
+                    return id;
+                }
+                if (matches(bytesById[id], data, start, end)) {
+                    return id;
+                }
+            }
+        }
+
+        private void add(int id, byte[] bytes, int slot) {
+            if (id >= bytesById.length) {
+                bytesById = Arrays.copyOf(bytesById, Math.max(id + 1, bytesById.length * 2));
+            }
+            bytesById[id] = bytes;
+            slots[slot] = id + 1;
+            if (++count * 2 > slots.length) {
+                slots = new int[slots.length * 2];
+                int mask = slots.length - 1;
+                for (int known = 0; known < bytesById.length; known++) {
+                    byte[] name = bytesById[known];
+                    if (name == null) {
+                        continue;
+                    }
+                    int s = mix(hash(name)) & mask;
+                    while (slots[s] != 0) {
+                        s = (s + 1) & mask;
+                    }
+                    slots[s] = known + 1;
+                }
+            }
+        }
+
+        private static boolean matches(byte[] name, byte[] data, int start, int end) {
+            if (name.length != end - start) {
+                return false;
+            }
+            for (int i = 0; i < name.length; i++) {
+                if (name[i] != data[start + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Same hash as intern() computes over the mapped bytes
+        private static int hash(byte[] name) {
+            int hash = 0;
+            for (byte b : name) {
+                hash = 31 * hash + b;
+            }
+            return hash;
+        }
+
+        private static int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    // Collects edges in growable primitive arrays, then lays them out as CSR. The graph
+    // shares the builder's name table, so a builder is done once build() is called.
+    static class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private int[] weight = new int[16];
+        private int edges;
+        private float[] x;
+        private float[] y;
+        private final TreeMap<Integer, Integer> chargers = new TreeMap<>();
+
+        public int intern(String location) {
+            Integer id = ids.get(location);
+            if (id == null) {
+                id = names.size();
+                ids.put(location, id);
+                names.add(location);
+            }
+            return id;
+        }
+
+        public Builder addEdge(String from, String to, int distance) {
+            return addEdge(intern(from), intern(to), distance);
+        }
+
+        // Both directions
+        public Builder addRoad(String a, String b, int distance) {
+            return addEdge(a, b, distance).addEdge(b, a, distance);
+        }
+
+        public Builder setCoordinates(String location, float x, float y) {
+            return setCoordinates(intern(location), x, y);
+        }
+
+        public Builder setCoordinates(int id, float x, float y) {
+            if (this.x == null || this.x.length <= id) {
+                int capacity = Math.max(id + 1, Math.max(16, names.size()));
+                int known = this.x == null ? 0 : this.x.length;
+                this.x = this.x == null ? new float[capacity] : Arrays.copyOf(this.x, capacity);
+                this.y = this.y == null ? new float[capacity] : Arrays.copyOf(this.y, capacity);
+                Arrays.fill(this.x, known, capacity, Float.NaN);
+                Arrays.fill(this.y, known, capacity, Float.NaN);
+            }
+            this.x[id] = x;
+            this.y[id] = y;
+            return this;
+        }
+
+        public Builder addChargingStation(String location, int slots) {
+            return addChargingStation(intern(location), slots);
+        }
+
+        public Builder addChargingStation(int id, int slots) {
+            if (slots < 1) {
+                throw new IllegalArgumentException("Charging station " + names.get(id) + " needs at least one slot, got " + slots);
+            }
+            chargers.put(id, slots);
+            return this;
+        }
+
+        public Builder addEdge(int from, int to, int distance) {
+            if (distance < 0) {
+                throw new IllegalArgumentException("Negative distance " + distance + " from " + names.get(from) + " to " + names.get(to));
+            }
+            if (edges == this.from.length) {
+                int capacity = edges * 2;
+                this.from = Arrays.copyOf(this.from, capacity);
+                this.to = Arrays.copyOf(this.to, capacity);
+                this.weight = Arrays.copyOf(this.weight, capacity);
+            }
+            this.from[edges] = from;
+            this.to[edges] = to;
+            this.weight[edges] = distance;
+            edges++;
+            return this;
+        }
+
+        // Counting sort by source; a repeated from/to pair keeps its last distance
+        public LocationGraph build() {
+            int n = names.size();
+            int[] edgeStart = new int[n + 1];
+            for (int e = 0; e < edges; e++) {
+                edgeStart[from[e] + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                edgeStart[i + 1] += edgeStart[i];
+            }
+            int[] fill = Arrays.copyOf(edgeStart, n);
+            int[] edgeTarget = new int[edges];
+            int[] edgeWeight = new int[edges];
+            for (int e = 0; e < edges; e++) {
+                int slot = fill[from[e]]++;
+                edgeTarget[slot] = to[e];
+                edgeWeight[slot] = weight[e];
+            }
+            return dropDuplicates(edgeStart, edgeTarget, edgeWeight);
+        }
+
+        private LocationGraph dropDuplicates(int[] edgeStart, int[] edgeTarget, int[] edgeWeight) {
+            int n = names.size();
+            int[] lastSeen = new int[n];
+            Arrays.fill(lastSeen, -1);
+            int kept = 0;
+            int[] compactStart = new int[n + 1];
+            for (int u = 0; u < n; u++) {
+                int rowStart = kept;
+                for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+                    int v = edgeTarget[e];
+                    if (lastSeen[v] >= rowStart) {
+                        edgeWeight[lastSeen[v]] = edgeWeight[e];
+                        continue;
+                    }
+                    lastSeen[v] = kept;
+                    edgeTarget[kept] = v;
+                    edgeWeight[kept] = edgeWeight[e];
+                    kept++;
+                }
+                compactStart[u + 1] = kept;
+            }
+            if (kept < edgeTarget.length) {
+                edgeTarget = Arrays.copyOf(edgeTarget, kept);
+                edgeWeight = Arrays.copyOf(edgeWeight, kept);
+            }
+            float[] xs = null;
+            float[] ys = null;
+            if (x != null) {
+                int known = Math.min(x.length, n);
+                xs = Arrays.copyOf(x, n);
+                ys = Arrays.copyOf(y, n);
+                Arrays.fill(xs, known, n, Float.NaN);
+                Arrays.fill(ys, known, n, Float.NaN);
+            }
+            int[] chargerIds = new int[chargers.size()];
+            int[] chargerSlots = new int[chargers.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Integer> station : chargers.entrySet()) {
+                chargerIds[i] = station.getKey();
+                chargerSlots[i++] = station.getValue();
+            }
+            return new LocationGraph(names.toArray(new String[0]), ids, compactStart, edgeTarget, edgeWeight, xs, ys,
+                                     chargerIds, chargerSlots);
+        }
+    }
+}
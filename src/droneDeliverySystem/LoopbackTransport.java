@@ -0,0 +1,47 @@
+package droneDeliverySystem;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// In-process transport for dispatchers sharing one JVM. Each message is handed to its inbox
+// as an event on the given clock after a fixed latency, so an ACCELERATED run stays
+// deterministic. With no latency it is handed over at once on the sender's thread, so
+// regions running on clocks of their own do not all queue their traffic on this one;
+// RegionNode's inbox only schedules the message on the receiving node's clock.
+class LoopbackTransport implements RegionTransport {
+    private final SimulationClock clock;
+    private final long latencyMillis;
+    private final ConcurrentHashMap<Integer, Consumer<RegionMessage>> inboxes = new ConcurrentHashMap<>();
+    private final AtomicLong sent = new AtomicLong();
+
+    public LoopbackTransport(SimulationClock clock, long latencyMillis) {
+        this.clock = clock;
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public void bind(int region, Consumer<RegionMessage> inbox) {
+        if (inboxes.putIfAbsent(region, inbox) != null) {
+            throw new IllegalStateException("Region " + region + " is already bound");
+        }
+    }
+
+    @Override
+    public void send(int region, RegionMessage message) {
+        Consumer<RegionMessage> inbox = inboxes.get(region);
+        if (inbox == null) {
+            throw new IllegalArgumentException("No dispatcher bound for region " + region);
+        }
+        sent.incrementAndGet();
+        if (latencyMillis == 0) {
+            inbox.accept(message);
+        } else {
+            clock.schedule(latencyMillis, () -> inbox.accept(message));
+        }
+    }
+
+    public long getMessagesSent() {
+        return sent.get();
+    }
+}
@@ -0,0 +1,8 @@
+package droneDeliverySystem;
+
+// Publishes a DeliveryMetrics instance somewhere outside the engine. Exporters only read
+// snapshots on demand, so they add nothing to the dispatch path.
+interface MetricsExporter {
+    void start(DeliveryMetrics metrics);
+    void stop();
+}
@@ -0,0 +1,147 @@
+package droneDeliverySystem;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+// Plain-text record of orders as they were placed, one CSV line per order:
+// "queuedMillis,id,weight,dropOff,priority,deadlineMillis", the deadline counted from the
+// queue time and -1 when there is none. Attached as a listener it records a live run, and
+// the same files feed replays of that run or of a generated workload. Lines starting with
+// '#' are comments.
+//
+// As with DeliveryJournal, a failed write never throws into the delivery system: it goes
+// to the error handler, the log drops every later order, and close() throws it.
+class OrderLog implements DeliveryListener, Closeable {
+    private final BufferedWriter out;
+    private volatile Consumer<IOException> errorHandler = OrderLog::uncaught;
+    private IOException failure;
+
+    private OrderLog(BufferedWriter out) {
+        this.out = out;
+    }
+
+    public static OrderLog create(Path file) throws IOException {
+        BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        out.write("# queuedMillis,id,weight,dropOff,priority,deadlineMillis\n");
+        return new OrderLog(out);
+    }
+
+    // Receives the write failure that stopped the log, on the thread that hit it; by default
+    // it goes to that thread's uncaught exception handler
+    public void setErrorHandler(Consumer<IOException> handler) {
+        this.errorHandler = handler;
+    }
+
+    @Override
+    public void packageQueued(Package pkg) {
+        long deadline = pkg.hasDeadline() ? pkg.getDeadline() - pkg.getQueuedTime() : -1;
+        IOException failed;
+        synchronized (this) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                out.write(format(new Entry(pkg.getQueuedTime(), pkg.getId(), pkg.getWeight(), pkg.getDropOffLocation(),
+                                           pkg.getPriority(), deadline)));
+                return;
+            } catch (IOException e) {
+                failure = e;
+                failed = e;
+            }
+        }
+        errorHandler.accept(failed);
+    }
+
+    // Throws the failure that stopped the log, if any, once the file is released
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            out.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                throw e;
+            }
+        }
+        if (failure != null) {
+            throw new IOException("Order log stopped after a failed write", failure);
+        }
+    }
+
+    private static void uncaught(IOException e) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+
+    public static void write(Path file, List<Entry> entries) throws IOException {
+        try (OrderLog log = create(file)) {
+            for (Entry entry : entries) {
+                log.out.write(format(entry));
+            }
+        }
+    }
+
+    public static List<Entry> read(Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int number = 0;
+            while ((line = in.readLine()) != null) {
+                number++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                try {
+                    if (fields.length != 6) {
+                        throw new IllegalArgumentException("expected 6 fields");
+                    }
+                    entries.add(new Entry(Long.parseLong(fields[0]), fields[1], Double.parseDouble(fields[2]), fields[3],
+                                          PackagePriority.valueOf(fields[4]), Long.parseLong(fields[5])));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(file + ":" + number + ": bad order line '" + line + "'", e);
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static String format(Entry entry) {
+        return entry.time + "," + entry.id + "," + entry.weight + "," + entry.dropOff + ","
+            + entry.priority.name() + "," + entry.deadline + "\n";
+    }
+
+    static class Entry {
+        private final long time;
+        private final String id;
+        private final double weight;
+        private final String dropOff;
+        private final PackagePriority priority;
+        private final long deadline;
+
+        Entry(long time, String id, double weight, String dropOff, PackagePriority priority, long deadline) {
+            this.time = time;
+            this.id = id;
+            this.weight = weight;
+            this.dropOff = dropOff;
+            this.priority = priority;
+            this.deadline = deadline;
+        }
+
+        public long getTime() { return time; }
+        public String getId() { return id; }
+        public double getWeight() { return weight; }
+        public String getDropOffLocation() { return dropOff; }
+        public PackagePriority getPriority() { return priority; }
+        // Relative to the queue time; -1 for none
+        public long getDeadline() { return deadline; }
+
+        // A fresh package for this order, to be placed at getTime()
+        public Package toPackage() {
+            return new Package(id, weight, dropOff, priority, deadline < 0 ? Package.NO_DEADLINE : time + deadline);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package droneDeliverySystem;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Reads orders from a file or socket, one per line as "weight,dropOff[,priority[,deadline]]"
+// with the deadline in milliseconds from when the line is read, and places them in
+// batches. While the queue is full a batch waits, and the stream is not read meanwhile, so a
+// fast sender is slowed down (over TCP by the socket's own flow control) rather than dropped;
+// orders that still do not fit after waitMillis are rejected. Blank lines and lines starting
+// with '#' are skipped; malformed ones, and those for a drop-off not on the map, are counted
+// and skipped.
+class OrderStream {
+    static final int BATCH_SIZE = 512;
+
+    private final DeliverySystem system;
+    private final PackageIdSequence ids;
+    private final long waitMillis;
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder malformed = new LongAdder();
+    private volatile ServerSocket server;
+
+    public OrderStream(DeliverySystem system, PackageIdSequence ids, long waitMillis) {
+        this.system = system;
+        this.ids = ids;
+        this.waitMillis = waitMillis;
+    }
+
+    public long getAccepted() { return accepted.sum(); }
+    public long getRejected() { return rejected.sum(); }
+    public long getMalformed() { return malformed.sum(); }
+
+    public void ingest(Path file) throws IOException, InterruptedException {
+        try (InputStream in = Files.newInputStream(file)) {
+            ingest(in);
+        }
+    }
+
+    // Reads to the end of the stream. A batch is placed once full, or as soon as the sender
+    // pauses, so a slow trickle of orders is not held back waiting for more.
+    public void ingest(InputStream in) throws IOException, InterruptedException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<Package> batch = new ArrayList<>(BATCH_SIZE);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            Package pkg = parse(line.trim());
+            if (pkg != null) {
+                batch.add(pkg);
+            }
+            if (batch.size() == BATCH_SIZE || (!batch.isEmpty() && !reader.ready())) {
+                place(batch);
+            }
+        }
+        place(batch);
+    }
+
+    // Accepts connections on a daemon thread, each read on its own daemon thread until the
+    // sender closes it
+    public void listen(int port) throws IOException {
+        ServerSocket socket = new ServerSocket(port);
+        server = socket;
+        Thread acceptor = new Thread(() -> {
+            while (!socket.isClosed()) {
+                try {
+                    Socket connection = socket.accept();
+                    Thread reader = new Thread(() -> {
+                        try (Socket open = connection) {
+                            ingest(open.getInputStream());
+                        } catch (IOException e) {
+                            // The sender went away; what was read has been placed
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }, "order-stream-" + connection.getRemoteSocketAddress());
+                    reader.setDaemon(true);
+                    reader.start();
+                } catch (IOException e) {
+                    // Closed by close()
+                }
+            }
+        }, "order-stream-" + port);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        ServerSocket socket = server;
+        return socket == null ? -1 : socket.getLocalPort();
+    }
+
+    public void close() throws IOException {
+        ServerSocket socket = server;
+        if (socket != null) {
+            socket.close();
+            server = null;
+        }
+    }
+
+    private void place(List<Package> batch) throws InterruptedException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int placed = system.placeOrders(batch, waitMillis, TimeUnit.MILLISECONDS);
+        accepted.add(placed);
+        rejected.add(batch.size() - placed);
+        batch.clear();
+    }
+
+    private Package parse(String line) {
+        if (line.isEmpty() || line.startsWith("#")) {
+            return null;
+        }
+        String[] fields = line.split(",");
+        if (fields.length >= 2 && fields.length <= 4) {
+            try {
+                double weight = Double.parseDouble(fields[0].trim());
+                PackagePriority priority = fields.length > 2
+                    ? PackagePriority.valueOf(fields[2].trim().toUpperCase(Locale.ROOT)) : PackagePriority.STANDARD;
+                long deadline = fields.length > 3 ? system.getClock().now() + Long.parseLong(fields[3].trim()) : Package.NO_DEADLINE;
+                String dropOff = fields[1].trim();
+                if (weight > 0 && system.knowsLocation(dropOff)) {
+                    return new Package(ids.next(), weight, dropOff, priority, deadline);
+                }
+            } catch (IllegalArgumentException e) {
+                // Bad number or unknown priority
+            }
+        }
+        malformed.increment();
+        return null;
+    }
+}
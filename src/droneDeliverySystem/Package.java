@@ -1,31 +1,76 @@
 package droneDeliverySystem;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 class Package {
+    static final long NO_DEADLINE = Long.MAX_VALUE;
+
     private String id;
     private double weight;
-    private String status;
+    private volatile PackagePriority priority;
+    private volatile long deadline;
+    private final AtomicReference<PackageStatus> status = new AtomicReference<>(PackageStatus.AWAITING_DISPATCH);
     private String dropOffLocation;
-    private String currentLocation;
+    private volatile String currentLocation;
+    private volatile long sequence;
+    private volatile long queuedTime;
+    private volatile long dispatchTime;
+    private volatile long deliveryTime;
+    private volatile long scheduleKey;
+    private volatile boolean late;
 
     public Package(String id, double weight, String dropOffLocation) {
+        this(id, weight, dropOffLocation, PackagePriority.STANDARD, NO_DEADLINE);
+    }
+
+    // deadline is the virtual time the package must be delivered by, or NO_DEADLINE
+    public Package(String id, double weight, String dropOffLocation, PackagePriority priority, long deadline) {
         this.id = id;
         this.weight = weight;
-        this.status = "awaiting dispatch";
         this.dropOffLocation = dropOffLocation;
-        this.currentLocation = "warehouse";
+        this.currentLocation = LocationGraph.WAREHOUSE;
+        this.priority = priority;
+        this.deadline = deadline;
     }
 
     public String getId() { return id; }
     public double getWeight() { return weight; }
-    public String getStatus() { return status; }
+    public PackagePriority getPriority() { return priority; }
+    public long getDeadline() { return deadline; }
+    public boolean hasDeadline() { return deadline != NO_DEADLINE; }
+    public PackageStatus getStatus() { return status.get(); }
     public String getDropOffLocation() { return dropOffLocation; }
     public String getCurrentLocation() { return currentLocation; }
+    public long getSequence() { return sequence; }
+    public long getQueuedTime() { return queuedTime; }
+    public long getDispatchTime() { return dispatchTime; }
+    public long getDeliveryTime() { return deliveryTime; }
+    public long getScheduleKey() { return scheduleKey; }
+    public boolean isLate() { return late; }
 
-    public void setStatus(String status) { this.status = status; }
+    public void setStatus(PackageStatus status) { this.status.set(status); }
     public void setCurrentLocation(String location) { this.currentLocation = location; }
+    public void setSequence(long sequence) { this.sequence = sequence; }
+    public void setQueuedTime(long time) { this.queuedTime = time; }
+    public void setDispatchTime(long time) { this.dispatchTime = time; }
+    public void setDeliveryTime(long time) { this.deliveryTime = time; }
+    public void setPriority(PackagePriority priority) { this.priority = priority; }
+    public void setDeadline(long deadline) { this.deadline = deadline; }
+    public void setScheduleKey(long key) { this.scheduleKey = key; }
+    public void setLate(boolean late) { this.late = late; }
+
+    // Whether it was delivered after its deadline; only meaningful once delivered
+    public boolean missedDeadline() {
+        return hasDeadline() && deliveryTime > deadline;
+    }
+
+    // Atomically moves the package from one status to another; used to claim it for a flight
+    public boolean compareAndSetStatus(PackageStatus expected, PackageStatus updated) {
+        return status.compareAndSet(expected, updated);
+    }
 
     @Override
     public String toString() {
-        return id + " (" + weight + "kg) to " + dropOffLocation + " - " + status;
+        return id + " (" + weight + "kg) to " + dropOffLocation + " - " + status.get();
     }
-}
\ No newline at end of file
+}
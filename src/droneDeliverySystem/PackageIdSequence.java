@@ -0,0 +1,36 @@
+package droneDeliverySystem;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Package ids as a prefix plus a counter ("PKG-1", "PKG-2", ...), safe to draw from any thread
+class PackageIdSequence {
+    private final String prefix;
+    private final AtomicLong next;
+
+    public PackageIdSequence(String prefix) {
+        this(prefix, 1);
+    }
+
+    public PackageIdSequence(String prefix, long first) {
+        this.prefix = prefix;
+        this.next = new AtomicLong(first);
+    }
+
+    public String next() {
+        return prefix + next.getAndIncrement();
+    }
+
+    // Moves past an id already in use, such as one restored from the journal; ids with
+    // another prefix or no number are ignored
+    public void skipPast(String id) {
+        if (!id.startsWith(prefix)) {
+            return;
+        }
+        try {
+            long used = Long.parseLong(id.substring(prefix.length()));
+            next.accumulateAndGet(used + 1, Math::max);
+        } catch (NumberFormatException e) {
+            // Not one of ours
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package droneDeliverySystem;
+
+// Service classes. Each carries the time a package of that class should be dispatched
+// within; packages without an explicit deadline are scheduled as if that were their deadline.
+enum PackagePriority {
+    URGENT("urgent", 30_000),
+    EXPRESS("express", 120_000),
+    STANDARD("standard", 600_000),
+    BULK("bulk", 1_800_000);
+
+    private final String label;
+    private final long targetMillis;
+
+    PackagePriority(String label, long targetMillis) {
+        this.label = label;
+        this.targetMillis = targetMillis;
+    }
+
+    public long getTargetMillis() {
+        return targetMillis;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
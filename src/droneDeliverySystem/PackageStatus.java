@@ -0,0 +1,18 @@
+package droneDeliverySystem;
+
+enum PackageStatus {
+    AWAITING_DISPATCH("awaiting dispatch"),
+    ON_ITS_WAY("on its way"),
+    DELIVERED("delivered");
+
+    private final String label;
+
+    PackageStatus(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,84 @@
+package droneDeliverySystem;
+
+import java.util.Arrays;
+
+// Picks companion packages for a drone that already carries a head package. Works on
+// reusable primitive scratch arrays so the per-dispatch capacity pass allocates nothing.
+class PayloadPacker {
+    private double[] weights = new double[32];
+    private int[] stops = new int[32];
+    private int[] order = new int[32];
+    private int[] chosenStops = new int[33];
+    private int count;
+
+    public void clear() {
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Registers a candidate and returns its index
+    public int add(double weight, int stop) {
+        if (count == weights.length) {
+            int capacity = count * 2;
+            weights = Arrays.copyOf(weights, capacity);
+            stops = Arrays.copyOf(stops, capacity);
+            order = Arrays.copyOf(order, capacity);
+            chosenStops = Arrays.copyOf(chosenStops, capacity + 1);
+        }
+        weights[count] = weight;
+        stops[count] = stop;
+        return count++;
+    }
+
+    // First-fit decreasing into one bin of the given spare capacity, visiting at most
+    // maxStops distinct stops including headStop. Returns how many candidates were taken;
+    // their indices are selected(0) .. selected(n - 1).
+    public int pack(double spareCapacity, int maxStops, int headStop) {
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        for (int i = 1; i < count; i++) {
+            int item = order[i];
+            int j = i - 1;
+            while (j >= 0 && weights[order[j]] < weights[item]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = item;
+        }
+
+        int stopCount = 1;
+        chosenStops[0] = headStop;
+        int taken = 0;
+        double remaining = spareCapacity;
+        for (int i = 0; i < count; i++) {
+            int item = order[i];
+            if (weights[item] > remaining) {
+                continue;
+            }
+            boolean knownStop = false;
+            for (int s = 0; s < stopCount; s++) {
+                if (chosenStops[s] == stops[item]) {
+                    knownStop = true;
+                    break;
+                }
+            }
+            if (!knownStop) {
+                if (stopCount == maxStops) {
+                    continue;
+                }
+                chosenStops[stopCount++] = stops[item];
+            }
+            remaining -= weights[item];
+            order[taken++] = item;
+        }
+        return taken;
+    }
+
+    public int selected(int i) {
+        return order[i];
+    }
+}
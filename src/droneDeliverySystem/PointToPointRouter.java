@@ -0,0 +1,12 @@
+package droneDeliverySystem;
+
+// Answers single source-to-target distance queries over a RouteTable's graph without
+// building a full shortest-path row. Queries run under the table's read lock, so
+// implementations must be safe for concurrent queries but never see an edge change mid-query.
+interface PointToPointRouter {
+    int distance(int source, int target);
+
+    // Called under the table's write lock after the weight of edge u->v was patched in place.
+    // Returns false if the router's preprocessing no longer holds and it must be rebuilt.
+    boolean edgeChanged(int u, int v, int oldWeight, int newWeight);
+}
@@ -0,0 +1,68 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+// What region dispatchers tell each other. The drone and packages travel as the live
+// objects, so messages only make sense between dispatchers in one process.
+class RegionMessage {
+    enum Kind {
+        // How many orders are waiting at the sender
+        LOAD,
+        // Sender has idle drones and asks for up to count orders its drones can carry
+        STEAL,
+        // Waiting orders handed over in answer to a STEAL
+        ORDERS,
+        // A new order placed with the sender for a drop-off the receiver owns
+        PLACE,
+        // A drone that landed in the receiver's region
+        DRONE
+    }
+
+    private final Kind kind;
+    private final int from;
+    private final int count;
+    private final double maxWeight;
+    private final List<Package> packages;
+    private final Drone drone;
+    private final String home;
+
+    private RegionMessage(Kind kind, int from, int count, double maxWeight,
+                          List<Package> packages, Drone drone, String home) {
+        this.kind = kind;
+        this.from = from;
+        this.count = count;
+        this.maxWeight = maxWeight;
+        this.packages = packages;
+        this.drone = drone;
+        this.home = home;
+    }
+
+    public static RegionMessage load(int from, int waiting) {
+        return new RegionMessage(Kind.LOAD, from, waiting, 0, Collections.emptyList(), null, null);
+    }
+
+    public static RegionMessage steal(int from, int count, double maxWeight) {
+        return new RegionMessage(Kind.STEAL, from, count, maxWeight, Collections.emptyList(), null, null);
+    }
+
+    public static RegionMessage orders(int from, List<Package> packages) {
+        return new RegionMessage(Kind.ORDERS, from, packages.size(), 0, packages, null, null);
+    }
+
+    public static RegionMessage place(int from, Package pkg) {
+        return new RegionMessage(Kind.PLACE, from, 1, 0, Collections.singletonList(pkg), null, null);
+    }
+
+    public static RegionMessage drone(int from, Drone drone, String home) {
+        return new RegionMessage(Kind.DRONE, from, 0, 0, Collections.emptyList(), drone, home);
+    }
+
+    public Kind getKind() { return kind; }
+    public int getFrom() { return from; }
+    // Waiting orders for LOAD, orders wanted for STEAL
+    public int getCount() { return count; }
+    public double getMaxWeight() { return maxWeight; }
+    public List<Package> getPackages() { return packages; }
+    public Drone getDrone() { return drone; }
+    public String getHome() { return home; }
+}
@@ -0,0 +1,205 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+// One region's dispatcher: a DeliverySystem with the region's queue and the drones standing
+// in it, plus the handoff protocol with the other regions' nodes over the transport.
+//
+// Orders are queued by the region that owns their drop-off, and a drone that lands outside
+// its region is handed to the owner, so each node only ever dispatches drones on its own
+// ground. Nodes tell their peers how many orders are waiting, at most once per report
+// interval and only when the count changed. A node whose queue is empty while it has idle
+// drones asks the peer with the most waiting orders for some: its drones fly them, and on
+// landing join that region, so drones drift towards where the work is. A request the peer
+// has not answered, say because it is shutting down or its dispatcher is backed up, lapses
+// after STEAL_TIMEOUT_MILLIS and the node asks again. Each further lapse before an answer
+// doubles the wait, so a peer that is only slow to answer is not buried in repeated
+// requests.
+//
+// The peer claims the orders it hands over and takes them off its queue before it answers,
+// and a released drone belongs to no region until its message arrives, so the transport
+// must not lose messages (see RegionTransport). Messages are handled as events on the
+// node's own clock, whichever thread the transport delivers them on.
+class RegionNode implements DeliveryListener {
+    private static final long REPORT_INTERVAL_MILLIS = 1000;
+    static final long STEAL_TIMEOUT_MILLIS = 5 * REPORT_INTERVAL_MILLIS;
+    private static final long MAX_STEAL_TIMEOUT_MILLIS = 1024 * STEAL_TIMEOUT_MILLIS;
+
+    private final int region;
+    private final RegionPartition partition;
+    private final DeliverySystem system;
+    private final RegionTransport transport;
+    private final SimulationClock clock;
+    // Last waiting count each peer reported
+    private final AtomicIntegerArray peerWaiting;
+    private final AtomicBoolean stealing = new AtomicBoolean();
+    // Numbers steal requests, so a timeout only lapses the request it was set for
+    private final AtomicLong stealRequests = new AtomicLong();
+    private volatile SimulationClock.Event stealTimeout;
+    private volatile long stealTimeoutMillis = STEAL_TIMEOUT_MILLIS;
+    private final AtomicBoolean reportPending = new AtomicBoolean();
+    private volatile long lastReport = Long.MIN_VALUE;
+    private volatile int reportedWaiting;
+    private final AtomicLong ordersStolen = new AtomicLong();
+    private final AtomicLong dronesHandedOff = new AtomicLong();
+
+    public RegionNode(int region, RegionPartition partition, DeliverySystem system, RegionTransport transport) {
+        this.region = region;
+        this.partition = partition;
+        this.system = system;
+        this.transport = transport;
+        this.clock = system.getClock();
+        this.peerWaiting = new AtomicIntegerArray(partition.getRegionCount());
+        system.addListener(this);
+        transport.bind(region, message -> clock.schedule(0, () -> receive(message)));
+    }
+
+    public int getRegion() { return region; }
+    public DeliverySystem getSystem() { return system; }
+    // Orders this node took from its peers' queues
+    public long getOrdersStolen() { return ordersStolen.get(); }
+    public long getDronesHandedOff() { return dronesHandedOff.get(); }
+
+    // Queues the order here if this region owns its drop-off, else forwards it to the owner
+    public void placeOrder(Package pkg) {
+        int owner = partition.regionOf(pkg.getDropOffLocation());
+        if (owner == region) {
+            system.placeOrder(pkg);
+        } else {
+            transport.send(owner, RegionMessage.place(region, pkg));
+        }
+    }
+
+    private void receive(RegionMessage message) {
+        int from = message.getFrom();
+        switch (message.getKind()) {
+            case LOAD:
+                peerWaiting.set(from, message.getCount());
+                maybeSteal();
+                break;
+            case STEAL:
+                system.handOffOrders(message.getCount(), message.getMaxWeight(), taken -> {
+                    transport.send(from, RegionMessage.orders(region, taken));
+                    if (!taken.isEmpty()) {
+                        loadChanged();
+                    }
+                });
+                break;
+            case ORDERS:
+                if (message.getPackages().isEmpty()) {
+                    // Nothing our drones can carry; wait for the peer's next report
+                    peerWaiting.set(from, 0);
+                }
+                for (Package pkg : message.getPackages()) {
+                    system.adoptOrder(pkg);
+                }
+                ordersStolen.addAndGet(message.getPackages().size());
+                SimulationClock.Event timeout = stealTimeout;
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+                stealTimeoutMillis = STEAL_TIMEOUT_MILLIS;
+                stealing.set(false);
+                loadChanged();
+                break;
+            case PLACE:
+                for (Package pkg : message.getPackages()) {
+                    placeOrder(pkg);
+                }
+                break;
+            case DRONE:
+                system.adoptDrone(message.getDrone(), message.getHome());
+                loadChanged();
+                break;
+        }
+    }
+
+    @Override
+    public void packageQueued(Package pkg) {
+        loadChanged();
+    }
+
+    @Override
+    public void packageAssigned(Package pkg, Drone drone, int distance) {
+        loadChanged();
+    }
+
+    // A drone that came to rest outside the region belongs to the region it landed in
+    @Override
+    public void stopReached(Drone drone, FlightPlan.Stop stop) {
+        if (!drone.isAvailable()) {
+            return;
+        }
+        int owner = partition.regionOf(drone.getCurrentLocation());
+        String home = system.getHome(drone);
+        if (owner != region && system.releaseDrone(drone)) {
+            dronesHandedOff.incrementAndGet();
+            transport.send(owner, RegionMessage.drone(region, drone, home));
+        }
+        loadChanged();
+    }
+
+    // Reports run as one-shot clock events, so an idle accelerated clock still drains
+    private void loadChanged() {
+        if (!reportPending.compareAndSet(false, true)) {
+            return;
+        }
+        long last = lastReport;
+        long delay = last == Long.MIN_VALUE ? 0 : Math.max(0, last + REPORT_INTERVAL_MILLIS - clock.now());
+        clock.schedule(delay, this::report);
+    }
+
+    private void report() {
+        reportPending.set(false);
+        lastReport = clock.now();
+        int waiting = system.getWaitingCount();
+        if (waiting != reportedWaiting) {
+            reportedWaiting = waiting;
+            for (int peer = 0; peer < partition.getRegionCount(); peer++) {
+                if (peer != region) {
+                    transport.send(peer, RegionMessage.load(region, waiting));
+                }
+            }
+        }
+        maybeSteal();
+    }
+
+    // One request at a time, for no more orders than there are idle drones to fly them
+    private void maybeSteal() {
+        if (system.getWaitingCount() > 0 || system.getAvailableDroneCount() == 0) {
+            return;
+        }
+        int busiest = -1;
+        for (int peer = 0; peer < peerWaiting.length(); peer++) {
+            if (peer != region && peerWaiting.get(peer) > 0
+                    && (busiest < 0 || peerWaiting.get(peer) > peerWaiting.get(busiest))) {
+                busiest = peer;
+            }
+        }
+        if (busiest < 0 || !stealing.compareAndSet(false, true)) {
+            return;
+        }
+        int idle = 0;
+        double maxWeight = 0;
+        for (Drone drone : system.getDrones()) {
+            if (drone.isAvailable()) {
+                idle++;
+                maxWeight = Math.max(maxWeight, drone.getMaxPayloadCapacity());
+            }
+        }
+        if (idle == 0) {
+            stealing.set(false);
+            return;
+        }
+        long request = stealRequests.incrementAndGet();
+        stealTimeout = clock.schedule(stealTimeoutMillis, () -> {
+            // Orders that still arrive later are adopted all the same
+            if (stealRequests.get() == request && stealing.compareAndSet(true, false)) {
+                stealTimeoutMillis = Math.min(2 * stealTimeoutMillis, MAX_STEAL_TIMEOUT_MILLIS);
+                maybeSteal();
+            }
+        });
+        transport.send(busiest, RegionMessage.steal(region, Math.min(idle, peerWaiting.get(busiest)), maxWeight));
+    }
+}
@@ -0,0 +1,82 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+// Splits the location graph into regions, one per dispatcher. Each region grows around a
+// hub: hubs are picked farthest-first, so they spread across the map, and every location
+// joins the hub it can reach soonest. A location that reaches no hub, or is not in the
+// graph at all, belongs to region 0.
+class RegionPartition {
+    private final LocationGraph graph;
+    private final int[] regionOf;
+    private final int[] hubs;
+
+    public RegionPartition(LocationGraph graph, int[] regionOf, int[] hubs) {
+        if (regionOf.length != graph.size()) {
+            throw new IllegalArgumentException("Expected a region for each of " + graph.size() + " locations, got " + regionOf.length);
+        }
+        this.graph = graph;
+        this.regionOf = regionOf;
+        this.hubs = hubs;
+    }
+
+    public static RegionPartition of(LocationGraph graph, int regions) {
+        if (regions < 1 || regions > graph.size()) {
+            throw new IllegalArgumentException("Cannot split " + graph.size() + " locations into " + regions + " regions");
+        }
+        // Rows towards each hub are memoized by a table of our own, dropped once we are done
+        RouteTable routeTable = new RouteTable(graph);
+        int n = graph.size();
+        int[] regionOf = new int[n];
+        int[] nearest = new int[n];
+        Arrays.fill(nearest, RouteTable.UNREACHABLE);
+        int[] hubs = new int[regions];
+        int next = 0;
+        for (int region = 0; region < regions; region++) {
+            if (next < 0) {
+                throw new IllegalArgumentException("Only " + region + " distinct hubs in the graph, wanted " + regions);
+            }
+            hubs[region] = next;
+            int farthest = -1;
+            for (int node = 0; node < n; node++) {
+                int distance = routeTable.distanceTo(node, hubs[region]);
+                if (distance < nearest[node] || region == 0) {
+                    nearest[node] = distance;
+                    regionOf[node] = region;
+                }
+                // Hubs sit at distance 0, so none is picked twice
+                if (nearest[node] > 0 && (farthest < 0 || nearest[node] > nearest[farthest])) {
+                    farthest = node;
+                }
+            }
+            next = farthest;
+        }
+        return new RegionPartition(graph, regionOf, hubs);
+    }
+
+    public LocationGraph getGraph() {
+        return graph;
+    }
+
+    public int getRegionCount() {
+        return hubs.length;
+    }
+
+    public String getHub(int region) {
+        return graph.nameOf(hubs[region]);
+    }
+
+    public int regionOf(String location) {
+        int id = graph.idOf(location);
+        return id < 0 ? 0 : regionOf[id];
+    }
+
+    // Number of locations in each region
+    public int[] sizes() {
+        int[] sizes = new int[hubs.length];
+        for (int region : regionOf) {
+            sizes[region]++;
+        }
+        return sizes;
+    }
+}
@@ -0,0 +1,16 @@
+package droneDeliverySystem;
+
+import java.util.function.Consumer;
+
+// Carries messages between region dispatchers in one process. Delivery is asynchronous and
+// may happen on any thread, but every message must arrive, and messages from one sender to
+// one region arrive in the order they were sent. Messages hand over live drones and
+// packages, and the sender has already given them up, so a lost message would lose them.
+interface RegionTransport {
+    // Registers the handler for messages addressed to the region
+    void bind(int region, Consumer<RegionMessage> inbox);
+
+    void send(int region, RegionMessage message);
+
+    default void close() {}
+}
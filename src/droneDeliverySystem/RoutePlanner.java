@@ -0,0 +1,95 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+// Orders the drop-offs of a consolidated load: nearest-neighbour tour from the drone's
+// position, then 2-opt segment reversals while they shorten the open path. On a directed
+// graph a drop-off can be out of reach from the one before it; a tour with such a leg is
+// rejected rather than flown.
+class RoutePlanner {
+    private final RouteTable routeTable;
+
+    public RoutePlanner(RouteTable routeTable) {
+        this.routeTable = routeTable;
+    }
+
+    // null if no tour found visits every drop-off over reachable legs
+    public FlightPlan plan(String origin, List<Package> load) {
+        Map<String, List<Package>> byLocation = new LinkedHashMap<>();
+        for (Package pkg : load) {
+            byLocation.computeIfAbsent(pkg.getDropOffLocation(), k -> new ArrayList<>()).add(pkg);
+        }
+        List<String> tour = nearestNeighbour(origin, new ArrayList<>(byLocation.keySet()));
+        if (tour.size() > 1) {
+            improve(origin, tour);
+        }
+
+        List<FlightPlan.Stop> stops = new ArrayList<>();
+        String previous = origin;
+        int travelled = 0;
+        for (String location : tour) {
+            int leg = routeTable.distance(previous, location);
+            if (leg == RouteTable.UNREACHABLE) {
+                return null;
+            }
+            travelled += leg;
+            stops.add(new FlightPlan.Stop(location, travelled, byLocation.get(location)));
+            previous = location;
+        }
+        return new FlightPlan(origin, stops);
+    }
+
+    private List<String> nearestNeighbour(String origin, List<String> remaining) {
+        List<String> tour = new ArrayList<>(remaining.size());
+        String current = origin;
+        while (!remaining.isEmpty()) {
+            int best = 0;
+            int bestDistance = Integer.MAX_VALUE;
+            for (int i = 0; i < remaining.size(); i++) {
+                int distance = routeTable.distance(current, remaining.get(i));
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = i;
+                }
+            }
+            current = remaining.remove(best);
+            tour.add(current);
+        }
+        return tour;
+    }
+
+    // Full path cost is re-evaluated per move because the graph may be asymmetric
+    private void improve(String origin, List<String> tour) {
+        int bestCost = cost(origin, tour);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 0; i < tour.size() - 1; i++) {
+                for (int j = i + 1; j < tour.size(); j++) {
+                    Collections.reverse(tour.subList(i, j + 1));
+                    int candidate = cost(origin, tour);
+                    if (candidate < bestCost) {
+                        bestCost = candidate;
+                        improved = true;
+                    } else {
+                        Collections.reverse(tour.subList(i, j + 1));
+                    }
+                }
+            }
+        }
+    }
+
+    private int cost(String origin, List<String> tour) {
+        int total = 0;
+        String previous = origin;
+        for (String location : tour) {
+            total = add(total, routeTable.distance(previous, location));
+            previous = location;
+        }
+        return total;
+    }
+
+    private static int add(int a, int b) {
+        return (a == RouteTable.UNREACHABLE || b == RouteTable.UNREACHABLE) ? RouteTable.UNREACHABLE : a + b;
+    }
+}
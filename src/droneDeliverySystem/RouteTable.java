@@ -0,0 +1,565 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.*;
+
+// Shortest-path table over the location graph. Locations are interned to int ids and
+// each source's Dijkstra row is memoized in primitive arrays, so repeated distance and
+// ETA lookups are array reads. Rows are dropped individually when an edge they depend on changes.
+// Each direction keeps a bounded number of rows, by default as many as fit in ROW_CELLS
+// distances, and a clock sweep evicts rows not read since it last passed them.
+// Cached rows are read without locking; computing a row takes the read lock and edge
+// changes take the write lock, so a row is never built from a half-applied update.
+//
+// On large graphs a full row per source costs too much memory and time, so distance()
+// can instead answer pairs with no memoized row through a point-to-point router (see
+// Routing). Paths and the rows towards a target still come from memoized Dijkstra. A
+// router whose preprocessing an edge change invalidates is preprocessed again on a
+// background thread, from a copy of the edges, and plain Dijkstra answers until it is done.
+class RouteTable {
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int LANDMARKS = 16;
+    // Distances the default row limit allows per direction, and the fewest rows it keeps
+    private static final long ROW_CELLS = 1L << 22;
+    private static final int MIN_ROWS = 16;
+
+    // How distance() answers a pair whose source has no memoized row
+    enum Routing {
+        // Compute and memoize the source's full Dijkstra row
+        ROWS,
+        // Dijkstra that stops at the target; the reference for the others
+        DIJKSTRA,
+        // A* bounded by straight-line distance; needs coordinates
+        A_STAR,
+        // A* bounded by distances to and from landmarks (ALT)
+        LANDMARKS,
+        // Bidirectional search over a contraction hierarchy
+        CONTRACTION_HIERARCHY
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Replaced wholesale when an edge is added and published last, after the arrays it indexes
+    private volatile LocationGraph graph;
+
+    // The graph's compressed sparse rows, plus the same edges reversed
+    private int[] edgeStart;
+    private int[] edgeTarget;
+    private int[] edgeWeight;
+    private int[] edgeSource;
+    private int[] reverseStart;
+    private int[] reverseSource;
+    private int[] reverseWeight;
+    private int[] reverseIndex;
+
+    // Rows from a source, and rows towards a target over the reversed edges
+    private volatile RowCache outRows;
+    private volatile RowCache inRows;
+    // Rows kept per direction; 0 sizes the limit by the graph
+    private int rowLimit;
+
+    private volatile Routing routing = Routing.ROWS;
+    // Null for ROWS; while a replacement is preprocessed, an early-exit Dijkstra
+    private volatile PointToPointRouter router;
+    // Counts edge changes, so preprocessing can tell whether the edges it copied still hold
+    private long edgeVersion;
+    // The routing whose router awaits preprocessing, or null; guarded by the lock
+    private Routing pending;
+    // Whether a background thread is preprocessing; written under the write lock
+    private volatile boolean preprocessing;
+
+    public RouteTable(Map<String, Map<String, Integer>> graph) {
+        this(LocationGraph.fromMap(graph));
+    }
+
+    // Takes ownership of the graph's weight array; route changes are patched into it
+    public RouteTable(LocationGraph graph) {
+        rebuild(graph);
+    }
+
+    public LocationGraph getGraph() {
+        return graph;
+    }
+
+    public int idOf(String location) {
+        return graph.idOf(location);
+    }
+
+    public String nameOf(int id) {
+        return graph.nameOf(id);
+    }
+
+    public int size() {
+        return graph.size();
+    }
+
+    public Routing getRouting() {
+        return routing;
+    }
+
+    // Preprocessing for the new mode runs here, so the first query does not pay for it
+    public void setRouting(Routing routing) {
+        lock.writeLock().lock();
+        try {
+            if (routing == Routing.A_STAR && !graph.hasCoordinates()) {
+                throw new IllegalArgumentException("A* routing needs location coordinates");
+            }
+            this.routing = routing;
+            router = routing == Routing.ROWS ? null : createRouter(routing, this);
+            pending = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Rows kept per direction; 0 restores the default, sized by the graph. Drops every
+    // memoized row.
+    public void setRowLimit(int rows) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("Row limit must not be negative: " + rows);
+        }
+        lock.writeLock().lock();
+        try {
+            rowLimit = rows;
+            outRows = new RowCache(graph.size(), rowLimit(graph.size()));
+            inRows = new RowCache(graph.size(), rowLimit(graph.size()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int rowLimit(int n) {
+        if (rowLimit > 0) {
+            return rowLimit;
+        }
+        return (int) Math.max(MIN_ROWS, ROW_CELLS / Math.max(1, n));
+    }
+
+    // Memoized rows in both directions together, for tests
+    int memoizedRows() {
+        return outRows.count.get() + inRows.count.get();
+    }
+
+    public int distance(String from, String to) {
+        int source = idOf(from);
+        int target = idOf(to);
+        if (source < 0 || target < 0) {
+            return from.equals(to) ? 0 : UNREACHABLE;
+        }
+        Row row = outRows.get(source);
+        if (row != null) {
+            return row.distance[target];
+        }
+        if (routing != Routing.ROWS) {
+            lock.readLock().lock();
+            try {
+                PointToPointRouter current = router;
+                if (current != null) {
+                    return current.distance(source, target);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return outRow(source).distance[target];
+    }
+
+    public List<String> path(String from, String to) {
+        int source = idOf(from);
+        int target = idOf(to);
+        if (source < 0 || target < 0) {
+            return Collections.emptyList();
+        }
+        Row row = outRow(source);
+        if (row.distance[target] == UNREACHABLE) {
+            return Collections.emptyList();
+        }
+        LocationGraph known = graph;
+        LinkedList<String> path = new LinkedList<>();
+        for (int node = target; node != -1; node = row.parent[node]) {
+            path.addFirst(known.nameOf(node));
+        }
+        return path;
+    }
+
+    // Nodes that can reach target, nearest first. Shared with the cache; do not modify.
+    public int[] nodesByDistanceTo(int target) {
+        return inRow(target).order;
+    }
+
+    public int distanceTo(int node, int target) {
+        return inRow(target).distance[node];
+    }
+
+    // Drops every memoized row; the graph itself is kept
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            outRows = new RowCache(graph.size(), rowLimit(graph.size()));
+            inRows = new RowCache(graph.size(), rowLimit(graph.size()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // UNREACHABLE is how a removed edge is kept, so it is no distance to set
+    public void setEdge(String from, String to, int distance) {
+        if (distance < 0 || distance == UNREACHABLE) {
+            throw new IllegalArgumentException("Invalid distance " + distance + " from " + from + " to " + to);
+        }
+        lock.writeLock().lock();
+        try {
+            int edge = findEdge(from, to);
+            if (edge < 0) {
+                rebuild(graph.withEdge(from, to, distance));
+            } else {
+                edgeChanged(edge, distance);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The edge stays in the arrays as unreachable, so restoring it later is a patch too
+    public void removeEdge(String from, String to) {
+        lock.writeLock().lock();
+        try {
+            int edge = findEdge(from, to);
+            if (edge >= 0) {
+                edgeChanged(edge, UNREACHABLE);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Patches the weight in place; only memoized rows whose shortest-path tree is affected
+    // are dropped
+    private void edgeChanged(int edge, int newWeight) {
+        int u = edgeSource[edge];
+        int v = edgeTarget[edge];
+        int oldWeight = edgeWeight[edge];
+        if (oldWeight == newWeight) {
+            return;
+        }
+        edgeWeight[edge] = newWeight;
+        reverseWeight[reverseIndex[edge]] = newWeight;
+
+        for (int s = 0; s < outRows.rows.length(); s++) {
+            Row out = outRows.rows.get(s);
+            if (out != null && out.isAffected(u, v, oldWeight, newWeight)) {
+                outRows.drop(s);
+            }
+            Row in = inRows.rows.get(s);
+            if (in != null && in.isAffected(v, u, oldWeight, newWeight)) {
+                inRows.drop(s);
+            }
+        }
+        edgeVersion++;
+        if (router != null && !router.edgeChanged(u, v, oldWeight, newWeight)) {
+            preprocessAgain();
+        }
+    }
+
+    // Caller holds the write lock. A thread already preprocessing sees the new edge version
+    // when it finishes and starts over.
+    private void preprocessAgain() {
+        if (routing == Routing.DIJKSTRA || routing == Routing.A_STAR) {
+            // No more than a pass over the edges
+            router = createRouter(routing, this);
+            return;
+        }
+        router = new AStarRouter(this);
+        pending = routing;
+        if (preprocessing) {
+            return;
+        }
+        preprocessing = true;
+        Thread thread = new Thread(this::preprocess, "route-preprocessing");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Builds the pending router from a copy of the edges, holding no lock meanwhile, and
+    // installs it unless the edges or the routing changed since the copy was taken
+    private void preprocess() {
+        while (true) {
+            Routing wanted;
+            LocationGraph copy;
+            long version;
+            lock.writeLock().lock();
+            try {
+                wanted = pending;
+                if (wanted == null) {
+                    preprocessing = false;
+                    return;
+                }
+                copy = graph.withOwnWeights();
+                version = edgeVersion;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            PointToPointRouter built = createRouter(wanted, new RouteTable(copy));
+            lock.writeLock().lock();
+            try {
+                if (pending == wanted && edgeVersion == version) {
+                    router = built;
+                    pending = null;
+                    preprocessing = false;
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Whether a router is being preprocessed in the background; Dijkstra answers meanwhile
+    boolean isPreprocessing() {
+        return preprocessing;
+    }
+
+    private int findEdge(String from, String to) {
+        int u = idOf(from);
+        int v = idOf(to);
+        return u < 0 || v < 0 ? -1 : findEdge(u, v);
+    }
+
+    private int findEdge(int u, int v) {
+        for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+            if (edgeTarget[e] == v) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    // Builds the reversed edges for a new graph and drops all rows. Ids of known locations
+    // are stable across rebuilds.
+    private void rebuild(LocationGraph graph) {
+        int n = graph.size();
+        int[] edgeStart = graph.edgeStart();
+        int[] edgeTarget = graph.edgeTarget();
+        int[] edgeWeight = graph.edgeWeight();
+        int edgeCount = edgeTarget.length;
+        int[] edgeSource = new int[edgeCount];
+        int[] reverseStart = new int[n + 1];
+        int[] reverseSource = new int[edgeCount];
+        int[] reverseWeight = new int[edgeCount];
+        int[] reverseIndex = new int[edgeCount];
+
+        for (int e = 0; e < edgeCount; e++) {
+            reverseStart[edgeTarget[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            reverseStart[i + 1] += reverseStart[i];
+        }
+        int[] reverseFill = Arrays.copyOf(reverseStart, n);
+        for (int u = 0; u < n; u++) {
+            for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+                int r = reverseFill[edgeTarget[e]]++;
+                edgeSource[e] = u;
+                reverseSource[r] = u;
+                reverseWeight[r] = edgeWeight[e];
+                reverseIndex[e] = r;
+            }
+        }
+
+        this.edgeStart = edgeStart;
+        this.edgeTarget = edgeTarget;
+        this.edgeWeight = edgeWeight;
+        this.edgeSource = edgeSource;
+        this.reverseStart = reverseStart;
+        this.reverseSource = reverseSource;
+        this.reverseWeight = reverseWeight;
+        this.reverseIndex = reverseIndex;
+        outRows = new RowCache(n, rowLimit(n));
+        inRows = new RowCache(n, rowLimit(n));
+        this.graph = graph;
+        edgeVersion++;
+        if (routing != Routing.ROWS) {
+            preprocessAgain();
+        }
+    }
+
+    // The arrays routers search; weights are patched in place under the write lock
+    int[] edgeStart() { return edgeStart; }
+    int[] edgeTarget() { return edgeTarget; }
+    int[] edgeWeight() { return edgeWeight; }
+    int[] reverseStart() { return reverseStart; }
+    int[] reverseSource() { return reverseSource; }
+    int[] reverseWeight() { return reverseWeight; }
+
+    // Searches run over this table's edges; preprocessing reads the edges of source, which
+    // is this table or a copy that edge changes do not reach
+    private PointToPointRouter createRouter(Routing routing, RouteTable source) {
+        switch (routing) {
+            case DIJKSTRA:
+                return new AStarRouter(this);
+            case A_STAR:
+                return AStarRouter.euclidean(this);
+            case LANDMARKS:
+                return AStarRouter.landmarks(this, source, LANDMARKS);
+            case CONTRACTION_HIERARCHY:
+                return new ContractionHierarchy(source);
+            default:
+                throw new IllegalArgumentException("No point-to-point router for " + routing);
+        }
+    }
+
+    private Row outRow(int source) {
+        Row row = outRows.get(source);
+        if (row != null) {
+            return row;
+        }
+        lock.readLock().lock();
+        try {
+            row = outRows.get(source);
+            if (row == null) {
+                row = outRows.add(source, computeRow(source, edgeStart, edgeTarget, edgeWeight));
+            }
+            return row;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Row inRow(int target) {
+        Row row = inRows.get(target);
+        if (row != null) {
+            return row;
+        }
+        lock.readLock().lock();
+        try {
+            row = inRows.get(target);
+            if (row == null) {
+                row = inRows.add(target, computeRow(target, reverseStart, reverseSource, reverseWeight));
+            }
+            return row;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Row computeRow(int root, int[] start, int[] adjacent, int[] weights) {
+        int n = graph.size();
+        Row row = new Row(n);
+        IntHeap heap = new IntHeap(n);
+        int[] distance = row.distance;
+        int[] parent = row.parent;
+        int settled = 0;
+        distance[root] = 0;
+
+        heap.push(root, 0);
+        while (!heap.isEmpty()) {
+            int current = heap.pop();
+            row.order[settled++] = current;
+            int base = distance[current];
+            for (int e = start[current]; e < start[current + 1]; e++) {
+                int weight = weights[e];
+                if (weight == UNREACHABLE) {
+                    continue;
+                }
+                int next = adjacent[e];
+                // Summed in long: a path too long for an int distance is unreachable
+                long newDist = (long) base + weight;
+                if (newDist < distance[next]) {
+                    distance[next] = (int) newDist;
+                    parent[next] = current;
+                    heap.push(next, (int) newDist);
+                }
+            }
+        }
+        if (settled < n) {
+            row.order = Arrays.copyOf(row.order, settled);
+        }
+        return row;
+    }
+
+    // The memoized rows of one direction, at most limit of them. Rows are added under the
+    // read lock, so adders race only each other; edge changes drop rows under the write lock.
+    private static final class RowCache {
+        final AtomicReferenceArray<Row> rows;
+        final AtomicInteger count = new AtomicInteger();
+        private final AtomicInteger hand = new AtomicInteger();
+        private final int limit;
+
+        RowCache(int n, int limit) {
+            rows = new AtomicReferenceArray<>(n);
+            this.limit = limit;
+        }
+
+        Row get(int root) {
+            Row row = rows.get(root);
+            // Racy on purpose; a lost mark only costs a row its second chance
+            if (row != null && !row.used) {
+                row.used = true;
+            }
+            return row;
+        }
+
+        // Returns the row now memoized for root, which is another thread's if it got there first
+        Row add(int root, Row row) {
+            if (!rows.compareAndSet(root, null, row)) {
+                Row other = rows.get(root);
+                return other != null ? other : row;
+            }
+            if (count.incrementAndGet() > limit) {
+                evictOne();
+            }
+            return row;
+        }
+
+        void drop(int root) {
+            if (rows.getAndSet(root, null) != null) {
+                count.decrementAndGet();
+            }
+        }
+
+        // Clock sweep: clears the used mark of each row it passes and evicts the first row
+        // found unmarked. Two passes always find one unless other threads emptied the cache.
+        private void evictOne() {
+            int n = rows.length();
+            for (int step = 0; step < 2 * n; step++) {
+                int slot = Math.floorMod(hand.getAndIncrement(), n);
+                Row row = rows.get(slot);
+                if (row == null) {
+                    continue;
+                }
+                if (row.used) {
+                    row.used = false;
+                } else if (rows.compareAndSet(slot, row, null)) {
+                    count.decrementAndGet();
+                    return;
+                }
+            }
+        }
+    }
+
+    // One Dijkstra tree. For reversed rows, parent is the next hop towards the root.
+    private static class Row {
+        final int[] distance;
+        final int[] parent;
+        int[] order;
+        // Read since the eviction sweep last passed; new rows start marked
+        boolean used = true;
+
+        Row(int n) {
+            distance = new int[n];
+            parent = new int[n];
+            order = new int[n];
+            Arrays.fill(distance, UNREACHABLE);
+            Arrays.fill(parent, -1);
+        }
+
+        // Whether changing the tree-direction edge u->v from oldWeight to newWeight can
+        // change any distance in this row
+        boolean isAffected(int u, int v, int oldWeight, int newWeight) {
+            if (newWeight < oldWeight) {
+                return distance[u] != UNREACHABLE && (long) distance[u] + newWeight < distance[v];
+            }
+            return parent[v] == u;
+        }
+    }
+}
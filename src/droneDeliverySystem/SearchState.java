@@ -0,0 +1,79 @@
+package droneDeliverySystem;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Distance array and heap for one graph search, reused across queries. Only the entries
+// a search touched are reset afterwards, so a query costs what it explores rather than
+// the size of the graph.
+class SearchState {
+    // Idle states kept per processor and per state a query uses. Searches do not block, so
+    // on any backend only about one per processor runs at a time.
+    private static final int IDLE_PER_PROCESSOR = 2;
+
+    final int[] distance;
+    final IntHeap heap;
+    private int[] touched = new int[64];
+    private int touchedCount;
+
+    SearchState(int nodes) {
+        distance = new int[nodes];
+        Arrays.fill(distance, RouteTable.UNREACHABLE);
+        heap = new IntHeap(nodes);
+    }
+
+    void relax(int node, int newDistance, int key) {
+        if (distance[node] == RouteTable.UNREACHABLE) {
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = node;
+        }
+        distance[node] = newDistance;
+        heap.push(node, key);
+    }
+
+    void reset() {
+        for (int i = 0; i < touchedCount; i++) {
+            distance[touched[i]] = RouteTable.UNREACHABLE;
+        }
+        touchedCount = 0;
+        heap.clear();
+    }
+
+    // States lent to queries one at a time. A thread-local state per thread would allocate
+    // arrays the size of the graph for every virtual thread; the pool keeps only a few idle
+    // states and lets the rest go.
+    static final class Pool {
+        private final int nodes;
+        private final int capacity;
+        private final Queue<SearchState> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+
+        Pool(int nodes, int statesPerQuery) {
+            this.nodes = nodes;
+            capacity = statesPerQuery * IDLE_PER_PROCESSOR * Runtime.getRuntime().availableProcessors();
+        }
+
+        SearchState borrow() {
+            SearchState state = idle.poll();
+            if (state == null) {
+                return new SearchState(nodes);
+            }
+            idleCount.decrementAndGet();
+            return state;
+        }
+
+        // Resets the state, then keeps it unless the pool is full
+        void giveBack(SearchState state) {
+            state.reset();
+            if (idleCount.incrementAndGet() <= capacity) {
+                idle.offer(state);
+            } else {
+                idleCount.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+// Region-sharded dispatch in one process: a RegionNode, with its own DeliverySystem, queue
+// and drone index, for each region of the partition, all on one route table and talking over
+// the given transport. Drones start in the region they stand in. With a REAL_TIME clock the
+// first region runs on it and every other region on a companion clock, so each region's
+// dispatcher, flights and messages run on threads of its own; ACCELERATED regions share the
+// one clock, which keeps a run deterministic.
+//
+// Per-region settings such as dispatch mode or the energy model are applied to the
+// systems from getRegions().
+class ShardedDeliverySystem {
+    private final RegionPartition partition;
+    private final RegionTransport transport;
+    private final RouteTable routeTable;
+    private final List<RegionNode> nodes = new ArrayList<>();
+
+    public ShardedDeliverySystem(List<Drone> drones, SimulationClock clock, LocationGraph graph, int regions) {
+        this(drones, clock, RegionPartition.of(graph, regions), new LoopbackTransport(clock, 0));
+    }
+
+    public ShardedDeliverySystem(List<Drone> drones, SimulationClock clock, RegionPartition partition, RegionTransport transport) {
+        this.partition = partition;
+        this.transport = transport;
+        this.routeTable = new RouteTable(partition.getGraph());
+        List<List<Drone>> fleets = new ArrayList<>();
+        for (int region = 0; region < partition.getRegionCount(); region++) {
+            fleets.add(new ArrayList<>());
+        }
+        for (Drone drone : drones) {
+            fleets.get(partition.regionOf(drone.getCurrentLocation())).add(drone);
+        }
+        for (int region = 0; region < partition.getRegionCount(); region++) {
+            SimulationClock regionClock = region == 0 || clock.isAccelerated() ? clock : clock.companion();
+            DeliverySystem system = new DeliverySystem(fleets.get(region), regionClock, routeTable);
+            nodes.add(new RegionNode(region, partition, system, transport));
+        }
+    }
+
+    public void placeOrder(Package pkg) {
+        nodes.get(partition.regionOf(pkg.getDropOffLocation())).placeOrder(pkg);
+    }
+
+    public RegionPartition getPartition() {
+        return partition;
+    }
+
+    public List<RegionNode> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    public List<DeliverySystem> getRegions() {
+        List<DeliverySystem> regions = new ArrayList<>(nodes.size());
+        for (RegionNode node : nodes) {
+            regions.add(node.getSystem());
+        }
+        return regions;
+    }
+
+    public void addListener(DeliveryListener listener) {
+        for (RegionNode node : nodes) {
+            node.getSystem().addListener(listener);
+        }
+    }
+
+    public void updateRoute(String from, String to, int distance) {
+        routeTable.setEdge(from, to, distance);
+    }
+
+    public void removeRoute(String from, String to) {
+        routeTable.removeEdge(from, to);
+    }
+
+    public void setRouting(RouteTable.Routing routing) {
+        routeTable.setRouting(routing);
+    }
+
+    // Drones currently owned by some region; one being handed over is briefly in none
+    public List<Drone> getDrones() {
+        List<Drone> drones = new ArrayList<>();
+        for (RegionNode node : nodes) {
+            drones.addAll(node.getSystem().getDrones());
+        }
+        return drones;
+    }
+
+    public List<Package> getPackages() {
+        List<Package> packages = new ArrayList<>();
+        for (RegionNode node : nodes) {
+            packages.addAll(node.getSystem().getPackages());
+        }
+        return packages;
+    }
+
+    public void shutdown() {
+        for (RegionNode node : nodes) {
+            node.getSystem().shutdown();
+        }
+        transport.close();
+    }
+}
@@ -0,0 +1,307 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+import java.util.function.Consumer;
+
+// Discrete-event scheduler driving all simulated time. Callbacks run in timestamp order on
+// one clock thread. REAL_TIME fires each event when the (optionally scaled) wall clock reaches
+// it; ACCELERATED jumps straight to the next event so long workloads finish in seconds.
+// A REAL_TIME clock can instead hand due callbacks to an ExecutionBackend, and then callbacks
+// due together may run concurrently.
+class SimulationClock {
+    enum Mode { REAL_TIME, ACCELERATED }
+
+    private final Mode mode;
+    private final double speed;
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private final Lock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private long startNanos;
+    // Set on a companion: the start it shares with the clock it was made from
+    private Long origin;
+    // REAL_TIME: where time stood when the clock was cancelled
+    private volatile long stoppedAt;
+    private long virtualNow;
+    private long sequence;
+    private boolean busy;
+    // Callbacks handed to the executor that have not finished yet
+    private int active;
+    private volatile boolean running;
+    private Thread thread;
+    private ExecutionBackend execution = ExecutionBackend.CLOCK_THREAD;
+    private ExecutorService executor;
+    private volatile Consumer<RuntimeException> errorHandler = SimulationClock::uncaught;
+
+    public SimulationClock(Mode mode) {
+        this(mode, 1.0);
+    }
+
+    // speed is virtual milliseconds per wall-clock millisecond in REAL_TIME mode
+    public SimulationClock(Mode mode, double speed) {
+        this.mode = mode;
+        this.speed = speed;
+    }
+
+    public Mode getMode() { return mode; }
+    public boolean isAccelerated() { return mode == Mode.ACCELERATED; }
+    public ExecutionBackend getExecution() { return execution; }
+
+    // Receives exceptions thrown by callbacks, which are otherwise passed to the running
+    // thread's uncaught exception handler; the clock carries on with the next event either way
+    public void setErrorHandler(Consumer<RuntimeException> handler) {
+        this.errorHandler = handler;
+    }
+
+    // Must be chosen before the clock starts
+    public void useExecution(ExecutionBackend backend) {
+        if (mode == Mode.ACCELERATED && backend != ExecutionBackend.CLOCK_THREAD) {
+            throw new IllegalArgumentException("An ACCELERATED clock runs its callbacks in order on the clock thread");
+        }
+        lock.lock();
+        try {
+            if (running) {
+                throw new IllegalStateException("Clock already started");
+            }
+            executor = backend.newExecutor();
+            execution = backend;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void start() {
+        lock.lock();
+        try {
+            if (running) {
+                return;
+            }
+            // Set before running is published, so now() never measures from an unset start
+            startNanos = origin != null ? origin : System.nanoTime();
+            running = true;
+            thread = new Thread(this::run, "simulation-clock");
+            thread.setDaemon(true);
+            thread.start();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // A second REAL_TIME clock at the same speed and on the same backend that reads the same
+    // virtual time as this one, so another dispatcher can run its events on threads of its
+    // own. Starts this clock if it is not running yet.
+    public SimulationClock companion() {
+        if (mode != Mode.REAL_TIME) {
+            throw new IllegalStateException("An ACCELERATED clock's time only moves with its own events");
+        }
+        start();
+        SimulationClock companion = new SimulationClock(mode, speed);
+        companion.useExecution(execution);
+        lock.lock();
+        try {
+            companion.origin = startNanos;
+        } finally {
+            lock.unlock();
+        }
+        return companion;
+    }
+
+    // Current virtual time in milliseconds since start; a cancelled clock stays where it stopped
+    public long now() {
+        if (mode == Mode.REAL_TIME) {
+            return running ? elapsed() : stoppedAt;
+        }
+        lock.lock();
+        try {
+            return virtualNow;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Event schedule(long delayMillis, Runnable action) {
+        return scheduleAt(now() + Math.max(0, delayMillis), action);
+    }
+
+    public Event scheduleAt(long time, Runnable action) {
+        lock.lock();
+        try {
+            Event event = new Event(time, sequence++, action);
+            events.add(event);
+            if (events.peek() == event) {
+                changed.signalAll();
+            }
+            return event;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Blocks until no events are pending or running, or the timeout elapses
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (busy || active > 0 || hasLiveEvents()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = changed.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Lets pending events run for up to the given time, then stops the clock thread
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            awaitIdle(timeout, unit);
+        } finally {
+            cancel();
+        }
+    }
+
+    // Stops at once: pending events are dropped and callbacks still running on executor
+    // threads are interrupted
+    public void cancel() {
+        ExecutorService callbacks;
+        lock.lock();
+        try {
+            if (running && mode == Mode.REAL_TIME) {
+                stoppedAt = elapsed();
+            }
+            running = false;
+            events.clear();
+            changed.signalAll();
+            callbacks = executor;
+        } finally {
+            lock.unlock();
+        }
+        if (callbacks != null) {
+            callbacks.shutdownNow();
+        }
+    }
+
+    // Scaled from nanoseconds, so a fast clock does not jump speed milliseconds at a time
+    private long elapsed() {
+        return (long) ((System.nanoTime() - startNanos) / 1e6 * speed);
+    }
+
+    private boolean hasLiveEvents() {
+        while (!events.isEmpty() && events.peek().cancelled) {
+            events.poll();
+        }
+        return !events.isEmpty();
+    }
+
+    private void run() {
+        while (true) {
+            Event next;
+            lock.lock();
+            try {
+                busy = false;
+                changed.signalAll();
+                while (true) {
+                    if (!running) {
+                        return;
+                    }
+                    if (!hasLiveEvents()) {
+                        changed.await();
+                        continue;
+                    }
+                    next = events.peek();
+                    if (mode == Mode.REAL_TIME) {
+                        long ahead = next.time - now();
+                        if (ahead > 0) {
+                            // Rounded up: a wait cut short by rounding would run the event early
+                            changed.awaitNanos((long) Math.ceil(ahead * 1e6 / speed));
+                            continue;
+                        }
+                    } else {
+                        virtualNow = Math.max(virtualNow, next.time);
+                    }
+                    events.poll();
+                    busy = true;
+                    if (executor != null) {
+                        active++;
+                    }
+                    break;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            if (executor == null) {
+                runAction(next);
+                continue;
+            }
+            Event event = next;
+            try {
+                executor.execute(() -> {
+                    try {
+                        // Callbacks still waiting for a thread when the clock is cancelled never start
+                        if (running) {
+                            runAction(event);
+                        }
+                    } finally {
+                        finished();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Cancelled while this event was being handed over
+                finished();
+            }
+        }
+    }
+
+    private void runAction(Event event) {
+        try {
+            event.action.run();
+        } catch (RuntimeException e) {
+            errorHandler.accept(e);
+        }
+    }
+
+    private static void uncaught(RuntimeException e) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+
+    private void finished() {
+        lock.lock();
+        try {
+            active--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static final class Event implements Comparable<Event> {
+        private final long time;
+        private final long sequence;
+        private final Runnable action;
+        private volatile boolean cancelled;
+
+        private Event(long time, long sequence, Runnable action) {
+            this.time = time;
+            this.sequence = sequence;
+            this.action = action;
+        }
+
+        public long getTime() { return time; }
+        public void cancel() { cancelled = true; }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package droneDeliverySystem;
+
+// Fixed-size ring of the most recent status messages. Appending overwrites the oldest
+// entry, so memory stays bounded however long the simulation runs.
+class StatusLog {
+    private final String[] entries;
+    private int next;
+    private int size;
+    private long version;
+
+    public StatusLog(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid log capacity " + capacity);
+        }
+        this.entries = new String[capacity];
+    }
+
+    public synchronized void add(String message) {
+        entries[next] = message;
+        next = (next + 1) % entries.length;
+        size = Math.min(size + 1, entries.length);
+        version++;
+    }
+
+    // Incremented on every add; lets a renderer skip frames where nothing was logged
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    // Newest message first, one per line
+    public synchronized String text() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= size; i++) {
+            if (i > 1) {
+                text.append('\n');
+            }
+            text.append(entries[(next - i + entries.length) % entries.length]);
+        }
+        return text.toString();
+    }
+}
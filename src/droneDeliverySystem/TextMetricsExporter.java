@@ -0,0 +1,57 @@
+package droneDeliverySystem;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+// Serves the metrics as "name value" lines, one per metric, at http://host:port/metrics
+class TextMetricsExporter implements MetricsExporter {
+    private static final String PREFIX = "drone_delivery_";
+
+    private final int port;
+    private HttpServer server;
+
+    public TextMetricsExporter(int port) {
+        this.port = port;
+    }
+
+    public static String format(DeliveryMetrics metrics) {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Number> metric : metrics.snapshot().entrySet()) {
+            text.append(PREFIX).append(metric.getKey()).append(' ').append(metric.getValue()).append('\n');
+        }
+        return text.toString();
+    }
+
+    @Override
+    public void start(DeliveryMetrics metrics) {
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open metrics endpoint on port " + port, e);
+        }
+        server.createContext("/metrics", exchange -> {
+            byte[] body = format(metrics).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    public int getPort() {
+        return server == null ? port : server.getAddress().getPort();
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+}
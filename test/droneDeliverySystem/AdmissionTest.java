@@ -0,0 +1,166 @@
+package droneDeliverySystem;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// The order limit: batches are accepted up to it and the rest rejected, a timed placement
+// waits for the dispatcher to make room, and the order stream counts what it could not read
+public class AdmissionTest {
+    private static final String[] STOPS = {"A", "B", "C", "D"};
+
+    private final List<String> rejected = Collections.synchronizedList(new ArrayList<>());
+
+    // No drones, so nothing leaves the queue until the test adopts one
+    private DeliverySystem system(SimulationClock clock, int limit) {
+        DeliverySystem system = new DeliverySystem(new ArrayList<>(), clock, TestGraphs.line(STOPS, new int[] {2, 3, 4}));
+        system.useOrderLimit(limit);
+        system.addListener(new DeliveryListener() {
+            @Override
+            public void orderRejected(Package pkg) {
+                rejected.add(pkg.getId());
+            }
+        });
+        return system;
+    }
+
+    private static List<Package> orders(String prefix, int count) {
+        List<Package> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            orders.add(new Package(prefix + i, 1, STOPS[1 + i % 3]));
+        }
+        return orders;
+    }
+
+    public void testBatchIsAcceptedUpToTheLimit() {
+        DeliverySystem system = system(new SimulationClock(SimulationClock.Mode.ACCELERATED), 5);
+        Check.equal(3, system.placeOrders(orders("A-", 3)), "accepted from the first batch");
+        Check.equal(2, system.placeOrders(orders("B-", 4)), "accepted from the second batch");
+        Check.equal(Arrays.asList("B-2", "B-3"), rejected, "rejected, in batch order");
+        Check.equal(5, system.getWaitingCount(), "waiting");
+        Check.check(!system.offerOrder(new Package("C-0", 1, "B")), "offer accepted at the limit");
+
+        // placeOrder is not subject to the limit
+        system.placeOrder(new Package("D-0", 1, "B"));
+        Check.equal(6, system.getWaitingCount(), "waiting after placeOrder");
+        Check.equal(Arrays.asList("B-2", "B-3", "C-0"), rejected, "rejected");
+        system.shutdown();
+    }
+
+    // No drone could fly to a drop-off that is not on the map, so such an order would hold
+    // its room under the limit for good
+    public void testOrdersOffTheMapAreRejected() {
+        DeliverySystem system = system(new SimulationClock(SimulationClock.Mode.ACCELERATED), 3);
+        List<Package> batch = orders("A-", 3);
+        batch.add(1, new Package("X-0", 1, "Nowhere"));
+        Check.equal(3, system.placeOrders(batch), "accepted");
+        Check.equal(Collections.singletonList("X-0"), rejected, "rejected");
+        Check.check(!system.placeOrder(new Package("X-1", 1, "Nowhere")), "placed an order off the map");
+        Check.equal(Arrays.asList("X-0", "X-1"), rejected, "rejected");
+        Check.equal(3, system.getWaitingCount(), "waiting");
+        system.shutdown();
+    }
+
+    // The queue is full until a drone is adopted half a second in; dispatching to it frees
+    // room well within the timeout
+    public void testTimedPlacementWaitsForRoom() throws InterruptedException {
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.REAL_TIME, 1_000);
+        DeliverySystem system = system(clock, 2);
+        Check.equal(2, system.placeOrders(orders("A-", 2)), "accepted before the wait");
+        Thread adopter = new Thread(() -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                return;
+            }
+            system.adoptDrone(new Drone("DR-1", 5, "A"), "A");
+        });
+        adopter.start();
+
+        long start = System.nanoTime();
+        int accepted = system.placeOrders(orders("B-", 3), 30, TimeUnit.SECONDS);
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        adopter.join();
+        system.shutdown();
+        Check.equal(3, accepted, "accepted after waiting");
+        Check.equal(Collections.emptyList(), rejected, "rejected");
+        Check.check(waited >= 400, "did not wait for room, returned after " + waited + " ms");
+        Check.check(waited < 20_000, "waited until close to the timeout: " + waited + " ms");
+    }
+
+    public void testTimedPlacementRejectsAfterTheTimeout() throws InterruptedException {
+        DeliverySystem system = system(new SimulationClock(SimulationClock.Mode.ACCELERATED), 2);
+        long start = System.nanoTime();
+        int accepted = system.placeOrders(orders("A-", 4), 200, TimeUnit.MILLISECONDS);
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        system.shutdown();
+        Check.equal(2, accepted, "accepted");
+        Check.equal(Arrays.asList("A-2", "A-3"), rejected, "rejected");
+        Check.equal(2, system.getWaitingCount(), "waiting");
+        Check.check(waited >= 190, "gave up after only " + waited + " ms");
+    }
+
+    public void testOrderStreamCountsMalformedLines() throws Exception {
+        DeliverySystem system = system(new SimulationClock(SimulationClock.Mode.ACCELERATED), 100);
+        OrderStream stream = new OrderStream(system, new PackageIdSequence("PKG-"), 0);
+        String lines = String.join("\n",
+            "# weight,dropOff,priority,deadline",
+            "2,B",
+            "",
+            "1.5, C, urgent",
+            "3,D,EXPRESS,60000",
+            "heavy,B",
+            "2",
+            "2,B,SOON",
+            "2,B,STANDARD,tomorrow",
+            "0,B",
+            "-1,C",
+            "1,B,STANDARD,1000,extra",
+            "   ",
+            "2,Nowhere",
+            "4,C");
+        stream.ingest(new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8)));
+        system.shutdown();
+        Check.equal(4, stream.getAccepted(), "accepted");
+        Check.equal(0, stream.getRejected(), "rejected");
+        Check.equal(8, stream.getMalformed(), "malformed");
+        List<String> ids = new ArrayList<>();
+        for (Package pkg : system.getPackages()) {
+            ids.add(pkg.getId());
+        }
+        Collections.sort(ids);
+        Check.equal(Arrays.asList("PKG-1", "PKG-2", "PKG-3", "PKG-4"), ids, "ids drawn only for good lines");
+    }
+
+    // Orders past the limit are rejected once the stream's wait runs out, and counted apart
+    // from malformed lines
+    public void testOrderStreamRejectsWhatDoesNotFit() throws Exception {
+        DeliverySystem system = system(new SimulationClock(SimulationClock.Mode.ACCELERATED), 3);
+        OrderStream stream = new OrderStream(system, new PackageIdSequence("PKG-"), 50);
+        stream.ingest(new ByteArrayInputStream("1,B\n1,C\n1,D\n1,B\nbad\n1,C\n".getBytes(StandardCharsets.UTF_8)));
+        system.shutdown();
+        Check.equal(3, stream.getAccepted(), "accepted");
+        Check.equal(2, stream.getRejected(), "rejected");
+        Check.equal(1, stream.getMalformed(), "malformed");
+        Check.equal(Arrays.asList("PKG-4", "PKG-5"), rejected, "rejected orders");
+    }
+
+    public void testIdSequenceSkipsPastRestoredIds() {
+        PackageIdSequence ids = new PackageIdSequence("PKG-");
+        Check.equal("PKG-1", ids.next(), "first id");
+        ids.skipPast("PKG-41");
+        Check.equal("PKG-42", ids.next(), "after skipping past PKG-41");
+        // Ids already behind the sequence, with another prefix, or with no number change nothing
+        ids.skipPast("PKG-7");
+        ids.skipPast("ORD-100");
+        ids.skipPast("PKG-");
+        ids.skipPast("PKG-x");
+        ids.skipPast("PKG-99999999999999999999");
+        Check.equal("PKG-43", ids.next(), "after ids that are not ahead");
+
+        PackageIdSequence fromTen = new PackageIdSequence("R1-", 10);
+        fromTen.skipPast("R1-3");
+        Check.equal("R1-10", fromTen.next(), "first id from 10");
+    }
+}
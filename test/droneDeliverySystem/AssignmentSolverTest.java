@@ -0,0 +1,106 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+// The Hungarian solver against brute force over every assignment on small random matrices
+public class AssignmentSolverTest {
+    private static final long UNREACHABLE = RouteTable.UNREACHABLE;
+
+    public void testWideMatricesMatchBruteForce() {
+        compareRandom(new Random(1), false);
+    }
+
+    public void testTallMatricesMatchBruteForce() {
+        compareRandom(new Random(2), true);
+    }
+
+    // A quarter of the cells unreachable: the solver must still use as few as it can
+    public void testUnreachableCellsAreAvoidedWhereverPossible() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 300; trial++) {
+            int rows = 1 + random.nextInt(5);
+            int columns = 1 + random.nextInt(5);
+            long[][] cost = randomMatrix(random, rows, columns, 4);
+            compare(cost);
+        }
+    }
+
+    public void testSquareMatchIsAPermutation() {
+        long[][] cost = {
+            {4, 1, 3},
+            {2, 0, 5},
+            {3, 2, 2},
+        };
+        int[] match = AssignmentSolver.solve(cost);
+        Check.equal(Arrays.asList(1, 0, 2), Arrays.asList(match[0], match[1], match[2]), "match");
+    }
+
+    public void testEmptyMatrices() {
+        Check.equal(0, AssignmentSolver.solve(new long[0][0]).length, "rows matched");
+        int[] match = AssignmentSolver.solve(new long[2][0]);
+        Check.equal(Arrays.asList(-1, -1), Arrays.asList(match[0], match[1]), "match with no columns");
+    }
+
+    private static void compareRandom(Random random, boolean tall) {
+        for (int trial = 0; trial < 300; trial++) {
+            int small = 1 + random.nextInt(4);
+            int large = small + random.nextInt(3);
+            long[][] cost = tall ? randomMatrix(random, large, small, 0) : randomMatrix(random, small, large, 0);
+            compare(cost);
+        }
+    }
+
+    // Costs 0-99, with one cell in unreachableOneIn (if positive) set to UNREACHABLE
+    private static long[][] randomMatrix(Random random, int rows, int columns, int unreachableOneIn) {
+        long[][] cost = new long[rows][columns];
+        for (long[] row : cost) {
+            for (int j = 0; j < columns; j++) {
+                row[j] = unreachableOneIn > 0 && random.nextInt(unreachableOneIn) == 0 ? UNREACHABLE : random.nextInt(100);
+            }
+        }
+        return cost;
+    }
+
+    private static void compare(long[][] cost) {
+        int rows = cost.length;
+        int columns = cost[0].length;
+        int[] match = AssignmentSolver.solve(cost);
+        Check.equal(rows, match.length, "rows in the match");
+        Set<Integer> used = new HashSet<>();
+        long total = 0;
+        int matched = 0;
+        for (int i = 0; i < rows; i++) {
+            if (match[i] < 0) {
+                continue;
+            }
+            Check.check(used.add(match[i]), "column " + match[i] + " matched twice in " + Arrays.deepToString(cost));
+            total += cost[i][match[i]];
+            matched++;
+        }
+        Check.equal(Math.min(rows, columns), matched, "rows matched in " + Arrays.deepToString(cost));
+        Check.equal(bruteForce(cost, 0, new boolean[columns], Math.min(rows, columns)), total, "total cost of " + Arrays.deepToString(cost));
+    }
+
+    // Cheapest way to match the rows from row on to free columns, leaving exactly as many
+    // rows unmatched as there are more rows than columns
+    private static long bruteForce(long[][] cost, int row, boolean[] taken, int toMatch) {
+        if (toMatch == 0) {
+            return 0;
+        }
+        long best = Long.MAX_VALUE;
+        if (cost.length - row > toMatch) {
+            best = bruteForce(cost, row + 1, taken, toMatch);
+        }
+        for (int j = 0; j < taken.length; j++) {
+            if (!taken[j]) {
+                taken[j] = true;
+                long rest = bruteForce(cost, row + 1, taken, toMatch - 1);
+                taken[j] = false;
+                if (rest != Long.MAX_VALUE) {
+                    best = Math.min(best, cost[row][j] + rest);
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,131 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Threads racing for the same drones and packages, claiming them the way dispatchers do: a
+// package moves from AWAITING_DISPATCH to ON_ITS_WAY, then a drone is claimed for it, and
+// the package is put back if no drone could be had. Each claim must have exactly one winner.
+public class ClaimTest {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 200;
+
+    // All threads start together on the same drone, or the same package; one of them wins
+    public void testOneWinnerPerRace() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                Drone drone = new Drone("DR-1", 5, "A");
+                Package pkg = new Package("PKG-" + round, 1, "B");
+                boolean relocating = round % 2 == 0;
+                CyclicBarrier start = new CyclicBarrier(THREADS);
+                List<Future<boolean[]>> attempts = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    Package own = new Package("PKG-" + round + "-" + t, 1, "B");
+                    attempts.add(threads.submit(() -> {
+                        start.await();
+                        boolean claimedDrone = relocating ? drone.relocate("C") : drone.assignPackage(own);
+                        boolean claimedPackage = pkg.compareAndSetStatus(PackageStatus.AWAITING_DISPATCH, PackageStatus.ON_ITS_WAY);
+                        return new boolean[] {claimedDrone, claimedPackage};
+                    }));
+                }
+                int droneWinners = 0;
+                int packageWinners = 0;
+                for (Future<boolean[]> attempt : attempts) {
+                    boolean[] won = attempt.get(1, TimeUnit.MINUTES);
+                    droneWinners += won[0] ? 1 : 0;
+                    packageWinners += won[1] ? 1 : 0;
+                }
+                Check.equal(1, droneWinners, "threads that claimed the drone in round " + round);
+                Check.equal(1, packageWinners, "threads that claimed the package in round " + round);
+                Check.check(!drone.isAvailable(), "drone available after being claimed");
+                Check.equal(PackageStatus.ON_ITS_WAY, pkg.getStatus(), "package status");
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    // Fewer drones than threads, each claim released again at once, until every package has
+    // flown. No drone is ever held by two threads, and each package flies exactly once.
+    public void testClaimsAndReleasesUnderContention() throws Exception {
+        List<Drone> drones = new ArrayList<>();
+        Map<Drone, AtomicInteger> holders = new ConcurrentHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            Drone drone = new Drone("DR-" + i, 5, "A");
+            drones.add(drone);
+            holders.put(drone, new AtomicInteger());
+        }
+        List<Package> packages = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            packages.add(new Package("PKG-" + i, 1 + i % 4, "B"));
+        }
+        Map<String, Integer> flown = new ConcurrentHashMap<>();
+        AtomicInteger overlaps = new AtomicInteger();
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t * 61;
+            workers.add(threads.submit(() -> {
+                start.await();
+                while (flown.size() < packages.size()) {
+                    for (int i = 0; i < packages.size(); i++) {
+                        Package pkg = packages.get((i + offset) % packages.size());
+                        if (!pkg.compareAndSetStatus(PackageStatus.AWAITING_DISPATCH, PackageStatus.ON_ITS_WAY)) {
+                            continue;
+                        }
+                        Drone claimed = null;
+                        for (Drone drone : drones) {
+                            if (drone.assignPackage(pkg)) {
+                                claimed = drone;
+                                break;
+                            }
+                        }
+                        if (claimed == null) {
+                            Check.check(pkg.compareAndSetStatus(PackageStatus.ON_ITS_WAY, PackageStatus.AWAITING_DISPATCH),
+                                        pkg.getId() + " taken from its claimant");
+                            continue;
+                        }
+                        if (holders.get(claimed).incrementAndGet() != 1) {
+                            overlaps.incrementAndGet();
+                        }
+                        flown.merge(pkg.getId(), 1, Integer::sum);
+                        Check.check(pkg.compareAndSetStatus(PackageStatus.ON_ITS_WAY, PackageStatus.DELIVERED),
+                                    pkg.getId() + " taken from its claimant");
+                        holders.get(claimed).decrementAndGet();
+                        claimed.completeDelivery();
+                    }
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get(1, TimeUnit.MINUTES);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof AssertionError) {
+                        throw (AssertionError) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        Check.equal(0, overlaps.get(), "drones held by two threads at once");
+        Check.equal(packages.size(), flown.size(), "packages flown");
+        for (Map.Entry<String, Integer> flights : flown.entrySet()) {
+            Check.equal(1, (long) flights.getValue(), flights.getKey() + " flights");
+        }
+        for (Package pkg : packages) {
+            Check.equal(PackageStatus.DELIVERED, pkg.getStatus(), pkg.getId() + " status");
+        }
+        for (Drone drone : drones) {
+            Check.check(drone.isAvailable(), drone.getId() + " left claimed");
+        }
+    }
+}
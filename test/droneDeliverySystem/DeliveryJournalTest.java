@@ -0,0 +1,234 @@
+package droneDeliverySystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Journals a run, reopens the directory and checks what recovery rebuilds from it
+public class DeliveryJournalTest {
+    private static Path directory() throws IOException {
+        Path directory = Files.createTempDirectory("journal-test");
+        directory.toFile().deleteOnExit();
+        return directory;
+    }
+
+    private static List<String> ids(List<Package> packages) {
+        List<String> ids = new ArrayList<>();
+        for (Package pkg : packages) {
+            ids.add(pkg.getId());
+        }
+        return ids;
+    }
+
+    // The drone delivers at D and flies home to A empty; the heavy order fits no drone and
+    // is still waiting when the run ends
+    public void testRecoveryRestoresWaitingOrdersAndWhereDronesLanded() throws Exception {
+        Path directory = directory();
+        LocationGraph graph = TestGraphs.line(new String[] {"A", "B", "C", "D"}, new int[] {2, 3, 4});
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.ACCELERATED);
+        DeliverySystem system = new DeliverySystem(Collections.singletonList(new Drone("DR-1", 5, "A")), clock, graph);
+        system.useReturnToBase();
+        try (DeliveryJournal journal = DeliveryJournal.open(directory)) {
+            Check.equal(0, journal.getRecovery().getPendingCount(), "orders in a new journal");
+            system.addListener(journal);
+            system.placeOrder(new Package("PKG-1", 2, "D"));
+            Check.check(clock.awaitIdle(1, TimeUnit.MINUTES), "clock still busy");
+            system.placeOrder(new Package("PKG-2", 9, "C"));
+            Check.check(clock.awaitIdle(1, TimeUnit.MINUTES), "clock still busy");
+            journal.sync();
+        }
+        system.shutdown();
+
+        try (DeliveryJournal journal = DeliveryJournal.open(directory)) {
+            DeliveryJournal.Recovery recovery = journal.getRecovery();
+            Check.equal(Collections.singletonList("PKG-2"), ids(recovery.getPendingPackages()), "pending orders");
+            Check.equal("A", recovery.getDroneLocations().get("DR-1"), "drone location");
+        }
+    }
+
+    // The map loses the drop-off of a recovered order between runs. Restoring rejects it and
+    // the journal stops recovering it; the other order is placed again as before.
+    public void testOrderOffTheMapIsDiscardedOnRestore() throws Exception {
+        Path directory = directory();
+        try (DeliveryJournal journal = DeliveryJournal.open(directory)) {
+            journal.packageQueued(new Package("PKG-1", 1, "B"));
+            journal.packageQueued(new Package("PKG-2", 1, "Z"));
+        }
+        LocationGraph graph = TestGraphs.line(new String[] {"A", "B", "C"}, new int[] {2, 3});
+        List<String> rejected = new ArrayList<>();
+        try (DeliveryJournal journal = DeliveryJournal.open(directory)) {
+            DeliverySystem system = new DeliverySystem(new ArrayList<>(), new SimulationClock(SimulationClock.Mode.ACCELERATED), graph);
+            system.addListener(new DeliveryListener() {
+                @Override
+                public void orderRejected(Package pkg) {
+                    rejected.add(pkg.getId());
+                }
+            });
+            system.restore(journal.getRecovery());
+            system.shutdown();
+            Check.equal(1, system.getWaitingCount(), "waiting after restore");
+        }
+        Check.equal(Collections.singletonList("PKG-2"), rejected, "rejected on restore");
+        try (DeliveryJournal journal = DeliveryJournal.open(directory)) {
+            Check.equal(Collections.singletonList("PKG-1"), ids(journal.getRecovery().getPendingPackages()), "pending orders");
+        }
+    }
+
+    // Small segments and frequent snapshots, so recovery reads a snapshot plus the tail
+    public void testRecoveryAcrossSegmentsAndSnapshots() throws Exception {
+        Path directory = directory();
+        Drone drone = new Drone("DR-1", 5, "N0");
+        List<String> pending = new ArrayList<>();
+        try (DeliveryJournal journal = DeliveryJournal.open(directory, 4096, 50, 0)) {
+            for (int i = 0; i < 1_000; i++) {
+                Package pkg = new Package("PKG-" + i, 1, TestGraphs.name(i % 7));
+                journal.packageQueued(pkg);
+                if (i % 3 == 0) {
+                    pending.add(pkg.getId());
+                    continue;
+                }
+                journal.packageAssigned(pkg, drone, 1);
+                pkg.setCurrentLocation(pkg.getDropOffLocation());
+                journal.packageDelivered(pkg, drone);
+            }
+            journal.stopReached(drone, new FlightPlan.Stop("N9", 3, Collections.emptyList()));
+        }
+
+        try (DeliveryJournal journal = DeliveryJournal.open(directory)) {
+            DeliveryJournal.Recovery recovery = journal.getRecovery();
+            Check.equal(pending, ids(recovery.getPendingPackages()), "pending orders");
+            Check.equal("N9", recovery.getDroneLocations().get("DR-1"), "drone location");
+            Check.check(recovery.getRecordsReplayed() < 100, recovery.getRecordsReplayed() + " records replayed past the snapshot");
+        }
+        int segments = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "journal-*.log")) {
+            for (Path file : files) {
+                segments++;
+            }
+        }
+        Check.check(segments <= 2, segments + " segments left behind the latest snapshot");
+    }
+
+    // A bit flips in the first record of the second segment. Recovery keeps only the orders
+    // before it, although later segments are intact, and the journal carries on from there
+    // without those segments coming back on the next start.
+    public void testReplayStopsAtTheFirstCorruptRecord() throws Exception {
+        Path directory = directory();
+        try (DeliveryJournal journal = DeliveryJournal.open(directory, 4096, 1_000_000, 0)) {
+            for (int i = 0; i < 300; i++) {
+                journal.packageQueued(new Package("PKG-" + i, 1, TestGraphs.name(i % 7)));
+            }
+        }
+        List<Path> segments = segments(directory);
+        Check.check(segments.size() > 2, "only " + segments.size() + " segments written");
+        try (FileChannel channel = FileChannel.open(segments.get(1), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer body = ByteBuffer.allocate(1);
+            channel.read(body, 12);
+            body.put(0, (byte) (body.get(0) ^ 1));
+            body.rewind();
+            channel.write(body, 12);
+        }
+        long kept = firstLsn(segments.get(1));
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < kept; i++) {
+            expected.add("PKG-" + i);
+        }
+
+        try (DeliveryJournal journal = DeliveryJournal.open(directory, 4096, 1_000_000, 0)) {
+            Check.equal(expected, ids(journal.getRecovery().getPendingPackages()), "orders recovered");
+            Check.equal(2, segments(directory).size(), "segments after the corrupt one left behind");
+            journal.packageQueued(new Package("PKG-new", 1, "N0"));
+        }
+        expected.add("PKG-new");
+        try (DeliveryJournal journal = DeliveryJournal.open(directory)) {
+            Check.equal(expected, ids(journal.getRecovery().getPendingPackages()), "orders recovered after carrying on");
+        }
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "journal-*.log")) {
+            for (Path file : files) {
+                segments.add(file);
+            }
+        }
+        segments.sort(Comparator.comparingLong(DeliveryJournalTest::firstLsn));
+        return segments;
+    }
+
+    private static long firstLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length()));
+    }
+
+    // Events racing with shutdown must not throw into the delivery system
+    public void testClosedJournalDropsRecords() throws Exception {
+        Path directory = directory();
+        DeliveryJournal journal = DeliveryJournal.open(directory);
+        journal.close();
+        journal.packageQueued(new Package("PKG-1", 1, "N0"));
+        try (DeliveryJournal reopened = DeliveryJournal.open(directory)) {
+            Check.equal(0, reopened.getRecovery().getPendingCount(), "orders recovered");
+        }
+    }
+
+    // The journal's directory disappears mid-run, so its next segment cannot be created. The
+    // journal stops and reports it once; the dispatcher thread keeps delivering and sees no
+    // exception from the journal's callbacks.
+    public void testDiskFailureStopsTheJournalButNotDispatch() throws Exception {
+        Path directory = directory();
+        DeliveryJournal journal = DeliveryJournal.open(directory, 4096, 1_000_000, 0);
+        List<IOException> failures = new CopyOnWriteArrayList<>();
+        journal.setErrorHandler(failures::add);
+        LocationGraph graph = TestGraphs.line(new String[] {"A", "B", "C", "D"}, new int[] {2, 3, 4});
+        List<Drone> fleet = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            fleet.add(new Drone("DR-" + i, 5, "A"));
+        }
+        DeliverySystem system = new DeliverySystem(fleet, new SimulationClock(SimulationClock.Mode.REAL_TIME, 1_000), graph);
+        AtomicInteger listenerErrors = new AtomicInteger();
+        system.setErrorHandler(e -> listenerErrors.incrementAndGet());
+        system.addListener(journal);
+
+        placeAndAwait(system, 0, 20);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+        placeAndAwait(system, 20, 200);
+        system.shutdown();
+
+        Check.equal(1, failures.size(), "failures reported");
+        Check.equal(0, listenerErrors.get(), "exceptions thrown into the delivery system");
+        Check.equal(0, system.getWaitingCount(), "waiting");
+        try {
+            journal.sync();
+            Check.check(false, "sync() on a stopped journal returned");
+        } catch (IOException expected) {
+            Check.equal(failures.get(0), expected.getCause(), "cause of the sync() failure");
+        }
+        try {
+            journal.close();
+            Check.check(false, "close() on a stopped journal returned");
+        } catch (IOException expected) {
+            Check.equal(failures.get(0), expected.getCause(), "cause of the close() failure");
+        }
+    }
+
+    private static void placeAndAwait(DeliverySystem system, int first, int count) throws InterruptedException {
+        for (int i = first; i < first + count; i++) {
+            system.placeOrder(new Package("PKG-" + i, 2, "BCD".substring(i % 3, i % 3 + 1)));
+        }
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (system.getMetrics().getDelivered() < first + count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Check.equal(first + count, system.getMetrics().getDelivered(), "delivered");
+    }
+}
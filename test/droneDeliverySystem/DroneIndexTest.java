@@ -0,0 +1,54 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+// Which available drone the index offers for a package: the nearest one that can lift it,
+// and among drones at that distance the one with the least capacity to spare
+public class DroneIndexTest {
+    private static final String[] STOPS = {"A", "B", "C"};
+
+    private final DroneIndex index = new DroneIndex(new RouteTable(TestGraphs.line(STOPS, new int[] {2, 3})));
+    private final Drone large = new Drone("DR-10", 10, "B");
+    private final Drone small = new Drone("DR-3", 3, "B");
+    private final Drone medium = new Drone("DR-5", 5, "B");
+    private final Drone away = new Drone("DR-4", 4, "A");
+
+    private void indexAll() {
+        for (Drone drone : Arrays.asList(large, small, medium, away)) {
+            Check.check(index.add(drone), "could not index " + drone.getId());
+        }
+    }
+
+    public void testSmallestDroneThatCanLiftThePackage() {
+        indexAll();
+        Check.equal(small, index.nearest("B", 2), "for 2 kg at B");
+        Check.equal(small, index.nearest("B", 3), "for 3 kg at B");
+        Check.equal(medium, index.nearest("B", 4), "for 4 kg at B");
+        Check.equal(large, index.nearest("B", 6), "for 6 kg at B");
+        Check.equal(null, index.nearest("B", 11), "for 11 kg at B");
+        Check.equal(away, index.nearest("A", 4), "for 4 kg at A");
+        Check.equal(null, index.nearest("Nowhere", 1), "for a drop-off off the map");
+    }
+
+    // Distance comes first: the 10 kg drone at B beats the 4 kg one that fits better but is
+    // further away
+    public void testNearerDroneBeatsABetterFit() {
+        indexAll();
+        Check.check(index.remove(small), "could not remove the 3 kg drone");
+        Check.check(index.remove(medium), "could not remove the 5 kg drone");
+        Check.equal(large, index.nearest("B", 4), "for 4 kg at B");
+        Check.equal(away, index.nearest("A", 4), "for 4 kg at A");
+        Check.equal(large, index.nearest("C", 4), "for 4 kg at C");
+    }
+
+    // Nearest first, and smallest capacity first at each location
+    public void testCollectNearestOrder() {
+        indexAll();
+        List<Drone> found = new ArrayList<>();
+        index.collectNearest("B", 4, 10, found);
+        Check.equal(Arrays.asList(medium, large, away), found, "drones for 4 kg at B");
+        found.clear();
+        index.collectNearest("B", 1, 2, found);
+        Check.equal(Arrays.asList(small, medium), found, "first two drones for 1 kg at B");
+    }
+}
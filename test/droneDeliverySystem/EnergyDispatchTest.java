@@ -0,0 +1,62 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A battery-limited fleet on a 400-location grid with four chargers. Drones end up idling
+// away from the chargers with too little charge for the heavier orders but above the
+// recharge threshold; dispatch has to send them to charge or those orders wait forever.
+public class EnergyDispatchTest {
+    private static final long SEED = 4;
+    private static final int ORDERS = 1_000;
+
+    public void testGreedyDeliversEveryOrder() throws InterruptedException {
+        run(DeliverySystem.DispatchMode.GREEDY);
+    }
+
+    public void testBatchDeliversEveryOrder() throws InterruptedException {
+        run(DeliverySystem.DispatchMode.BATCH);
+    }
+
+    private static void run(DeliverySystem.DispatchMode mode) throws InterruptedException {
+        Random random = new Random(SEED);
+        int[] chargers = {random.nextInt(400), random.nextInt(400), random.nextInt(400), random.nextInt(400)};
+        LocationGraph graph = TestGraphs.grid(20, SEED, chargers);
+        List<Drone> fleet = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            fleet.add(new Drone("DR-" + i, 10, TestGraphs.name(random.nextInt(400)), 600));
+        }
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.ACCELERATED);
+        DeliverySystem system = new DeliverySystem(fleet, clock, graph);
+        system.useEnergyModel(new EnergyModel(4, 1, 2, 0.3));
+        if (mode == DeliverySystem.DispatchMode.BATCH) {
+            system.useBatchDispatch(2_000, 32);
+        }
+        AtomicInteger delivered = new AtomicInteger();
+        AtomicInteger flat = new AtomicInteger();
+        system.addListener(new DeliveryListener() {
+            @Override
+            public void packageDelivered(Package pkg, Drone drone) {
+                delivered.incrementAndGet();
+            }
+
+            @Override
+            public void stopReached(Drone drone, FlightPlan.Stop stop) {
+                if (drone.getCharge() < 0) {
+                    flat.incrementAndGet();
+                }
+            }
+        });
+        for (int i = 0; i < ORDERS; i++) {
+            Package pkg = new Package("PKG-" + i, 1 + random.nextInt(5), TestGraphs.name(random.nextInt(400)));
+            clock.scheduleAt(i * 1_000L, () -> system.placeOrder(pkg));
+        }
+
+        Check.check(clock.awaitIdle(1, TimeUnit.MINUTES), "clock still busy");
+        Check.equal(ORDERS, delivered.get(), "delivered");
+        Check.equal(0, system.getWaitingCount(), "waiting");
+        Check.equal(0, flat.get(), "stops reached with a flat battery");
+        system.shutdown();
+    }
+}
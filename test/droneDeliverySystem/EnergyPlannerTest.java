@@ -0,0 +1,59 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+public class EnergyPlannerTest {
+    private static EnergyPlanner planner(LocationGraph graph, EnergyModel model) {
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.ACCELERATED);
+        return new EnergyPlanner(new RouteTable(graph), model, new ChargingScheduler(graph, clock, model, new DeliveryListeners()));
+    }
+
+    private static FlightPlan direct(LocationGraph graph, String from, Package pkg) {
+        return new RoutePlanner(new RouteTable(graph)).plan(from, Collections.singletonList(pkg));
+    }
+
+    // A -1- S -2- B: 0.5 Wh is just short of the direct leg plus the reserve back to S (by
+    // rounding), but reaching S on the way leaves exactly what the rest needs
+    public void testStationWithEnoughChargeIsFlownThrough() {
+        LocationGraph graph = TestGraphs.line(new String[] {"A", "S", "B"}, new int[] {1, 2}, "S");
+        EnergyPlanner planner = planner(graph, new EnergyModel(0.1, 0, 1, 0.3));
+        Drone drone = new Drone("D1", 5, "A", 1.0);
+        Package pkg = new Package("P1", 1, "B");
+
+        FlightPlan plan = planner.plan(direct(graph, "A", pkg), drone, 0.5);
+
+        Check.check(plan != null, "no plan although the charge suffices");
+        Check.equal(2, plan.getStops().size(), "stops");
+        FlightPlan.Stop through = plan.getStops().get(0);
+        Check.equal("S", through.getLocation(), "first stop");
+        Check.check(!through.isCharging(), "charges at S although it holds enough");
+        Check.equal("B", plan.getFinalLocation(), "final stop");
+        Check.equal(3, plan.getTotalDistance(), "distance");
+    }
+
+    // S1 -10- X -10- S2 -3- B with a full 20 Wh battery at S1: charging at S1 adds nothing,
+    // so the stop has to be S2
+    public void testFullDroneChargesWhereItGainsEnergy() {
+        LocationGraph graph = TestGraphs.line(new String[] {"S1", "X", "S2", "B"}, new int[] {10, 10, 3}, "S1", "S2");
+        EnergyPlanner planner = planner(graph, new EnergyModel(1, 0, 1, 0.3));
+        Drone drone = new Drone("D1", 5, "S1", 20);
+        Package pkg = new Package("P1", 1, "B");
+
+        FlightPlan plan = planner.plan(direct(graph, "S1", pkg), drone, 20);
+
+        Check.check(plan != null, "no plan with a charger on the way");
+        FlightPlan.Stop charge = plan.getStops().get(0);
+        Check.equal("S2", charge.getLocation(), "charging stop");
+        Check.check(charge.isCharging(), "does not charge at S2");
+        Check.equal(6.0, charge.getChargeTo(), "charge target");
+        Check.equal("B", plan.getFinalLocation(), "final stop");
+    }
+
+    public void testLegBeyondAFullBatteryIsRejected() {
+        LocationGraph graph = TestGraphs.line(new String[] {"S", "X", "B"}, new int[] {15, 15}, "S");
+        EnergyPlanner planner = planner(graph, new EnergyModel(1, 0, 1, 0.3));
+        Drone drone = new Drone("D1", 5, "S", 20);
+
+        Check.equal(null, planner.plan(direct(graph, "S", new Package("P1", 1, "B")), drone, 20), "plan");
+    }
+}
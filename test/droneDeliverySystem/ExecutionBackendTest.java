@@ -0,0 +1,114 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs a REAL_TIME system on every backend this JVM supports while another thread keeps
+// releasing and re-adopting idle drones, as a neighbouring region would. A drone claimed
+// between landing and being indexed must not leave the index with a stale or doubled entry.
+public class ExecutionBackendTest {
+    private static final int ORDERS = 1000;
+    private static final int FLEET = 3;
+
+    public void testSupportMatchesCreatingAnExecutor() {
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            ExecutorService executor;
+            try {
+                executor = backend.newExecutor();
+            } catch (UnsupportedOperationException e) {
+                Check.check(!backend.isSupported(), backend + " supported but could not create an executor");
+                continue;
+            }
+            Check.check(backend.isSupported(), backend + " created an executor but is not supported");
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    // The interleaving the stress test below can only hope to hit: the drone lands, another
+    // thread claims it and removes it from the index, and only then does the landing index it
+    public void testDroneClaimedBeforeItIsIndexedStaysOut() {
+        DroneIndex index = new DroneIndex(new RouteTable(TestGraphs.grid(2, 1)));
+        Drone drone = new Drone("DR-1", 5, "N0");
+        Check.check(drone.relocate("N0"), "could not claim the drone");
+        Check.check(!index.remove(drone), "removed a drone that was never indexed");
+        Check.check(!index.add(drone), "indexed a claimed drone");
+        Check.equal(0, index.size(), "indexed drones");
+        Check.check(index.nearest("N0", 1) == null, "claimed drone still found");
+
+        // Landing again, and adopted in between by a thread that indexes it too
+        drone.completeDelivery();
+        Check.check(index.add(drone), "could not index the landed drone");
+        Check.check(!index.add(drone), "indexed the drone twice");
+        Check.equal(1, index.size(), "indexed drones");
+    }
+
+    public void testDroneIndexUnderContentionOnEveryBackend() throws InterruptedException {
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            if (backend.isSupported()) {
+                runWithContention(backend);
+            }
+        }
+    }
+
+    private static void runWithContention(ExecutionBackend backend) throws InterruptedException {
+        LocationGraph graph = TestGraphs.grid(4, 3);
+        List<Drone> fleet = new ArrayList<>();
+        for (int i = 0; i < FLEET; i++) {
+            fleet.add(new Drone("DR-" + i, 5, TestGraphs.name(i * 3)));
+        }
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.REAL_TIME, 10_000);
+        clock.useExecution(backend);
+        DeliverySystem system = new DeliverySystem(fleet, clock, graph);
+        AtomicInteger delivered = new AtomicInteger();
+        system.addListener(new DeliveryListener() {
+            @Override
+            public void packageDelivered(Package pkg, Drone drone) {
+                delivered.incrementAndGet();
+            }
+        });
+
+        AtomicBoolean contending = new AtomicBoolean(true);
+        AtomicInteger handedOver = new AtomicInteger();
+        Thread contender = new Thread(() -> {
+            while (contending.get()) {
+                for (Drone drone : fleet) {
+                    String home = system.getHome(drone);
+                    if (home != null && system.releaseDrone(drone)) {
+                        system.adoptDrone(drone, home);
+                        handedOver.incrementAndGet();
+                    }
+                }
+                Thread.yield();
+            }
+        }, "contender");
+        contender.start();
+        Random random = new Random(4);
+        for (int i = 0; i < ORDERS; i++) {
+            system.placeOrder(new Package("PKG-" + i, 1 + random.nextInt(4), TestGraphs.name(random.nextInt(16))));
+        }
+
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (delivered.get() < ORDERS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        contending.set(false);
+        contender.join();
+        // The last landings may still be indexing their drones
+        deadline = System.currentTimeMillis() + 5_000;
+        while (system.getAvailableDroneCount() != FLEET && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        system.shutdown();
+
+        Check.equal(ORDERS, delivered.get(), backend + " delivered");
+        Check.check(handedOver.get() > 0, backend + " never handed a drone over");
+        for (Drone drone : fleet) {
+            Check.check(drone.isAvailable(), backend + " left " + drone.getId() + " claimed");
+        }
+        Check.equal(FLEET, system.getAvailableDroneCount(), backend + " indexed drones");
+    }
+}
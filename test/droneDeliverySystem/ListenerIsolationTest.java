@@ -0,0 +1,81 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A listener that throws must not take the dispatcher, a flight or the listeners after it
+// down with it; its exceptions go to the system's error handler
+public class ListenerIsolationTest {
+    private static final String[] STOPS = {"A", "B", "C", "D"};
+
+    private static final class Failing implements DeliveryListener {
+        @Override
+        public void packageQueued(Package pkg) {
+            throw new IllegalStateException("queued " + pkg.getId());
+        }
+
+        @Override
+        public void packageAssigned(Package pkg, Drone drone, int distance) {
+            throw new IllegalStateException("assigned " + pkg.getId());
+        }
+
+        @Override
+        public void packageDelivered(Package pkg, Drone drone) {
+            throw new IllegalStateException("delivered " + pkg.getId());
+        }
+    }
+
+    // Runs on the dispatcher thread of a REAL_TIME clock, where an escaping exception used
+    // to end dispatching for good
+    public void testDispatcherOutlivesAFailingListener() throws InterruptedException {
+        LocationGraph graph = TestGraphs.line(STOPS, new int[] {2, 3, 4});
+        List<Drone> fleet = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            fleet.add(new Drone("DR-" + i, 5, "A"));
+        }
+        DeliverySystem system = new DeliverySystem(fleet, new SimulationClock(SimulationClock.Mode.REAL_TIME, 1_000), graph);
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger delivered = new AtomicInteger();
+        system.setErrorHandler(e -> errors.incrementAndGet());
+        system.addListener(new Failing());
+        system.addListener(new DeliveryListener() {
+            @Override
+            public void packageDelivered(Package pkg, Drone drone) {
+                delivered.incrementAndGet();
+            }
+        });
+        for (int i = 0; i < 30; i++) {
+            system.placeOrder(new Package("PKG-" + i, 2, STOPS[1 + i % 3]));
+        }
+
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (delivered.get() < 30 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        system.shutdown();
+        Check.equal(30, delivered.get(), "delivered");
+        Check.equal(30, system.getMetrics().getDelivered(), "delivered in the metrics");
+        Check.equal(90, errors.get(), "errors reported");
+        Check.equal(0, system.getWaitingCount(), "waiting");
+    }
+
+    // Every order whose room was reserved is queued, even though announcing each one throws
+    public void testFailingListenerDoesNotLeakReservedRoom() {
+        DeliverySystem system = new DeliverySystem(new ArrayList<>(), new SimulationClock(SimulationClock.Mode.ACCELERATED),
+                                                   TestGraphs.line(STOPS, new int[] {2, 3, 4}));
+        AtomicInteger errors = new AtomicInteger();
+        system.setErrorHandler(e -> errors.incrementAndGet());
+        system.addListener(new Failing());
+        system.useOrderLimit(10);
+        List<Package> orders = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            orders.add(new Package("PKG-" + i, 1, "B"));
+        }
+
+        Check.equal(10, system.placeOrders(orders), "accepted");
+        Check.equal(10, system.getWaitingCount(), "waiting");
+        Check.equal(10, system.getPackages().size(), "queued");
+        Check.equal(10, errors.get(), "errors reported");
+        system.shutdown();
+    }
+}
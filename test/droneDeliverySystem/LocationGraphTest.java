@@ -0,0 +1,111 @@
+package droneDeliverySystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+// Writes graphs in the binary form and reads them back, intact and damaged
+public class LocationGraphTest {
+    private static Path file() throws IOException {
+        Path file = Files.createTempFile("graph-test", ".bin");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    // A 5x5 grid with chargers, and coordinates except at one node
+    private static LocationGraph graph() {
+        LocationGraph graph = TestGraphs.grid(5, 17, 0, 12, 24);
+        float[] x = new float[graph.size()];
+        float[] y = new float[graph.size()];
+        for (int i = 0; i < graph.size(); i++) {
+            x[i] = i % 5;
+            y[i] = i / 5;
+        }
+        x[7] = Float.NaN;
+        y[7] = Float.NaN;
+        return graph.withCoordinates(x, y);
+    }
+
+    // Byte offset of the edge arrays: the three header ints, then each name with its length
+    private static int arrays(LocationGraph graph) {
+        int offset = 12;
+        for (String name : graph.getLocations()) {
+            offset += 2 + name.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return offset;
+    }
+
+    private static void assertCorrupt(Path file, int offset, int value) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(offset, value);
+        Path damaged = file();
+        Files.write(damaged, bytes);
+        try {
+            LocationGraph.loadBinary(damaged);
+            throw new AssertionError("loaded a graph with " + value + " at byte " + offset);
+        } catch (IOException e) {
+            Check.check(e.getMessage().contains("at byte " + offset + ":"), "offset not reported: " + e.getMessage());
+        }
+    }
+
+    public void testBinaryRoundTrip() throws Exception {
+        LocationGraph graph = graph();
+        Path file = file();
+        graph.writeBinary(file);
+        LocationGraph loaded = LocationGraph.loadBinary(file);
+
+        Check.equal(graph.getLocations(), loaded.getLocations(), "locations");
+        for (String location : graph.getLocations()) {
+            Check.equal(graph.idOf(location), loaded.idOf(location), "id of " + location);
+        }
+        Check.check(Arrays.equals(graph.edgeStart(), loaded.edgeStart()), "edge starts differ");
+        Check.check(Arrays.equals(graph.edgeTarget(), loaded.edgeTarget()), "edge targets differ");
+        Check.check(Arrays.equals(graph.edgeWeight(), loaded.edgeWeight()), "edge weights differ");
+        // Arrays.equals on floats compares NaN equal to NaN
+        Check.check(Arrays.equals(graph.coordinateX(), loaded.coordinateX()), "x coordinates differ");
+        Check.check(Arrays.equals(graph.coordinateY(), loaded.coordinateY()), "y coordinates differ");
+        Check.check(Arrays.equals(graph.chargingStations(), loaded.chargingStations()), "charging stations differ");
+        for (int station : graph.chargingStations()) {
+            Check.equal(graph.chargingSlots(station), loaded.chargingSlots(station), "slots at " + station);
+        }
+    }
+
+    public void testCorruptFilesAreRefused() throws Exception {
+        LocationGraph graph = graph();
+        Path file = file();
+        graph.writeBinary(file);
+        int nodes = graph.size();
+        int edges = graph.edgeCount();
+        int arrays = arrays(graph);
+
+        assertCorrupt(file, 4, -1);
+        assertCorrupt(file, 8, -5);
+        // A row that starts before the previous one, and one past the last edge
+        assertCorrupt(file, arrays + 4 * 3, graph.edgeStart()[2] - 1);
+        assertCorrupt(file, arrays + 4 * 3, edges + 1);
+        assertCorrupt(file, arrays + 4 * nodes, edges - 1);
+        assertCorrupt(file, arrays + 4 * (nodes + 1 + 5), nodes);
+        assertCorrupt(file, arrays + 4 * (nodes + 1 + 5), -1);
+        assertCorrupt(file, arrays + 4 * (nodes + 1 + edges + 5), -3);
+        // Past the coordinates: the station count, then the first station id
+        int stations = arrays + 4 * (nodes + 1 + 2 * edges + 1 + 2 * nodes);
+        assertCorrupt(file, stations + 4, nodes);
+    }
+
+    public void testTruncatedFileIsRefused() throws Exception {
+        LocationGraph graph = graph();
+        Path file = file();
+        graph.writeBinary(file);
+        byte[] bytes = Files.readAllBytes(file);
+        Path truncated = file();
+        Files.write(truncated, Arrays.copyOf(bytes, arrays(graph) + 4 * graph.size()));
+        try {
+            LocationGraph.loadBinary(truncated);
+            throw new AssertionError("loaded a truncated graph");
+        } catch (IOException e) {
+            Check.check(e.getMessage().contains("truncated"), "unexpected error: " + e.getMessage());
+        }
+    }
+}
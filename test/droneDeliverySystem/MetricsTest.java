@@ -0,0 +1,135 @@
+package droneDeliverySystem;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import javax.management.*;
+
+// Histogram buckets and percentiles, and the two exporters publishing the same snapshot
+public class MetricsTest {
+    // Below 32 every value has a bucket of its own, so percentiles are exact
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 0; value < 32; value++) {
+            histogram.record(value);
+        }
+        for (int rank = 1; rank <= 32; rank++) {
+            Check.equal(rank - 1, histogram.valueAtPercentile(rank * 100.0 / 32), "value of rank " + rank);
+        }
+        Check.equal(32, histogram.getCount(), "count");
+        Check.equal(31, histogram.getMax(), "max");
+        Check.check(histogram.getMean() == 15.5, "mean " + histogram.getMean());
+    }
+
+    // A percentile is the upper bound of its bucket, never below the value and at most one
+    // sixteenth above it, and never above the largest value recorded
+    public void testLargeValuesWithinOneSixteenth() {
+        long[] values = {32, 33, 47, 48, 63, 64, 100, 1_000, 4_095, 4_096, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for (long value : values) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(value);
+            histogram.record(0);
+            long bound = histogram.valueAtPercentile(100);
+            Check.equal(value, bound, "single " + value + " capped at the max");
+            histogram.record(value + 1 > 0 ? value + 1 : value);
+            histogram.record(0);
+            long p75 = histogram.valueAtPercentile(75);
+            Check.check(p75 >= value && p75 - value <= value / 16 + 1, "bucket bound " + p75 + " for " + value);
+        }
+    }
+
+    // 1..1000 once each: the median falls in 496-511 and p99 in 976-991, and negative
+    // values count as 0
+    public void testPercentilesOfAUniformRun() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 1_000; value++) {
+            histogram.record(value);
+        }
+        Check.equal(511, histogram.valueAtPercentile(50), "p50");
+        Check.equal(991, histogram.valueAtPercentile(99), "p99");
+        Check.equal(1_000, histogram.valueAtPercentile(100), "p100");
+        Check.equal(1, histogram.valueAtPercentile(0), "p0");
+        Check.check(histogram.getMean() == 500.5, "mean " + histogram.getMean());
+
+        histogram.reset();
+        Check.equal(0, histogram.getCount(), "count after reset");
+        Check.equal(0, histogram.valueAtPercentile(50), "p50 after reset");
+        histogram.record(-5);
+        Check.equal(0, histogram.getMax(), "max after a negative value");
+        Check.equal(1, histogram.getCount(), "count after a negative value");
+    }
+
+    private static DeliveryMetrics metrics() {
+        DeliveryMetrics metrics = new DeliveryMetrics(() -> 3, Collections.singletonList(new Drone("DR-1", 5, "A")));
+        for (int i = 0; i < 2; i++) {
+            metrics.packageQueued(new Package("PKG-" + i, 1, "B"));
+        }
+        metrics.orderRejected(new Package("PKG-9", 1, "B"));
+        metrics.chargingStarted(new Drone("DR-2", 5, "A"), "A", 40);
+        return metrics;
+    }
+
+    // One "name value" line per snapshot entry, in snapshot order, served over HTTP as well
+    public void testTextExporterServesEveryMetric() throws IOException {
+        DeliveryMetrics metrics = metrics();
+        String text = TextMetricsExporter.format(metrics);
+        List<String> lines = Arrays.asList(text.split("\n"));
+        Map<String, Number> snapshot = metrics.snapshot();
+        Check.equal(snapshot.size(), lines.size(), "lines");
+        Iterator<Map.Entry<String, Number>> expected = snapshot.entrySet().iterator();
+        for (String line : lines) {
+            Map.Entry<String, Number> metric = expected.next();
+            Check.equal("drone_delivery_" + metric.getKey() + " " + metric.getValue(), line, "line");
+        }
+        Check.check(lines.contains("drone_delivery_orders_queued_total 2"), "queued count missing from " + text);
+        Check.check(lines.contains("drone_delivery_orders_rejected_total 1"), "rejected count missing from " + text);
+        Check.check(lines.contains("drone_delivery_queue_depth 3"), "queue depth missing from " + text);
+        Check.check(lines.contains("drone_delivery_charger_wait_ms_max 40"), "charger wait missing from " + text);
+
+        TextMetricsExporter exporter = new TextMetricsExporter(0);
+        exporter.start(metrics);
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + exporter.getPort() + "/metrics").openConnection();
+            Check.equal(200, connection.getResponseCode(), "status");
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (InputStream in = connection.getInputStream()) {
+                byte[] buffer = new byte[4096];
+                for (int read; (read = in.read(buffer)) > 0; ) {
+                    body.write(buffer, 0, read);
+                }
+            }
+            Check.equal(text, new String(body.toByteArray(), StandardCharsets.UTF_8), "served text");
+        } finally {
+            exporter.stop();
+        }
+    }
+
+    // Every snapshot entry is a read-only attribute of the MBean, gone once stopped
+    public void testJmxExporterRegistersEveryMetric() throws Exception {
+        DeliveryMetrics metrics = metrics();
+        String name = "droneDeliverySystem:type=DeliveryMetrics,name=MetricsTest";
+        ObjectName objectName = new ObjectName(name);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        JmxMetricsExporter exporter = new JmxMetricsExporter(name);
+        exporter.start(metrics);
+        try {
+            Map<String, Number> snapshot = metrics.snapshot();
+            Check.equal(snapshot.size(), server.getMBeanInfo(objectName).getAttributes().length, "attributes");
+            Check.equal(2L, server.getAttribute(objectName, "orders_queued_total"), "queued");
+            Check.equal(3, server.getAttribute(objectName, "queue_depth"), "queue depth");
+            metrics.packageQueued(new Package("PKG-3", 1, "B"));
+            Check.equal(3L, server.getAttribute(objectName, "orders_queued_total"), "queued after another order");
+            try {
+                server.setAttribute(objectName, new Attribute("orders_queued_total", 0L));
+                Check.check(false, "set a metric");
+            } catch (AttributeNotFoundException expected) {
+                // read-only
+            }
+        } finally {
+            exporter.stop();
+        }
+        Check.check(!server.isRegistered(objectName), "still registered after stop");
+    }
+}
@@ -0,0 +1,133 @@
+package droneDeliverySystem;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Order logs written and read back, and a log whose disk fills up mid-run
+public class OrderLogTest {
+    private static final int SIDE = 6;
+    private static final PackagePriority[] PRIORITIES = PackagePriority.values();
+
+    // Orders a few seconds apart over the grid, some with deadlines and fractional weights
+    private static List<OrderLog.Entry> orders(long seed, int count) {
+        Random random = new Random(seed);
+        List<OrderLog.Entry> orders = new ArrayList<>();
+        long time = 0;
+        for (int i = 0; i < count; i++) {
+            time += random.nextInt(5_000);
+            long deadline = random.nextBoolean() ? -1 : 60_000 + random.nextInt(600_000);
+            orders.add(new OrderLog.Entry(time, "PKG-" + i, 0.5 * (1 + random.nextInt(9)),
+                                          TestGraphs.name(random.nextInt(SIDE * SIDE)),
+                                          PRIORITIES[random.nextInt(PRIORITIES.length)], deadline));
+        }
+        return orders;
+    }
+
+    private static String describe(OrderLog.Entry entry) {
+        return entry.getTime() + "," + entry.getId() + "," + entry.getWeight() + "," + entry.getDropOffLocation()
+            + "," + entry.getPriority() + "," + entry.getDeadline();
+    }
+
+    private static List<String> describe(List<OrderLog.Entry> entries) {
+        List<String> described = new ArrayList<>();
+        for (OrderLog.Entry entry : entries) {
+            described.add(describe(entry));
+        }
+        return described;
+    }
+
+    // The orders placed at their times on an ACCELERATED clock, as the load harness runs
+    // them, optionally recorded to a log. Returns who delivered what when, in delivery order.
+    private static List<String> run(List<OrderLog.Entry> orders, Path record) throws Exception {
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.ACCELERATED);
+        List<Drone> fleet = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            fleet.add(new Drone("DR-" + i, 5, TestGraphs.name(0)));
+        }
+        DeliverySystem system = new DeliverySystem(fleet, clock, TestGraphs.grid(SIDE, 3));
+        List<String> deliveries = new CopyOnWriteArrayList<>();
+        system.addListener(new DeliveryListener() {
+            @Override
+            public void packageDelivered(Package pkg, Drone drone) {
+                deliveries.add(pkg.getId() + "|" + drone.getId() + "|" + clock.now());
+            }
+        });
+        OrderLog log = record == null ? null : OrderLog.create(record);
+        if (log != null) {
+            system.addListener(log);
+        }
+        for (OrderLog.Entry entry : orders) {
+            Package pkg = entry.toPackage();
+            clock.scheduleAt(entry.getTime(), () -> system.offerOrder(pkg));
+        }
+        Check.check(clock.awaitIdle(1, TimeUnit.MINUTES), "clock still busy");
+        system.shutdown();
+        if (log != null) {
+            log.close();
+        }
+        return deliveries;
+    }
+
+    public void testWrittenOrdersReadBackUnchanged() throws IOException {
+        List<OrderLog.Entry> orders = orders(1, 200);
+        Path file = Files.createTempFile("orders", ".csv");
+        try {
+            OrderLog.write(file, orders);
+            Check.equal(describe(orders), describe(OrderLog.read(file)), "orders read back");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // A run recorded as it happens and replayed from its log delivers the same packages with
+    // the same drones at the same times, as does the same stream run again. The load harness
+    // relies on this to compare runs by their fingerprints.
+    public void testRecordedRunReplaysIdentically() throws Exception {
+        List<OrderLog.Entry> orders = orders(2, 300);
+        Path file = Files.createTempFile("orders", ".csv");
+        try {
+            List<String> recorded = run(orders, file);
+            Check.equal(orders.size(), recorded.size(), "deliveries");
+            Check.equal(describe(orders), describe(OrderLog.read(file)), "orders recorded");
+            Check.equal(recorded, run(orders, null), "deliveries when run again");
+            Check.equal(recorded, run(OrderLog.read(file), null), "deliveries when replayed from the log");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // /dev/full accepts the file being opened and fails every write that reaches it, so the
+    // log stops once its buffer first spills. It must report that once and throw nothing into
+    // the delivery system, which keeps taking orders.
+    public void testFullDiskStopsTheLogButNotOrders() throws Exception {
+        Path full = Paths.get("/dev/full");
+        if (!Files.isWritable(full)) {
+            return;
+        }
+        OrderLog log = OrderLog.create(full);
+        List<IOException> failures = new CopyOnWriteArrayList<>();
+        log.setErrorHandler(failures::add);
+        DeliverySystem system = new DeliverySystem(new ArrayList<>(), new SimulationClock(SimulationClock.Mode.ACCELERATED),
+                                                   TestGraphs.line(new String[] {"A", "B"}, new int[] {2}));
+        AtomicInteger listenerErrors = new AtomicInteger();
+        system.setErrorHandler(e -> listenerErrors.incrementAndGet());
+        system.addListener(log);
+        for (int i = 0; i < 2_000; i++) {
+            system.placeOrder(new Package("PKG-" + i, 1, "B"));
+        }
+        system.shutdown();
+
+        Check.equal(1, failures.size(), "failures reported");
+        Check.equal(0, listenerErrors.get(), "exceptions thrown into the delivery system");
+        Check.equal(2_000, system.getWaitingCount(), "waiting");
+        try {
+            log.close();
+            Check.check(false, "close() on a stopped log returned");
+        } catch (IOException expected) {
+            Check.equal(failures.get(0), expected.getCause(), "cause of the close() failure");
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Region nodes over the loopback transport. Every order placed must be delivered exactly
+// once, by whichever region ends up with it, and every drone must end up owned by exactly one
+// region, however often it was handed over.
+public class RegionTest {
+    private static final int SIDE = 8;
+
+    private final Map<String, Integer> deliveries = new ConcurrentHashMap<>();
+    private final AtomicInteger delivered = new AtomicInteger();
+
+    private void record(ShardedDeliverySystem system) {
+        system.addListener(new DeliveryListener() {
+            @Override
+            public void packageDelivered(Package pkg, Drone drone) {
+                deliveries.merge(pkg.getId(), 1, Integer::sum);
+                delivered.incrementAndGet();
+            }
+        });
+    }
+
+    // The whole fleet starts in region 0 while orders go everywhere, so regions 1-3 only
+    // ever get drones by stealing orders and by drones landing on their ground
+    private static List<Drone> fleetIn(RegionPartition partition, int region, int size) {
+        List<Drone> fleet = new ArrayList<>();
+        for (int node = 0; fleet.size() < size; node++) {
+            String location = TestGraphs.name(node % (SIDE * SIDE));
+            if (partition.regionOf(location) == region) {
+                fleet.add(new Drone("DR-" + fleet.size(), 5, location));
+            }
+        }
+        return fleet;
+    }
+
+    private void checkConserved(ShardedDeliverySystem system, List<Drone> fleet, int orders) {
+        Check.equal(orders, deliveries.size(), "orders delivered");
+        for (Map.Entry<String, Integer> delivery : deliveries.entrySet()) {
+            Check.equal(1, (long) delivery.getValue(), delivery.getKey() + " deliveries");
+        }
+        Check.equal(0, system.getPackages().size(), "orders left queued");
+        List<Drone> owned = system.getDrones();
+        Check.equal(fleet.size(), owned.size(), "drones owned");
+        Check.equal(new HashSet<>(fleet), new HashSet<>(owned), "drones owned");
+        for (RegionNode node : system.getNodes()) {
+            for (Drone drone : node.getSystem().getDrones()) {
+                Check.equal(node.getRegion(), (long) system.getPartition().regionOf(drone.getCurrentLocation()),
+                            drone.getId() + " owner");
+            }
+        }
+    }
+
+    public void testOrdersConservedAndDronesHandedOff() throws InterruptedException {
+        RegionPartition partition = RegionPartition.of(TestGraphs.grid(SIDE, 5), 4);
+        List<Drone> fleet = fleetIn(partition, 0, 8);
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.ACCELERATED);
+        ShardedDeliverySystem system = new ShardedDeliverySystem(fleet, clock, partition, new LoopbackTransport(clock, 20));
+        record(system);
+        Random random = new Random(6);
+        int orders = 400;
+        clock.scheduleAt(0, () -> {
+            for (int i = 0; i < orders; i++) {
+                Package pkg = new Package("PKG-" + i, 1 + random.nextInt(4), TestGraphs.name(random.nextInt(SIDE * SIDE)));
+                clock.scheduleAt(i * 500L, () -> system.placeOrder(pkg));
+            }
+        });
+        Check.check(clock.awaitIdle(1, TimeUnit.MINUTES), "clock still busy");
+        system.shutdown();
+
+        checkConserved(system, fleet, orders);
+        long stolen = 0;
+        long handedOff = 0;
+        for (RegionNode node : system.getNodes()) {
+            stolen += node.getOrdersStolen();
+            handedOff += node.getDronesHandedOff();
+        }
+        Check.check(stolen > 0, "no orders stolen");
+        Check.check(handedOff > 0, "no drones handed off");
+    }
+
+    // Each region dispatches on its own clock, all reading the same time
+    public void testRealTimeRegionsRunOnTheirOwnClocks() throws InterruptedException {
+        RegionPartition partition = RegionPartition.of(TestGraphs.grid(SIDE, 7), 4);
+        List<Drone> fleet = fleetIn(partition, 0, 8);
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.REAL_TIME, 5_000);
+        ShardedDeliverySystem system = new ShardedDeliverySystem(fleet, clock, partition, new LoopbackTransport(clock, 20));
+        record(system);
+        Set<SimulationClock> clocks = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (DeliverySystem region : system.getRegions()) {
+            clocks.add(region.getClock());
+            long before = clock.now();
+            long now = region.getClock().now();
+            Check.check(before <= now && now <= clock.now(), "region clock out of step");
+        }
+        Check.equal(4, clocks.size(), "region clocks");
+
+        Random random = new Random(8);
+        int orders = 200;
+        for (int i = 0; i < orders; i++) {
+            system.placeOrder(new Package("PKG-" + i, 1 + random.nextInt(4), TestGraphs.name(random.nextInt(SIDE * SIDE))));
+        }
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (delivered.get() < orders && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        // Let the last drones land and be handed over; a message from a busy region can wake
+        // one already idle, so only a pass that finds every clock idle at once settles it
+        boolean settled = false;
+        while (!settled && System.currentTimeMillis() < deadline) {
+            settled = true;
+            for (DeliverySystem region : system.getRegions()) {
+                settled &= region.getClock().awaitIdle(0, TimeUnit.SECONDS);
+            }
+            Thread.sleep(20);
+        }
+        system.shutdown();
+        Check.check(settled, "region clocks still busy");
+        checkConserved(system, fleet, orders);
+    }
+
+    // The peer never answers the first steal request, as one shutting down might not. Without
+    // a timeout the thief would wait for an answer forever, and region 1, which has no
+    // drones, would never see its orders delivered.
+    public void testUnansweredStealLapses() throws InterruptedException {
+        RegionPartition partition = RegionPartition.of(TestGraphs.grid(SIDE, 9), 2);
+        List<Drone> fleet = fleetIn(partition, 0, 3);
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.ACCELERATED);
+        LoopbackTransport loopback = new LoopbackTransport(clock, 20);
+        AtomicInteger steals = new AtomicInteger();
+        RegionTransport unanswered = new RegionTransport() {
+            @Override
+            public void bind(int region, Consumer<RegionMessage> inbox) {
+                loopback.bind(region, inbox);
+            }
+
+            @Override
+            public void send(int region, RegionMessage message) {
+                if (message.getKind() == RegionMessage.Kind.STEAL && steals.incrementAndGet() == 1) {
+                    return;
+                }
+                loopback.send(region, message);
+            }
+        };
+        ShardedDeliverySystem system = new ShardedDeliverySystem(fleet, clock, partition, unanswered);
+        record(system);
+        List<String> regionOne = new ArrayList<>();
+        for (String location : partition.getGraph().getLocations()) {
+            if (partition.regionOf(location) == 1) {
+                regionOne.add(location);
+            }
+        }
+        int orders = 20;
+        clock.scheduleAt(0, () -> {
+            for (int i = 0; i < orders; i++) {
+                system.placeOrder(new Package("PKG-" + i, 1, regionOne.get(i % regionOne.size())));
+            }
+        });
+        Check.check(clock.awaitIdle(1, TimeUnit.MINUTES), "clock still busy");
+        long finished = clock.now();
+        system.shutdown();
+
+        Check.check(steals.get() > 1, "steal never retried");
+        Check.check(finished >= RegionNode.STEAL_TIMEOUT_MILLIS, "retried before the timeout, at " + finished);
+        checkConserved(system, fleet, orders);
+    }
+}
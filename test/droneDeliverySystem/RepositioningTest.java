@@ -0,0 +1,95 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+// Demand forecast over a sliding window, and the repositioner moving idle drones toward it
+public class RepositioningTest {
+    private static final long WINDOW = 12_000;
+    private static final long HORIZON = 3_500;
+    private static final String[] STOPS = {"A", "B", "C", "D", "E"};
+
+    private static List<Integer> locations(List<DemandForecast.Hotspot> hotspots) {
+        List<Integer> locations = new ArrayList<>();
+        for (DemandForecast.Hotspot hotspot : hotspots) {
+            locations.add(hotspot.getLocation());
+        }
+        return locations;
+    }
+
+    public void testHotspotsBusiestFirst() {
+        DemandForecast forecast = new DemandForecast(WINDOW);
+        for (int i = 0; i < 3; i++) {
+            forecast.record(1, 100);
+        }
+        forecast.record(2, 200);
+        forecast.record(3, 300);
+        forecast.record(3, 1_500);
+        Check.equal(Arrays.asList(1, 3, 2), locations(forecast.hotspots(2_000, 10)), "hotspots");
+        Check.equal(Arrays.asList(1, 3), locations(forecast.hotspots(2_000, 2)), "top two hotspots");
+        Check.equal(WINDOW, forecast.getWindowMillis(), "window");
+    }
+
+    // An order's weight halves every half window, and it is gone once the window has passed
+    public void testOldOrdersFadeThenExpire() {
+        DemandForecast forecast = new DemandForecast(WINDOW);
+        forecast.record(7, 0);
+        double fresh = forecast.hotspots(0, 1).get(0).getRate();
+        double halfWindow = forecast.hotspots(WINDOW / 2, 1).get(0).getRate();
+        Check.check(Math.abs(halfWindow - fresh / 2) < 1e-12, "rate " + halfWindow + " half a window after " + fresh);
+        Check.check(forecast.hotspots(WINDOW - 1, 1).size() == 1, "expired before the window passed");
+        Check.check(forecast.hotspots(WINDOW, 1).isEmpty(), "still a hotspot after the window");
+
+        // A new order counts as much as the first did, with nothing left of the old one
+        forecast.record(7, WINDOW);
+        Check.check(Math.abs(forecast.hotspots(WINDOW, 1).get(0).getRate() - fresh) < 1e-12, "rate of a new order");
+    }
+
+    public void testWindowShorterThanItsBucketsIsRejected() {
+        try {
+            new DemandForecast(11);
+            Check.check(false, "accepted an 11 ms window");
+        } catch (IllegalArgumentException expected) {
+            // one millisecond per bucket at least
+        }
+    }
+
+    // A line A-B-C-D-E of 10 long roads, with one order just seen at E
+    private static final class Line {
+        final RouteTable routeTable = new RouteTable(TestGraphs.line(STOPS, new int[] {10, 10, 10, 10}));
+        final DemandForecast forecast = new DemandForecast(WINDOW);
+        final FleetRepositioner repositioner = new FleetRepositioner(routeTable, forecast, HORIZON);
+
+        Line withOrderAtE() {
+            forecast.record(routeTable.idOf("E"), 0);
+            return this;
+        }
+
+        Map<Drone, String> plan(List<Drone> idle, String... landing) {
+            return repositioner.plan(idle, Arrays.asList(landing), 0);
+        }
+    }
+
+    // Likely enough to see an order at E that waiting there beats flying 40 empty
+    public void testIdleDroneMovesTowardDemand() {
+        Drone drone = new Drone("DR-1", 5, "A");
+        Map<Drone, String> moves = new Line().withOrderAtE().plan(Collections.singletonList(drone));
+        Check.equal(Collections.singletonMap(drone, "E"), moves, "moves");
+    }
+
+    public void testDroneAlreadyThereStays() {
+        Drone there = new Drone("DR-1", 5, "E");
+        Drone away = new Drone("DR-2", 5, "A");
+        Check.equal(Collections.emptyMap(), new Line().withOrderAtE().plan(Arrays.asList(there, away)), "moves");
+    }
+
+    // A second order within the horizon is too unlikely to send another drone
+    public void testDroneLandingThereCoversTheDemand() {
+        Drone away = new Drone("DR-2", 5, "A");
+        Check.equal(Collections.emptyMap(), new Line().withOrderAtE().plan(Collections.singletonList(away), "E"), "moves");
+    }
+
+    public void testNoDemandNoMoves() {
+        Drone drone = new Drone("DR-1", 5, "A");
+        Check.equal(Collections.emptyMap(), new Line().plan(Collections.singletonList(drone)), "moves");
+    }
+}
@@ -0,0 +1,83 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Tours on a directed map: from O the road forks to H, and on from H to two dead ends C1
+// and C2, so no tour can visit both dead ends.
+public class RoutePlannerTest {
+    private static LocationGraph forks() {
+        return new LocationGraph.Builder()
+            .addEdge("O", "H", 1)
+            .addEdge("H", "C1", 1)
+            .addEdge("H", "C2", 1)
+            .addEdge("O", "B", 5)
+            .addEdge("B", "A", 1)
+            .addEdge("O", "A", 1)
+            .build();
+    }
+
+    private static List<Package> load(String... dropOffs) {
+        List<Package> load = new ArrayList<>();
+        for (String dropOff : dropOffs) {
+            load.add(new Package("PKG-" + dropOff, 1, dropOff));
+        }
+        return load;
+    }
+
+    private static List<String> locations(FlightPlan plan) {
+        List<String> locations = new ArrayList<>();
+        for (FlightPlan.Stop stop : plan.getStops()) {
+            locations.add(stop.getLocation());
+        }
+        return locations;
+    }
+
+    public void testTourWithAnUnreachableLegIsRejected() {
+        RoutePlanner planner = new RoutePlanner(new RouteTable(forks()));
+        Check.check(planner.plan("O", load("H", "C1", "C2")) == null, "planned a tour through both dead ends");
+        Check.check(planner.plan("O", load("C1", "A")) == null, "planned a tour between the branches");
+    }
+
+    public void testVisitOrderAvoidsAnUnreachableLeg() {
+        RoutePlanner planner = new RoutePlanner(new RouteTable(forks()));
+        // Nearest first goes to A, from which B is out of reach; only B then A is flyable
+        FlightPlan plan = planner.plan("O", load("A", "B"));
+        Check.equal(Arrays.asList("B", "A"), locations(plan), "tour");
+        Check.equal(6, plan.getTotalDistance(), "tour length");
+
+        plan = planner.plan("O", load("C1", "H"));
+        Check.equal(Arrays.asList("H", "C1"), locations(plan), "tour");
+    }
+
+    public void testConsolidatedLoadWithAnUnreachableLegFliesTheHeadAlone() throws InterruptedException {
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.ACCELERATED);
+        Drone drone = new Drone("DR-1", 10, "O");
+        DeliverySystem system = new DeliverySystem(Collections.singletonList(drone), clock, forks());
+        system.useConsolidation(3, 10);
+        system.useBatchDispatch(1_000, 8);
+        List<String> delivered = new ArrayList<>();
+        List<Integer> arrivals = new ArrayList<>();
+        system.addListener(new DeliveryListener() {
+            @Override
+            public void packageDelivered(Package pkg, Drone by) {
+                delivered.add(pkg.getDropOffLocation());
+            }
+
+            @Override
+            public void stopReached(Drone by, FlightPlan.Stop stop) {
+                arrivals.add(stop.getArrivalDistance());
+            }
+        });
+        for (Package pkg : load("H", "C1", "C2")) {
+            system.placeOrder(pkg);
+        }
+        Check.check(clock.awaitIdle(1, TimeUnit.MINUTES), "clock still busy");
+        Check.equal("H", delivered.get(0), "first delivery");
+        Check.equal(2, delivered.size(), "delivered");
+        for (int arrival : arrivals) {
+            Check.check(arrival != RouteTable.UNREACHABLE, "reached a stop over an unreachable leg");
+        }
+        system.shutdown();
+    }
+}
@@ -0,0 +1,144 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+// Memoized rows must survive only the edge changes that cannot affect them. Every row is
+// cached before each change and compared afterwards with a table built fresh from the edited map.
+public class RouteTableTest {
+    private static final int NODES = 60;
+
+    // A route on the shortest path from N0 gets cheaper, dearer and goes away, then the same
+    // for one that is longer than the detour around it and so on no shortest path
+    public void testChangesOnAndOffAShortestPathTree() {
+        Map<String, Map<String, Integer>> map = TestGraphs.randomMap(NODES, 240, 1);
+        RouteTable table = new RouteTable(map);
+        String target = farthestFrom(table, "N0");
+        List<String> path = table.path("N0", target);
+        Check.check(path.size() > 2, "no multi-hop path from N0");
+        String[] onTree = {path.get(1), path.get(2)};
+        String[] offTree = offTreeEdge(table, map);
+
+        for (String[] edge : new String[][] {onTree, offTree}) {
+            int weight = map.get(edge[0]).get(edge[1]);
+            change(table, map, edge, Math.max(1, weight / 2));
+            change(table, map, edge, weight * 10);
+            change(table, map, edge, -1);
+            change(table, map, edge, weight);
+        }
+    }
+
+    // Random lowerings, raisings, removals and new edges, with every row cached in between
+    public void testRandomChangesMatchFreshTables() {
+        Random random = new Random(2);
+        Map<String, Map<String, Integer>> map = TestGraphs.randomMap(NODES, 200, 2);
+        RouteTable table = new RouteTable(map);
+        for (int i = 0; i < 200; i++) {
+            String from = TestGraphs.name(random.nextInt(NODES));
+            String to = TestGraphs.name(random.nextInt(NODES));
+            if (from.equals(to)) {
+                continue;
+            }
+            Integer weight = map.get(from).get(to);
+            int next;
+            if (weight != null && random.nextInt(4) == 0) {
+                next = -1;
+            } else {
+                next = 1 + random.nextInt(20);
+            }
+            change(table, map, new String[] {from, to}, next);
+        }
+    }
+
+    // With room for only a few rows in each direction, filling them all keeps evicting, yet
+    // every distance still matches a fresh table and no more rows than the limit stay memoized
+    public void testRowLimitEvictsAndStillAnswers() {
+        Random random = new Random(3);
+        Map<String, Map<String, Integer>> map = TestGraphs.randomMap(NODES, 200, 3);
+        RouteTable table = new RouteTable(map);
+        table.setRowLimit(4);
+        for (int i = 0; i < 40; i++) {
+            String from = TestGraphs.name(random.nextInt(NODES));
+            String to = TestGraphs.name(random.nextInt(NODES));
+            if (!from.equals(to)) {
+                change(table, map, new String[] {from, to}, 1 + random.nextInt(20));
+                Check.check(table.memoizedRows() <= 8, "memoized " + table.memoizedRows() + " rows over a limit of 4 each way");
+            }
+        }
+    }
+
+    // A negative distance, or one that would read as a closed road, is refused and leaves the
+    // edge as it was. A long road added next to a far-away source must not overflow the
+    // check of which rows it affects.
+    public void testInvalidDistancesAreRejected() {
+        Map<String, Map<String, Integer>> map = TestGraphs.randomMap(NODES, 200, 4);
+        RouteTable table = new RouteTable(map);
+        String[] edge = offTreeEdge(table, map);
+        int before = table.distance(edge[0], edge[1]);
+        for (int distance : new int[] {-1, RouteTable.UNREACHABLE}) {
+            try {
+                table.setEdge(edge[0], edge[1], distance);
+                Check.check(false, "accepted a distance of " + distance);
+            } catch (IllegalArgumentException expected) {
+                Check.equal(before, table.distance(edge[0], edge[1]), "distance after rejecting " + distance);
+            }
+        }
+        change(table, map, new String[] {edge[1], edge[0]}, 1_000);
+        change(table, map, new String[] {edge[1], edge[0]}, RouteTable.UNREACHABLE - 1);
+        change(table, map, new String[] {edge[1], edge[0]}, RouteTable.UNREACHABLE - 2);
+    }
+
+    // Fills every out and in row, applies the change (-1 removes the edge) to both table and
+    // map, and compares every pair with a fresh table
+    private static void change(RouteTable table, Map<String, Map<String, Integer>> map, String[] edge, int weight) {
+        cacheAll(table);
+        if (weight < 0) {
+            table.removeEdge(edge[0], edge[1]);
+            map.get(edge[0]).remove(edge[1]);
+        } else {
+            table.setEdge(edge[0], edge[1], weight);
+            map.get(edge[0]).put(edge[1], weight);
+        }
+        RouteTable fresh = new RouteTable(map);
+        String change = edge[0] + "->" + edge[1] + (weight < 0 ? " removed" : " set to " + weight);
+        for (int s = 0; s < NODES; s++) {
+            for (int t = 0; t < NODES; t++) {
+                String from = TestGraphs.name(s);
+                String to = TestGraphs.name(t);
+                Check.equal(fresh.distance(from, to), table.distance(from, to), "after " + change + ", " + from + " to " + to);
+                Check.equal(fresh.distanceTo(fresh.idOf(from), fresh.idOf(to)), table.distanceTo(table.idOf(from), table.idOf(to)),
+                            "after " + change + ", row towards " + to + " from " + from);
+            }
+        }
+    }
+
+    private static void cacheAll(RouteTable table) {
+        for (int id = 0; id < table.size(); id++) {
+            table.distance(table.nameOf(id), table.nameOf(0));
+            table.distanceTo(0, id);
+        }
+    }
+
+    private static String farthestFrom(RouteTable table, String source) {
+        String farthest = source;
+        for (int t = 0; t < NODES; t++) {
+            String to = TestGraphs.name(t);
+            int distance = table.distance(source, to);
+            if (distance != RouteTable.UNREACHABLE && distance > table.distance(source, farthest)) {
+                farthest = to;
+            }
+        }
+        return farthest;
+    }
+
+    // An edge strictly longer than the shortest path between its ends
+    private static String[] offTreeEdge(RouteTable table, Map<String, Map<String, Integer>> map) {
+        for (Map.Entry<String, Map<String, Integer>> from : map.entrySet()) {
+            for (Map.Entry<String, Integer> to : from.getValue().entrySet()) {
+                if (table.distance(from.getKey(), to.getKey()) < to.getValue()) {
+                    return new String[] {from.getKey(), to.getKey()};
+                }
+            }
+        }
+        throw new AssertionError("every edge is a shortest path");
+    }
+}
@@ -0,0 +1,227 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// Every point-to-point routing mode must give the distances of a table of memoized rows
+// built fresh from the same edges, before and after roads get shorter, longer, close and
+// open. Lowering a road is what invalidates landmarks and contraction hierarchies, and
+// what lowers the straight-line scale.
+public class RoutingTest {
+    private static final int NODES = 40;
+
+    // Locations scattered over a square, with roads a little longer than the straight line
+    // between their ends so the straight-line bound has something to prune
+    private static final class Scenario {
+        final Random random;
+        final float[] x = new float[NODES];
+        final float[] y = new float[NODES];
+        final Map<String, Map<String, Integer>> map = new TreeMap<>();
+        final Map<RouteTable.Routing, RouteTable> tables = new EnumMap<>(RouteTable.Routing.class);
+
+        Scenario(long seed, int edges) {
+            random = new Random(seed);
+            for (int i = 0; i < NODES; i++) {
+                x[i] = random.nextFloat() * 100;
+                y[i] = random.nextFloat() * 100;
+                map.put(TestGraphs.name(i), new TreeMap<>());
+            }
+            for (int i = 0; i < edges; i++) {
+                int from = random.nextInt(NODES);
+                int to = random.nextInt(NODES);
+                if (from != to) {
+                    map.get(TestGraphs.name(from)).put(TestGraphs.name(to), roadLength(from, to));
+                }
+            }
+            for (RouteTable.Routing routing : RouteTable.Routing.values()) {
+                RouteTable table = new RouteTable(withCoordinates(LocationGraph.fromMap(map)));
+                table.setRouting(routing);
+                tables.put(routing, table);
+            }
+        }
+
+        int roadLength(int from, int to) {
+            double dx = x[from] - x[to];
+            double dy = y[from] - y[to];
+            return 1 + (int) Math.ceil(Math.sqrt(dx * dx + dy * dy)) + random.nextInt(10);
+        }
+
+        LocationGraph withCoordinates(LocationGraph graph) {
+            float[] gx = new float[graph.size()];
+            float[] gy = new float[graph.size()];
+            for (int i = 0; i < NODES; i++) {
+                int id = graph.idOf(TestGraphs.name(i));
+                gx[id] = x[i];
+                gy[id] = y[i];
+            }
+            return graph.withCoordinates(gx, gy);
+        }
+
+        // -1 removes the edge
+        void change(int from, int to, int weight) {
+            String a = TestGraphs.name(from);
+            String b = TestGraphs.name(to);
+            for (RouteTable table : tables.values()) {
+                if (weight < 0) {
+                    table.removeEdge(a, b);
+                } else {
+                    table.setEdge(a, b, weight);
+                }
+            }
+            if (weight < 0) {
+                map.get(a).remove(b);
+            } else {
+                map.get(a).put(b, weight);
+            }
+            compare(a + "->" + b + (weight < 0 ? " removed" : " set to " + weight));
+        }
+
+        void compare(String when) {
+            RouteTable fresh = new RouteTable(map);
+            for (int s = 0; s < NODES; s++) {
+                for (int t = 0; t < NODES; t++) {
+                    String from = TestGraphs.name(s);
+                    String to = TestGraphs.name(t);
+                    int expected = fresh.distance(from, to);
+                    for (Map.Entry<RouteTable.Routing, RouteTable> table : tables.entrySet()) {
+                        Check.equal(expected, table.getValue().distance(from, to),
+                                    table.getKey() + " " + when + ", " + from + " to " + to);
+                    }
+                }
+            }
+        }
+    }
+
+    public void testModesAgreeOnRandomGraphs() {
+        for (long seed = 1; seed <= 4; seed++) {
+            // From sparse, with many pairs unreachable, to dense
+            new Scenario(seed, 40 * (int) seed).compare("on graph " + seed);
+        }
+    }
+
+    // Existing roads lowered, raised and closed, and new roads opened, comparing every pair
+    // after each change
+    public void testModesAgreeAfterEdgeChanges() {
+        Scenario scenario = new Scenario(5, 160);
+        scenario.compare("before any change");
+        Random random = scenario.random;
+        for (int i = 0; i < 120; i++) {
+            int from = random.nextInt(NODES);
+            int to = random.nextInt(NODES);
+            if (from == to) {
+                continue;
+            }
+            Integer weight = scenario.map.get(TestGraphs.name(from)).get(TestGraphs.name(to));
+            if (weight == null) {
+                scenario.change(from, to, scenario.roadLength(from, to));
+                continue;
+            }
+            switch (random.nextInt(3)) {
+                case 0:
+                    // Shorter than the straight line, so the Euclidean scale must drop
+                    scenario.change(from, to, Math.max(1, weight / 4));
+                    break;
+                case 1:
+                    scenario.change(from, to, weight * 3);
+                    break;
+                default:
+                    scenario.change(from, to, -1);
+                    break;
+            }
+        }
+    }
+
+    // Roads lowered one after another, each invalidating the landmarks and the hierarchy
+    // while they may still be preprocessed from the last change. Meanwhile Dijkstra answers;
+    // once the preprocessing settles, the rebuilt routers must agree with fresh rows too.
+    public void testRoutersPreprocessedAgainInTheBackground() throws InterruptedException {
+        Scenario scenario = new Scenario(6, 160);
+        Random random = scenario.random;
+        for (int i = 0; i < 20; i++) {
+            int from = random.nextInt(NODES);
+            int to = random.nextInt(NODES);
+            if (from != to) {
+                scenario.change(from, to, 1 + random.nextInt(3));
+            }
+        }
+        long deadline = System.currentTimeMillis() + 30_000;
+        for (Map.Entry<RouteTable.Routing, RouteTable> table : scenario.tables.entrySet()) {
+            while (table.getValue().isPreprocessing() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            Check.check(!table.getValue().isPreprocessing(), table.getKey() + " still preprocessing");
+        }
+        scenario.compare("once preprocessing settled");
+    }
+
+    // Roads about as long as a distance can be, so any path over two of them is too long to
+    // sum in an int and must come out unreachable rather than wrapped round to negative
+    public void testRoadsNearTheLimitDoNotOverflow() {
+        Scenario scenario = new Scenario(8, 160);
+        Random random = scenario.random;
+        for (int i = 0; i < 6; i++) {
+            int from = random.nextInt(NODES);
+            int to = random.nextInt(NODES);
+            if (from != to) {
+                scenario.change(from, to, RouteTable.UNREACHABLE - 1 - random.nextInt(1000));
+            }
+        }
+    }
+
+    // A task per source, on every backend that gives tasks threads of their own, so queries
+    // borrow search states from the routers' pools at the same time
+    public void testConcurrentQueriesOnEveryBackend() throws Exception {
+        Scenario scenario = new Scenario(7, 160);
+        RouteTable fresh = new RouteTable(scenario.map);
+        for (ExecutionBackend backend : ExecutionBackend.values()) {
+            ExecutorService executor = backend.isSupported() ? backend.newExecutor() : null;
+            if (executor == null) {
+                continue;
+            }
+            List<Future<?>> queries = new ArrayList<>();
+            for (int s = 0; s < NODES; s++) {
+                String from = TestGraphs.name(s);
+                queries.add(executor.submit(() -> {
+                    for (int t = 0; t < NODES; t++) {
+                        String to = TestGraphs.name(t);
+                        for (Map.Entry<RouteTable.Routing, RouteTable> table : scenario.tables.entrySet()) {
+                            Check.equal(fresh.distance(from, to), table.getValue().distance(from, to),
+                                        backend + " " + table.getKey() + ", " + from + " to " + to);
+                        }
+                    }
+                }));
+            }
+            try {
+                for (Future<?> query : queries) {
+                    try {
+                        query.get(1, TimeUnit.MINUTES);
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof AssertionError) {
+                            throw (AssertionError) e.getCause();
+                        }
+                        throw e;
+                    }
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    // S is at the origin and T 100 to its east, with a 100 road between them. The real
+    // shortest path runs west to P and through M, which has no coordinates; straight-line
+    // distance from P to T is 110, so any bound scaled by the edge ratios overestimates.
+    public void testAStarWithALocationWithoutCoordinates() {
+        LocationGraph.Builder builder = new LocationGraph.Builder();
+        builder.addEdge("S", "T", 100);
+        builder.addEdge("S", "P", 10);
+        builder.addEdge("P", "M", 1);
+        builder.addEdge("M", "T", 1);
+        builder.setCoordinates("S", 0, 0);
+        builder.setCoordinates("T", 100, 0);
+        builder.setCoordinates("P", -10, 0);
+        RouteTable table = new RouteTable(builder.build());
+        table.setRouting(RouteTable.Routing.A_STAR);
+        Check.equal(12, table.distance("S", "T"), "S to T");
+    }
+}
@@ -0,0 +1,151 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Dispatch order on an ACCELERATED clock with a single drone, so every package after the
+// first waits in the queue and the order the drone takes them in is the schedule order
+public class SchedulingTest {
+    private static final String[] STOPS = {"A", "B", "C", "D"};
+
+    private final SimulationClock clock = new SimulationClock(SimulationClock.Mode.ACCELERATED);
+    private final List<String> assigned = Collections.synchronizedList(new ArrayList<>());
+
+    private DeliverySystem system(Drone... fleet) {
+        return system(TestGraphs.line(STOPS, new int[] {2, 3, 4}), fleet);
+    }
+
+    private DeliverySystem system(LocationGraph graph, Drone... fleet) {
+        DeliverySystem system = new DeliverySystem(Arrays.asList(fleet), clock, graph);
+        system.addListener(new DeliveryListener() {
+            @Override
+            public void packageAssigned(Package pkg, Drone drone, int distance) {
+                assigned.add(pkg.getId());
+            }
+        });
+        return system;
+    }
+
+    // All placed in one clock event, least urgent first, so nothing is dispatched before the
+    // last of them is queued
+    private void placeAt(long time, DeliverySystem system, Package... packages) {
+        clock.scheduleAt(time, () -> {
+            for (Package pkg : packages) {
+                system.placeOrder(pkg);
+            }
+        });
+    }
+
+    // The clock is already running, so a later event scheduled from the test thread could
+    // land after the clock has moved past it; the scenario schedules its events from within
+    // the first one instead
+    private void run(DeliverySystem system, Runnable scenario) throws InterruptedException {
+        clock.scheduleAt(0, scenario);
+        Check.check(clock.awaitIdle(1, TimeUnit.MINUTES), "clock still busy");
+        system.shutdown();
+    }
+
+    public void testPriorityClassesGoMostUrgentFirst() throws InterruptedException {
+        DeliverySystem system = system(new Drone("DR-1", 5, "A"));
+        run(system, () -> placeAt(0, system,
+                new Package("BULK", 1, "B", PackagePriority.BULK, Package.NO_DEADLINE),
+                new Package("STANDARD", 1, "C", PackagePriority.STANDARD, Package.NO_DEADLINE),
+                new Package("EXPRESS", 1, "D", PackagePriority.EXPRESS, Package.NO_DEADLINE),
+                new Package("URGENT", 1, "B", PackagePriority.URGENT, Package.NO_DEADLINE)));
+        Check.equal(Arrays.asList("URGENT", "EXPRESS", "STANDARD", "BULK"), assigned, "dispatch order");
+    }
+
+    // A deadline earlier than the class target puts a STANDARD package ahead of an EXPRESS
+    // one, and packages of one class go earliest deadline first
+    public void testEarliestDeadlineFirst() throws InterruptedException {
+        DeliverySystem system = system(new Drone("DR-1", 5, "A"));
+        run(system, () -> placeAt(0, system,
+                new Package("EXPRESS", 1, "B", PackagePriority.EXPRESS, Package.NO_DEADLINE),
+                new Package("STANDARD-90s", 1, "C", PackagePriority.STANDARD, 90_000),
+                new Package("STANDARD-60s", 1, "D", PackagePriority.STANDARD, 60_000),
+                new Package("URGENT", 1, "B", PackagePriority.URGENT, Package.NO_DEADLINE)));
+        Check.equal(Arrays.asList("URGENT", "STANDARD-60s", "STANDARD-90s", "EXPRESS"), assigned, "dispatch order");
+    }
+
+    // D is 9 s away, so the bulk package cannot make its 1 s deadline. It is moved behind
+    // the packages that can still be served in time and keyed by its class target.
+    public void testPackageThatCannotMakeItsDeadlineIsDemoted() throws InterruptedException {
+        DeliverySystem system = system(new Drone("DR-1", 5, "A"));
+        Package hopeless = new Package("BULK-1s", 1, "D", PackagePriority.BULK, 1_000);
+        Package standard = new Package("STANDARD", 1, "B", PackagePriority.STANDARD, Package.NO_DEADLINE);
+        run(system, () -> placeAt(0, system, standard, hopeless));
+        Check.equal(Arrays.asList("STANDARD", "BULK-1s"), assigned, "dispatch order");
+        Check.check(hopeless.isLate(), "hopeless package not marked late");
+        Check.check(hopeless.missedDeadline(), "hopeless package reported on time");
+        Check.check(!standard.isLate(), "standard package marked late");
+    }
+
+    // B and C are 2 s from A and 4 s from each other. The drone taking C-3s first would bring
+    // B-4s along to arrive at 6 s, so B-4s is left for the other drone, which is in time.
+    public void testCompanionThatWouldBeLateIsLeftBehind() throws InterruptedException {
+        LocationGraph.Builder triangle = new LocationGraph.Builder();
+        triangle.addRoad("A", "B", 2);
+        triangle.addRoad("A", "C", 2);
+        triangle.addRoad("B", "C", 4);
+        DeliverySystem system = system(triangle.build(), new Drone("DR-1", 5, "A"), new Drone("DR-2", 5, "A"));
+        system.useConsolidation(2, 4);
+        Map<String, Drone> drones = new HashMap<>();
+        system.addListener(new DeliveryListener() {
+            @Override
+            public void packageAssigned(Package pkg, Drone drone, int distance) {
+                drones.put(pkg.getId(), drone);
+            }
+        });
+        Package c = new Package("C-3s", 1, "C", PackagePriority.STANDARD, 3_000);
+        Package b = new Package("B-4s", 1, "B", PackagePriority.STANDARD, 4_000);
+        run(system, () -> placeAt(0, system, b, c));
+        Check.equal(Arrays.asList("C-3s", "B-4s"), assigned, "dispatch order");
+        Check.check(drones.get("C-3s") != drones.get("B-4s"), "both packages on one drone");
+        Check.check(!c.missedDeadline() && !b.missedDeadline(), "a package delivered late");
+    }
+
+    // A direct flight to D would make the 5 s deadline, but the drone has to stop at S and
+    // charge for 15 s on the way, so the package is demoted behind the one without a deadline
+    public void testChargingStopThatMakesItLateDemotes() throws InterruptedException {
+        Drone drone = new Drone("DR-1", 5, "A", 100);
+        drone.setCharge(15);
+        DeliverySystem system = system(TestGraphs.line(new String[] {"A", "S", "D"}, new int[] {1, 1}, "S"), drone);
+        system.useEnergyModel(new EnergyModel(10, 0, 1, 0));
+        Package late = new Package("D-5s", 1, "D", PackagePriority.STANDARD, 5_000);
+        run(system, () -> placeAt(0, system, new Package("S", 1, "S"), late));
+        Check.equal(Arrays.asList("S", "D-5s"), assigned, "dispatch order");
+        Check.check(late.isLate(), "late package not demoted");
+    }
+
+    // A bulk package that has waited out its class target sorts ahead of an urgent one that
+    // arrived much later, so no class starves
+    public void testOldBulkPackageIsNotStarved() throws InterruptedException {
+        DeliverySystem system = system();
+        run(system, () -> {
+            placeAt(0, system, new Package("BULK", 1, "B", PackagePriority.BULK, Package.NO_DEADLINE));
+            placeAt(1_790_000, system, new Package("URGENT", 1, "C", PackagePriority.URGENT, Package.NO_DEADLINE));
+            clock.scheduleAt(1_800_000, () -> system.adoptDrone(new Drone("DR-1", 5, "A"), "A"));
+        });
+        Check.equal(Arrays.asList("BULK", "URGENT"), assigned, "dispatch order");
+    }
+
+    // Raised to URGENT while the drone is out on the first flight; a package already on its
+    // way can no longer be changed
+    public void testReprioritizeMovesAWaitingPackage() throws InterruptedException {
+        DeliverySystem system = system(new Drone("DR-1", 5, "A"));
+        Package first = new Package("S1", 1, "B");
+        Package bulk = new Package("BULK", 1, "C", PackagePriority.BULK, Package.NO_DEADLINE);
+        boolean[] changed = new boolean[2];
+        run(system, () -> {
+            placeAt(0, system, first, new Package("S2", 1, "D"), new Package("S3", 1, "B"), bulk);
+            clock.scheduleAt(1, () -> {
+                changed[0] = system.reprioritize(bulk, PackagePriority.URGENT, Package.NO_DEADLINE);
+                changed[1] = system.reprioritize(first, PackagePriority.URGENT, Package.NO_DEADLINE);
+            });
+        });
+        Check.check(changed[0], "waiting package not reprioritized");
+        Check.check(!changed[1], "dispatched package reprioritized");
+        Check.equal(Arrays.asList("S1", "BULK", "S2", "S3"), assigned, "dispatch order");
+        Check.equal(PackagePriority.STANDARD, first.getPriority(), "priority of the dispatched package");
+    }
+}
@@ -0,0 +1,89 @@
+package droneDeliverySystem;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public class SimulationClockTest {
+    public void testAcceleratedRunsEventsInTimeOrder() throws InterruptedException {
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.ACCELERATED);
+        List<Long> fired = new CopyOnWriteArrayList<>();
+        for (long time : new long[] {5_000, 1_000, 3_000, 1_000}) {
+            clock.scheduleAt(time, () -> fired.add(clock.now()));
+        }
+        clock.start();
+        Check.check(clock.awaitIdle(10, TimeUnit.SECONDS), "clock still busy");
+        Check.equal(Arrays.asList(1_000L, 1_000L, 3_000L, 5_000L), fired, "event times");
+        clock.cancel();
+    }
+
+    public void testNowNeverStartsFromAnUnsetBase() throws InterruptedException {
+        for (int round = 0; round < 200; round++) {
+            SimulationClock clock = new SimulationClock(SimulationClock.Mode.REAL_TIME);
+            AtomicLong largest = new AtomicLong();
+            AtomicBoolean done = new AtomicBoolean();
+            Thread reader = new Thread(() -> {
+                while (!done.get()) {
+                    largest.accumulateAndGet(clock.now(), Math::max);
+                }
+            });
+            reader.start();
+            clock.start();
+            Thread.sleep(1);
+            done.set(true);
+            reader.join();
+            clock.cancel();
+            Check.check(largest.get() < 60_000, "now() read " + largest.get() + " ms right after start");
+        }
+    }
+
+    // At 50 virtual ms per wall ms, events a few virtual ms apart are due well within one wall
+    // millisecond. None may run before its time.
+    public void testFastRealTimeClockNeverRunsEventsEarly() throws InterruptedException {
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.REAL_TIME, 50);
+        List<String> early = new CopyOnWriteArrayList<>();
+        clock.start();
+        long base = clock.now() + 100;
+        for (int i = 0; i < 200; i++) {
+            long time = base + i * 7L;
+            clock.scheduleAt(time, () -> {
+                long now = clock.now();
+                if (now < time) {
+                    early.add(now + " < " + time);
+                }
+            });
+        }
+        Check.check(clock.awaitIdle(10, TimeUnit.SECONDS), "clock still busy");
+        clock.cancel();
+        Check.equal(Collections.emptyList(), early, "events run before their time");
+    }
+
+    public void testCancelledClockKeepsItsTime() throws InterruptedException {
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.REAL_TIME, 100);
+        clock.start();
+        Thread.sleep(50);
+        long before = clock.now();
+        clock.cancel();
+        long stopped = clock.now();
+        Thread.sleep(20);
+        Check.check(stopped >= before, "time went back from " + before + " to " + stopped + " on cancel");
+        Check.equal(stopped, clock.now(), "time after cancel");
+    }
+
+    public void testFailingCallbackIsReportedAndTheClockCarriesOn() throws InterruptedException {
+        SimulationClock clock = new SimulationClock(SimulationClock.Mode.ACCELERATED);
+        List<RuntimeException> errors = new CopyOnWriteArrayList<>();
+        clock.setErrorHandler(errors::add);
+        AtomicBoolean after = new AtomicBoolean();
+        clock.scheduleAt(10, () -> {
+            throw new IllegalStateException("boom");
+        });
+        clock.scheduleAt(20, () -> after.set(true));
+        clock.start();
+        Check.check(clock.awaitIdle(10, TimeUnit.SECONDS), "clock still busy");
+        Check.equal(1, errors.size(), "errors reported");
+        Check.equal("boom", errors.get(0).getMessage(), "error");
+        Check.check(after.get(), "later event did not run");
+        clock.cancel();
+    }
+}
@@ -0,0 +1,63 @@
+package droneDeliverySystem;
+
+import java.util.*;
+
+// Small seeded maps for the tests: square grids with random road lengths, and straight lines
+class TestGraphs {
+    private TestGraphs() {}
+
+    // side x side grid of locations "N<i>", roads 1-9 long, with two-slot chargers at the given nodes
+    public static LocationGraph grid(int side, long seed, int... chargers) {
+        Random random = new Random(seed);
+        LocationGraph.Builder builder = new LocationGraph.Builder();
+        for (int i = 0; i < side * side; i++) {
+            builder.intern(name(i));
+        }
+        for (int i = 0; i < side * side; i++) {
+            if ((i + 1) % side != 0) {
+                builder.addRoad(name(i), name(i + 1), 1 + random.nextInt(9));
+            }
+            if (i + side < side * side) {
+                builder.addRoad(name(i), name(i + side), 1 + random.nextInt(9));
+            }
+        }
+        for (int charger : chargers) {
+            builder.addChargingStation(name(charger), 2);
+        }
+        return builder.build();
+    }
+
+    // Two-way roads between consecutive names, with the given lengths
+    public static LocationGraph line(String[] names, int[] lengths, String... chargers) {
+        LocationGraph.Builder builder = new LocationGraph.Builder();
+        for (int i = 0; i + 1 < names.length; i++) {
+            builder.addRoad(names[i], names[i + 1], lengths[i]);
+        }
+        for (String charger : chargers) {
+            builder.addChargingStation(charger, 2);
+        }
+        return builder.build();
+    }
+
+    // Random directed edges 1-20 long between locations "N<i>", in the map form
+    // LocationGraph.fromMap takes, so a test can edit it and build a fresh graph from it
+    public static Map<String, Map<String, Integer>> randomMap(int nodes, int edges, long seed) {
+        Random random = new Random(seed);
+        Map<String, Map<String, Integer>> map = new TreeMap<>();
+        for (int i = 0; i < nodes; i++) {
+            map.put(name(i), new TreeMap<>());
+        }
+        for (int i = 0; i < edges; i++) {
+            int from = random.nextInt(nodes);
+            int to = random.nextInt(nodes);
+            if (from != to) {
+                map.get(name(from)).put(name(to), 1 + random.nextInt(20));
+            }
+        }
+        return map;
+    }
+
+    public static String name(int node) {
+        return "N" + node;
+    }
+}
@@ -0,0 +1,70 @@
+package droneDeliverySystem;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+// Entry point for the test suite: plain classes whose public void test* methods run on a
+// fresh instance each, with no framework to install. Optional arguments filter tests by
+// class or method name. Exits non-zero if any test fails.
+public class Tests {
+    private static final Class<?>[] SUITES = {
+        SimulationClockTest.class,
+        RouteTableTest.class,
+        RoutingTest.class,
+        RoutePlannerTest.class,
+        ListenerIsolationTest.class,
+        ExecutionBackendTest.class,
+        RegionTest.class,
+        AssignmentSolverTest.class,
+        SchedulingTest.class,
+        AdmissionTest.class,
+        LocationGraphTest.class,
+        DeliveryJournalTest.class,
+        EnergyPlannerTest.class,
+        EnergyDispatchTest.class,
+        OrderLogTest.class,
+        MetricsTest.class,
+        DroneIndexTest.class,
+        ClaimTest.class, RepositioningTest.class,
+    };
+
+    public static void main(String[] args) throws Exception {
+        List<String> filters = Arrays.asList(args);
+        int passed = 0;
+        List<String> failed = new ArrayList<>();
+        for (Class<?> suite : SUITES) {
+            Method[] methods = suite.getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                String name = suite.getSimpleName() + "." + method.getName();
+                if (!method.getName().startsWith("test") || !Modifier.isPublic(method.getModifiers()) || !enabled(filters, name)) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                try {
+                    method.invoke(suite.getDeclaredConstructor().newInstance());
+                    passed++;
+                    System.out.printf("PASS %-64s %6d ms%n", name, (System.nanoTime() - start) / 1_000_000);
+                } catch (InvocationTargetException e) {
+                    failed.add(name);
+                    System.out.printf("FAIL %-64s %6d ms%n", name, (System.nanoTime() - start) / 1_000_000);
+                    e.getCause().printStackTrace(System.out);
+                }
+            }
+        }
+        System.out.printf("%d passed, %d failed%s%n", passed, failed.size(), failed.isEmpty() ? "" : " " + failed);
+        System.exit(failed.isEmpty() ? 0 : 1);
+    }
+
+    private static boolean enabled(List<String> filters, String name) {
+        if (filters.isEmpty()) {
+            return true;
+        }
+        for (String filter : filters) {
+            if (name.contains(filter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}